@@ -0,0 +1,39 @@
+package com.malistore_backend.config;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Lectures servies par le primaire même quand un réplica est configuré : rechargements de cache.
+ *
+ * Un rechargement suit de près l'invalidation déclenchée par une écriture ; lu sur un réplica
+ * en retard, il remettrait en cache l'état d'avant l'écriture jusqu'à la prochaine invalidation.
+ * Les transactions créées ici portent un nom reconnu par {@link ReplicaRoutingDataSource}.
+ */
+public final class PrimaryReads {
+
+    private static final String TRANSACTION_NAME_PREFIX = "primary-read:";
+
+    private PrimaryReads() {
+    }
+
+    /**
+     * Transaction en lecture seule (session Hibernate en lecture seule) servie par le primaire
+     * @param name nom du chargement, repris dans le nom de la transaction
+     */
+    public static TransactionTemplate readOnlyTransaction(PlatformTransactionManager transactionManager, String name) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setName(TRANSACTION_NAME_PREFIX + name);
+        return transaction;
+    }
+
+    /**
+     * @return true si la transaction en cours a été ouverte par {@link #readOnlyTransaction}
+     */
+    static boolean isCurrentTransactionPrimaryRead() {
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name != null && name.startsWith(TRANSACTION_NAME_PREFIX);
+    }
+}
@@ -0,0 +1,80 @@
+package com.malistore_backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture de ses propres écritures avec un réplica en retard : après le commit d'une
+ * transaction d'écriture, les lectures du même utilisateur restent sur le primaire
+ * pendant une fenêtre au moins égale au retard mesuré du réplica
+ * (par ex. le panier relu juste après un ajout).
+ */
+@Component
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+@Slf4j
+public class ReadYourWritesTracker implements TransactionExecutionListener {
+
+    // Dernière écriture validée par utilisateur (System.nanoTime)
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    @Value("${app.datasource.replica.read-your-writes-window-ms:5000}")
+    private long windowMs;
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly() || !transaction.isNewTransaction()) {
+            return;
+        }
+        String user = currentUser();
+        if (user != null) {
+            lastWrites.put(user, System.nanoTime());
+        }
+    }
+
+    /**
+     * @param replicaLagMs retard actuel du réplica
+     * @return true si l'utilisateur courant a écrit trop récemment pour lire sur le réplica
+     */
+    public boolean mustReadFromPrimary(long replicaLagMs) {
+        String user = currentUser();
+        if (user == null) {
+            return false;
+        }
+        Long lastWrite = lastWrites.get(user);
+        if (lastWrite == null) {
+            return false;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastWrite);
+        return elapsedMs < Math.max(windowMs, replicaLagMs);
+    }
+
+    /**
+     * Oublie les écritures sorties de la fenêtre
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.read-your-writes-window-ms:5000}")
+    public void prune() {
+        long threshold = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(windowMs);
+        lastWrites.values().removeIf(lastWrite -> lastWrite < threshold);
+    }
+
+    @Nullable
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
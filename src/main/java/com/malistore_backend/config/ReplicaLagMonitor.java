@@ -0,0 +1,69 @@
+package com.malistore_backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Mesure périodiquement le retard de réplication du réplica de lecture.
+ * Au-delà de app.datasource.replica.max-lag-ms, ou si le réplica ne répond pas,
+ * toutes les lectures repassent sur le primaire jusqu'à la mesure suivante.
+ */
+@Component
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // Un réplica qui a rejoué tout le WAL reçu n'est pas en retard, même si le primaire est inactif
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.datasource.replica.max-lag-ms:1000}")
+    private long maxLagMs;
+
+    // Inutilisable tant qu'aucune mesure n'a réussi
+    private volatile boolean usable;
+    private volatile long lagMs;
+
+    public ReplicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        this.jdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.jdbcTemplate.setQueryTimeout(2);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:2000}")
+    public void check() {
+        boolean wasUsable = usable;
+        try {
+            Double lag = jdbcTemplate.queryForObject(LAG_SQL, Double.class);
+            lagMs = lag != null ? lag.longValue() : 0;
+            usable = lagMs <= maxLagMs;
+        } catch (Exception e) {
+            usable = false;
+            if (wasUsable) {
+                log.warn("Read replica unreachable, routing reads to primary: {}", e.getMessage());
+            }
+            return;
+        }
+        if (wasUsable != usable) {
+            log.warn("Read replica {} (lag {} ms, max {} ms)", usable ? "back in use" : "lagging, routing reads to primary",
+                    lagMs, maxLagMs);
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    public long getLagMs() {
+        return lagMs;
+    }
+}
@@ -0,0 +1,47 @@
+package com.malistore_backend.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Oriente les connexions des transactions readOnly vers le réplica, sauf si celui-ci
+ * est en retard, si l'utilisateur courant vient d'écrire ou s'il s'agit d'un rechargement
+ * de cache ({@link PrimaryReads}) ; tout le reste va au primaire.
+ *
+ * Doit être enveloppé dans un LazyConnectionDataSourceProxy : la décision est prise à
+ * l'acquisition réelle de la connexion, une fois la transaction (et son flag readOnly) ouverte.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    ReplicaRoutingDataSource(DataSource primary, DataSource replica,
+                             ReplicaLagMonitor lagMonitor, ReadYourWritesTracker readYourWritesTracker) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWritesTracker = readYourWritesTracker;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Target.PRIMARY;
+        }
+        if (PrimaryReads.isCurrentTransactionPrimaryRead()) {
+            return Target.PRIMARY;
+        }
+        if (!lagMonitor.isReplicaUsable() || readYourWritesTracker.mustReadFromPrimary(lagMonitor.getLagMs())) {
+            return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+}
@@ -0,0 +1,59 @@
+package com.malistore_backend.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Statistiques du cache de second niveau Hibernate : /actuator/secondlevelcache (réservé aux administrateurs).
+ * Compteurs depuis le démarrage de l'instance (hibernate.generate_statistics).
+ */
+@Component
+@Endpoint(id = "secondlevelcache")
+@RequiredArgsConstructor
+public class SecondLevelCacheEndpoint {
+
+    public record Region(String name, long hits, long misses, long puts, long elementsInMemory) {
+    }
+
+    public record Report(boolean statisticsEnabled, long hits, long misses, long puts,
+                         long queryHits, long queryMisses, long queryPuts, List<Region> regions) {
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @ReadOperation
+    public Report report() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Region> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(name -> toRegion(name, statistics.getCacheRegionStatistics(name)))
+                .filter(Objects::nonNull)
+                .toList();
+        return new Report(statistics.isStatisticsEnabled(),
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(),
+                regions);
+    }
+
+    private static Region toRegion(String name, CacheRegionStatistics region) {
+        if (region == null) {
+            return null;
+        }
+        return new Region(name, region.getHitCount(), region.getMissCount(), region.getPutCount(),
+                region.getElementCountInMemory());
+    }
+}
@@ -15,6 +15,9 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
@@ -27,18 +30,29 @@ import lombok.Setter;
 
 @Entity
 @Table(name = "orders")
+@NamedEntityGraph(name = Order.WITH_CUSTOMER, attributeNodes = {
+        @NamedAttributeNode("user"), @NamedAttributeNode("shippingAddressEntity")})
+@NamedEntityGraph(name = Order.WITH_ITEMS_AND_PRODUCTS,
+        attributeNodes = @NamedAttributeNode(value = "orderItems", subgraph = "items"),
+        subgraphs = @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode("product")))
 @Getter
 @Setter
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
+
+    /** Commande avec son client et son adresse de livraison : détail d'une commande */
+    public static final String WITH_CUSTOMER = "Order.withCustomer";
+
+    /** Commande avec ses articles et leurs produits : contrôles et décrément de stock */
+    public static final String WITH_ITEMS_AND_PRODUCTS = "Order.withItemsAndProducts";
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
@@ -69,6 +83,10 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> orderItems;
     
+    /** Stock décrémenté après paiement ; écrit uniquement par OrderRepository.markStockDecremented */
+    @Column(name = "stock_decremented", insertable = false, updatable = false)
+    private Boolean stockDecremented;
+    
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
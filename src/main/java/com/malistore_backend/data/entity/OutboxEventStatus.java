@@ -0,0 +1,9 @@
+package com.malistore_backend.data.entity;
+
+public enum OutboxEventStatus {
+    PENDING,    // Événement enregistré, en attente de distribution
+    PROCESSING, // Événement en cours de distribution par un worker
+    PROCESSED,  // Événement distribué à tous ses abonnés
+    FAILED,     // Distribution échouée, sera retentée
+    DEAD        // Nombre maximal de tentatives atteint, n'est plus retenté
+}
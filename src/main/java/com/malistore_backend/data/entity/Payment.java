@@ -11,6 +11,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "payments")
+@NamedEntityGraph(name = Payment.WITH_ORDER, attributeNodes = @NamedAttributeNode("order"))
 @Getter
 @Setter
 @Builder
@@ -18,6 +19,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Payment {
 
+    /** Paiement avec sa commande : traitement des webhooks */
+    public static final String WITH_ORDER = "Payment.withOrder";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
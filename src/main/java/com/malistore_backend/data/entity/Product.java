@@ -15,20 +15,35 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedEntityGraph(name = Product.WITH_CATEGORY, attributeNodes = @NamedAttributeNode("category"))
 @Getter
 @Setter
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
+
+    /** Produit et sa catégorie : listes, recherche, fiche produit */
+    public static final String WITH_CATEGORY = "Product.withCategory";
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    /**
+     * Référence fournisseur, renseignée par l'import en masse
+     */
+    @Size(max = 100, message = "SKU must not exceed 100 characters")
+    @Column(unique = true, length = 100)
+    private String sku;
+    
     @NotBlank(message = "Product name is required")
     @Size(min = 2, max = 200, message = "Product name must be between 2 and 200 characters")
     @Column(nullable = false)
@@ -66,11 +81,13 @@ public class Product {
     @Column(nullable = false)
     private Boolean active = true;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
     
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @OrderBy("sortOrder ASC")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<ProductImage> images;
     
     @Column(name = "created_at", nullable = false)
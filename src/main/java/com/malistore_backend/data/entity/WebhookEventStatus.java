@@ -0,0 +1,8 @@
+package com.malistore_backend.data.entity;
+
+public enum WebhookEventStatus {
+    RECEIVED,   // Événement enregistré, en attente de traitement
+    PROCESSING, // Événement en cours de traitement par un worker
+    PROCESSED,  // Événement traité avec succès
+    FAILED      // Traitement échoué, sera retenté
+}
@@ -1,9 +1,11 @@
 package com.malistore_backend.data.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,6 +14,7 @@ import org.springframework.stereotype.Repository;
 import com.malistore_backend.data.entity.CartItem;
 import com.malistore_backend.data.entity.Product;
 import com.malistore_backend.data.entity.User;
+import com.malistore_backend.web.dto.cart.CartSummary;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
@@ -31,11 +34,23 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
      */
     Optional<CartItem> findByUserAndProduct(User user, Product product);
     
+    /**
+     * Trouve les lignes du panier d'un utilisateur pour un lot de produits
+     */
+    List<CartItem> findByUserAndProductIdIn(User user, Collection<Long> productIds);
+    
     /**
      * Trouve un article par son ID et l'utilisateur (sécurité)
      */
+    @EntityGraph(CartItem.WITH_PRODUCT_DETAILS)
     Optional<CartItem> findByIdAndUser(Long id, User user);
     
+    /**
+     * Trouve des lignes du panier d'un utilisateur par ID, avec les détails des produits
+     */
+    @EntityGraph(CartItem.WITH_PRODUCT_DETAILS)
+    List<CartItem> findByUserAndIdIn(User user, Collection<Long> ids);
+    
     /**
      * Supprime tous les articles du panier d'un utilisateur
      */
@@ -53,13 +68,17 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     BigDecimal calculateCartTotal(@Param("user") User user);
     
     /**
-     * Trouve les articles du panier avec les détails des produits
+     * Résumé du panier (nombre d'articles, quantité totale, sous-total) en une requête
+     */
+    @Query("SELECT new com.malistore_backend.web.dto.cart.CartSummary(COUNT(ci), SUM(ci.quantity), SUM(ci.totalPrice)) " +
+           "FROM CartItem ci WHERE ci.user = :user")
+    CartSummary summarizeByUser(@Param("user") User user);
+    
+    /**
+     * Trouve les articles du panier avec les détails des produits (catégorie et images) en une requête
      */
-    @Query("SELECT ci FROM CartItem ci " +
-           "JOIN FETCH ci.product p " +
-           "JOIN FETCH p.category " +
-           "WHERE ci.user = :user " +
-           "ORDER BY ci.createdAt DESC")
+    @EntityGraph(CartItem.WITH_PRODUCT_DETAILS)
+    @Query("SELECT ci FROM CartItem ci WHERE ci.user = :user ORDER BY ci.createdAt DESC")
     List<CartItem> findByUserWithProductDetails(@Param("user") User user);
     
     /**
@@ -3,13 +3,17 @@ package com.malistore_backend.data.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.malistore_backend.data.entity.Category;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     
@@ -30,7 +34,12 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     
     /**
      * Trouve toutes les catégories actives triées par ordre de tri
+     * (résultat dans le cache de requêtes, invalidé à chaque écriture sur la table categories)
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "query.categories.active")
+    })
     List<Category> findByActiveTrueOrderBySortOrderAsc();
     
     /**
@@ -49,4 +58,11 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      */
     @Query("SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId")
     Long countProductsByCategoryId(@Param("categoryId") Long categoryId);
+    
+    /**
+     * Compte les produits de toutes les catégories en une seule requête
+     * @return des lignes [categoryId, productCount] (les catégories vides sont absentes)
+     */
+    @Query("SELECT p.category.id, COUNT(p) FROM Product p WHERE p.category IS NOT NULL GROUP BY p.category.id")
+    List<Object[]> countProductsGroupedByCategory();
 }
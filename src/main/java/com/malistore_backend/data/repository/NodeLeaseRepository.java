@@ -0,0 +1,70 @@
+package com.malistore_backend.data.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.malistore_backend.data.entity.NodeLease;
+
+import jakarta.persistence.QueryHint;
+
+/**
+ * Baux d'identifiant de nœud. Les échéances sont calculées avec l'horloge de la base
+ * afin de ne pas dépendre de l'horloge de chaque instance.
+ */
+@Repository
+public interface NodeLeaseRepository extends JpaRepository<NodeLease, Integer> {
+
+    /**
+     * Réserve le plus petit identifiant libre ou expiré
+     * @return l'identifiant obtenu, vide si aucun n'est libre ou si une autre instance l'a pris en même temps
+     */
+    @Transactional
+    @Query(value = "INSERT INTO node_leases (node_id, instance_id, leased_until, acquired_at) " +
+                   "SELECT s.id, :instanceId, CURRENT_TIMESTAMP + make_interval(secs => :ttlSeconds), CURRENT_TIMESTAMP " +
+                   "FROM generate_series(0, :maxNodeId) AS s(id) " +
+                   "LEFT JOIN node_leases l ON l.node_id = s.id " +
+                   "WHERE l.node_id IS NULL OR l.leased_until < CURRENT_TIMESTAMP " +
+                   "ORDER BY s.id LIMIT 1 " +
+                   "ON CONFLICT (node_id) DO UPDATE SET instance_id = EXCLUDED.instance_id, " +
+                   "leased_until = EXCLUDED.leased_until, acquired_at = EXCLUDED.acquired_at " +
+                   "WHERE node_leases.leased_until < CURRENT_TIMESTAMP " +
+                   "RETURNING node_id", nativeQuery = true)
+    Optional<Integer> acquire(@Param("instanceId") String instanceId,
+                              @Param("maxNodeId") int maxNodeId,
+                              @Param("ttlSeconds") int ttlSeconds);
+
+    /**
+     * Prolonge le bail détenu par l'instance
+     * @return 1 si le bail a été prolongé, 0 s'il a été perdu
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "node_leases"))
+    @Query(value = "UPDATE node_leases SET leased_until = CURRENT_TIMESTAMP + make_interval(secs => :ttlSeconds) " +
+                   "WHERE node_id = :nodeId AND instance_id = :instanceId", nativeQuery = true)
+    int renew(@Param("nodeId") int nodeId,
+              @Param("instanceId") String instanceId,
+              @Param("ttlSeconds") int ttlSeconds);
+
+    /**
+     * Identifiants des nœuds dont le bail est en cours, par ordre croissant
+     */
+    @Query(value = "SELECT node_id FROM node_leases WHERE leased_until > CURRENT_TIMESTAMP ORDER BY node_id",
+           nativeQuery = true)
+    List<Integer> findActiveNodeIds();
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "node_leases"))
+    @Query(value = "DELETE FROM node_leases WHERE node_id = :nodeId AND instance_id = :instanceId", nativeQuery = true)
+    int release(@Param("nodeId") int nodeId, @Param("instanceId") String instanceId);
+}
@@ -1,7 +1,9 @@
 package com.malistore_backend.data.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import com.malistore_backend.data.entity.Order;
 import com.malistore_backend.data.entity.OrderItem;
+import com.malistore_backend.data.entity.User;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
@@ -18,6 +21,19 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     @Query("SELECT oi FROM OrderItem oi WHERE oi.order = :order ORDER BY oi.createdAt ASC")
     List<OrderItem> findByOrderOrderByCreatedAtAsc(@Param("order") Order order);
     
+    /**
+     * Articles d'un lot de commandes avec leurs produits, catégories et images, en une requête
+     */
+    @EntityGraph(OrderItem.WITH_PRODUCT_DETAILS)
+    @Query("SELECT oi FROM OrderItem oi WHERE oi.order.id IN :orderIds ORDER BY oi.createdAt ASC, oi.id ASC")
+    List<OrderItem> findWithProductsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+    
+    /**
+     * Articles d'une commande, si elle appartient à l'utilisateur
+     */
+    @Query("SELECT oi FROM OrderItem oi WHERE oi.order.id = :orderId AND oi.order.user = :user ORDER BY oi.id ASC")
+    List<OrderItem> findByOrderIdAndUser(@Param("orderId") Long orderId, @Param("user") User user);
+    
     @Query("SELECT COUNT(oi) FROM OrderItem oi WHERE oi.order = :order")
     Long countByOrder(@Param("order") Order order);
 }
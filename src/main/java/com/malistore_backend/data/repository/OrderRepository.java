@@ -1,18 +1,27 @@
 package com.malistore_backend.data.repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.malistore_backend.data.entity.Order;
 import com.malistore_backend.data.entity.OrderStatus;
 import com.malistore_backend.data.entity.User;
+import com.malistore_backend.web.dto.order.OrderSummary;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -21,12 +30,53 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     Page<Order> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
     
+    /**
+     * Page d'historique d'un client, du plus récent au plus ancien, paginée par curseur sur (createdAt, id).
+     * Les associations simples sont chargées par jointure ; les articles sont chargés à part.
+     */
+    @EntityGraph(Order.WITH_CUSTOMER)
+    @Query("SELECT o FROM Order o WHERE o.user = :user " +
+           "AND (:cursorCreatedAt IS NULL OR (o.createdAt, o.id) < (:cursorCreatedAt, :cursorId)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findHistoryPage(
+        @Param("user") User user,
+        @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
+    );
+    
+    /**
+     * Charge une commande avec son client et son adresse de livraison ; les articles sont chargés à part
+     */
+    @EntityGraph(Order.WITH_CUSTOMER)
+    @Query("SELECT o FROM Order o WHERE o.id = :orderId")
+    Optional<Order> findWithDetailsById(@Param("orderId") Long orderId);
+    
+    /**
+     * Charge une commande avec ses articles et leurs produits, pour les contrôles de stock
+     */
+    @EntityGraph(Order.WITH_ITEMS_AND_PRODUCTS)
+    @Query("SELECT o FROM Order o WHERE o.id = :orderId")
+    Optional<Order> findWithItemsById(@Param("orderId") Long orderId);
+    
+    /**
+     * Réserve le décrément de stock d'une commande payée (éventuellement expédiée ou livrée depuis) :
+     * 1 la première fois, 0 si déjà fait, si la commande n'est pas payée ou si elle est annulée
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "orders"))
+    @Query(value = "UPDATE orders SET stock_decremented = TRUE " +
+                   "WHERE id = :orderId AND NOT stock_decremented AND status NOT IN ('PENDING', 'CANCELLED')",
+           nativeQuery = true)
+    int markStockDecremented(@Param("orderId") Long orderId);
+    
     Optional<Order> findByOrderNumber(String orderNumber);
     
     List<Order> findByStatus(OrderStatus status);
     
     Page<Order> findByStatus(OrderStatus status, Pageable pageable);
     
+    @EntityGraph(Order.WITH_CUSTOMER)
     @Query("SELECT o FROM Order o WHERE o.user = :user AND o.id = :orderId")
     Optional<Order> findByUserAndId(@Param("user") User user, @Param("orderId") Long orderId);
     
@@ -35,8 +85,42 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC")
     Page<Order> findAllOrderByCreatedAtDesc(Pageable pageable);
+    
+    /**
+     * Charge en une requête une commande payable (PENDING, sans paiement réussi)
+     * avec ses articles et leurs produits
+     */
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.product " +
+           "WHERE o.id = :orderId AND o.status = 'PENDING' " +
+           "AND NOT EXISTS (SELECT p.id FROM Payment p WHERE p.order = o AND p.status = 'SUCCEEDED')")
+    Optional<Order> findPayableWithItems(@Param("orderId") Long orderId);
+    
+    /**
+     * Recherche admin des commandes, du plus récent au plus ancien, paginée par curseur sur (createdAt, id).
+     * Seule la première page de Pageable est utilisée : elle fixe la limite de lignes.
+     */
+    @Query("SELECT new com.malistore_backend.web.dto.order.OrderSummary(" +
+           "o.id, o.orderNumber, o.status, o.totalAmount, u.id, u.name, u.email, o.createdAt) " +
+           "FROM Order o JOIN o.user u WHERE " +
+           "(:status IS NULL OR o.status = :status) AND " +
+           "(:createdFrom IS NULL OR o.createdAt >= :createdFrom) AND " +
+           "(:createdTo IS NULL OR o.createdAt < :createdTo) AND " +
+           "(:customerEmail IS NULL OR u.email = :customerEmail) AND " +
+           "(:minAmount IS NULL OR o.totalAmount >= :minAmount) AND " +
+           "(:maxAmount IS NULL OR o.totalAmount <= :maxAmount) AND " +
+           "(:orderNumberPattern IS NULL OR o.orderNumber LIKE :orderNumberPattern ESCAPE '!') AND " +
+           "(:cursorCreatedAt IS NULL OR (o.createdAt, o.id) < (:cursorCreatedAt, :cursorId)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> searchSummaries(
+        @Param("status") OrderStatus status,
+        @Param("createdFrom") LocalDateTime createdFrom,
+        @Param("createdTo") LocalDateTime createdTo,
+        @Param("customerEmail") String customerEmail,
+        @Param("minAmount") BigDecimal minAmount,
+        @Param("maxAmount") BigDecimal maxAmount,
+        @Param("orderNumberPattern") String orderNumberPattern,
+        @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
+    );
 }
-
-
-
-
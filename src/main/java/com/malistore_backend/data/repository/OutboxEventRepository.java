@@ -0,0 +1,77 @@
+package com.malistore_backend.data.repository;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.malistore_backend.data.entity.OutboxEvent;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Remet en attente un événement réservé mais non distribué (file du worker pleine)
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "outbox_events"))
+    @Query(value = "UPDATE outbox_events SET status = 'PENDING', attempts = attempts - 1 " +
+                   "WHERE id = :id AND status = 'PROCESSING' AND attempts = :attempts", nativeQuery = true)
+    int release(@Param("id") Long id, @Param("attempts") int attempts);
+
+    /**
+     * Enregistre l'échec d'une tentative ; l'événement est retenté après le délai donné,
+     * ou abandonné (DEAD) s'il a atteint le nombre maximal de tentatives
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "outbox_events"))
+    @Query(value = "UPDATE outbox_events SET " +
+                   "status = CASE WHEN attempts >= :maxAttempts THEN 'DEAD' ELSE 'FAILED' END, " +
+                   "last_error = :error, available_at = CURRENT_TIMESTAMP + make_interval(secs => :delaySeconds) " +
+                   "WHERE id = :id AND status = 'PROCESSING' AND attempts = :attempts", nativeQuery = true)
+    int markFailed(@Param("id") Long id,
+                   @Param("attempts") int attempts,
+                   @Param("maxAttempts") int maxAttempts,
+                   @Param("delaySeconds") double delaySeconds,
+                   @Param("error") String error);
+
+    /**
+     * Libère les événements restés en PROCESSING (instance arrêtée en cours de distribution)
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "outbox_events"))
+    @Query(value = "UPDATE outbox_events SET status = 'FAILED', last_error = 'Processing interrupted' " +
+                   "WHERE status = 'PROCESSING' AND last_attempt_at < CURRENT_TIMESTAMP - make_interval(secs => :timeoutSeconds)",
+           nativeQuery = true)
+    int releaseStale(@Param("timeoutSeconds") int timeoutSeconds);
+
+    /**
+     * Supprime les événements traités depuis plus du nombre de jours donné
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "outbox_events"))
+    @Query(value = "DELETE FROM outbox_events WHERE status = 'PROCESSED' " +
+                   "AND processed_at < CURRENT_TIMESTAMP - make_interval(days => :retentionDays)", nativeQuery = true)
+    int deleteProcessedBefore(@Param("retentionDays") int retentionDays);
+
+    @Query(value = "SELECT COUNT(*) FROM outbox_events WHERE status IN ('PENDING', 'PROCESSING', 'FAILED')",
+           nativeQuery = true)
+    long countPending();
+
+    /**
+     * Âge en millisecondes du plus ancien événement non distribué, null s'il n'y en a pas
+     */
+    @Query(value = "SELECT CAST(EXTRACT(EPOCH FROM (CURRENT_TIMESTAMP - MIN(created_at))) * 1000 AS BIGINT) " +
+                   "FROM outbox_events WHERE status IN ('PENDING', 'PROCESSING', 'FAILED')", nativeQuery = true)
+    Long findOldestPendingAgeMs();
+}
@@ -3,9 +3,11 @@ package com.malistore_backend.data.repository;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,6 +15,8 @@ import org.springframework.transaction.annotation.Transactional;
 import com.malistore_backend.data.entity.PasswordResetToken;
 import com.malistore_backend.data.entity.User;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
     
@@ -37,6 +41,7 @@ public interface PasswordResetTokenRepository extends JpaRepository<PasswordRese
     
     @Modifying
     @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "password_reset_tokens"))
     @Query(value = "DELETE FROM password_reset_tokens WHERE user_id = :userId", nativeQuery = true)
     void deleteByUser(@Param("userId") Long userId);
 }
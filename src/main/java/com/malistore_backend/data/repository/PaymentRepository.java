@@ -3,6 +3,7 @@ package com.malistore_backend.data.repository;
 import com.malistore_backend.data.entity.Order;
 import com.malistore_backend.data.entity.Payment;
 import com.malistore_backend.data.entity.PaymentStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -27,6 +28,7 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     /**
      * Trouve un paiement par son ID de session Stripe
      */
+    @EntityGraph(Payment.WITH_ORDER)
     Optional<Payment> findByStripeSessionId(String stripeSessionId);
     
     /**
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,12 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
      */
     List<ProductImage> findByProductIdOrderBySortOrderAsc(Long productId);
     
+    /**
+     * Find the images of several products in one query, grouped by product then sort order
+     */
+    @Query("SELECT pi FROM ProductImage pi WHERE pi.product.id IN :productIds ORDER BY pi.product.id, pi.sortOrder")
+    List<ProductImage> findByProductIdIn(@Param("productIds") Collection<Long> productIds);
+    
     /**
      * Find the primary image for a product
      */
@@ -1,10 +1,13 @@
 package com.malistore_backend.data.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -18,13 +21,27 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     /**
      * Trouve tous les produits actifs
      */
+    @EntityGraph(Product.WITH_CATEGORY)
     List<Product> findByActiveTrue();
     
     /**
      * Trouve tous les produits actifs avec pagination
      */
+    @EntityGraph(Product.WITH_CATEGORY)
     Page<Product> findByActiveTrue(Pageable pageable);
     
+    /**
+     * Charge un produit avec sa catégorie en une seule requête
+     */
+    @EntityGraph(Product.WITH_CATEGORY)
+    Optional<Product> findWithCategoryById(Long id);
+    
+    /**
+     * Charge plusieurs produits avec leur catégorie en une seule requête
+     */
+    @EntityGraph(Product.WITH_CATEGORY)
+    List<Product> findWithCategoryByIdIn(Collection<Long> ids);
+    
     /**
      * Trouve les produits par catégorie
      */
@@ -33,17 +50,20 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     /**
      * Trouve les produits par catégorie avec pagination
      */
+    @EntityGraph(Product.WITH_CATEGORY)
     Page<Product> findByCategoryIdAndActiveTrue(Long categoryId, Pageable pageable);
     
     /**
      * Recherche de produits par nom (insensible à la casse)
      */
+    @EntityGraph(Product.WITH_CATEGORY)
     @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) AND p.active = true")
     Page<Product> findByNameContainingIgnoreCaseAndActiveTrue(@Param("searchTerm") String searchTerm, Pageable pageable);
     
     /**
      * Recherche de produits par nom et catégorie
      */
+    @EntityGraph(Product.WITH_CATEGORY)
     @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) AND p.category.id = :categoryId AND p.active = true")
     Page<Product> findByNameContainingIgnoreCaseAndCategoryIdAndActiveTrue(
         @Param("searchTerm") String searchTerm, 
@@ -54,6 +74,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     /**
      * Recherche de produits par plage de prix
      */
+    @EntityGraph(Product.WITH_CATEGORY)
     @Query("SELECT p FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice AND p.active = true")
     Page<Product> findByPriceBetweenAndActiveTrue(
         @Param("minPrice") BigDecimal minPrice, 
@@ -64,6 +85,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     /**
      * Recherche avancée avec tous les critères
      */
+    @EntityGraph(Product.WITH_CATEGORY)
     @Query("SELECT p FROM Product p WHERE " +
            "(:searchTerm IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) AND " +
            "(:categoryId IS NULL OR p.category.id = :categoryId) AND " +
@@ -91,6 +113,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     /**
      * Trouve les produits par stock avec pagination
      */
+    @EntityGraph(Product.WITH_CATEGORY)
     Page<Product> findByStockLessThanAndActiveTrue(Integer stockThreshold, Pageable pageable);
     
     /**
@@ -0,0 +1,58 @@
+package com.malistore_backend.data.repository;
+
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.malistore_backend.data.entity.ScheduledJobLock;
+
+import jakarta.persistence.QueryHint;
+
+/**
+ * Verrous des tâches planifiées. Les échéances sont calculées avec l'horloge de la base
+ * afin de ne pas dépendre de l'horloge de chaque instance.
+ */
+@Repository
+public interface ScheduledJobLockRepository extends JpaRepository<ScheduledJobLock, String> {
+
+    /**
+     * Prend le verrou s'il est libre ou expiré
+     * @return le nom de la tâche si le verrou a été obtenu, vide s'il est détenu par une autre instance
+     */
+    @Transactional
+    @Query(value = "INSERT INTO scheduled_job_locks (job_name, locked_by, locked_until, locked_at) " +
+                   "VALUES (:jobName, :owner, CURRENT_TIMESTAMP + make_interval(secs => :ttlSeconds), CURRENT_TIMESTAMP) " +
+                   "ON CONFLICT (job_name) DO UPDATE SET locked_by = EXCLUDED.locked_by, " +
+                   "locked_until = EXCLUDED.locked_until, locked_at = EXCLUDED.locked_at " +
+                   "WHERE scheduled_job_locks.locked_until < CURRENT_TIMESTAMP " +
+                   "RETURNING job_name", nativeQuery = true)
+    Optional<String> acquire(@Param("jobName") String jobName,
+                             @Param("owner") String owner,
+                             @Param("ttlSeconds") int ttlSeconds);
+
+    /**
+     * Prolonge le verrou détenu par l'instance
+     * @return 1 si le verrou a été prolongé, 0 s'il a été perdu
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "scheduled_job_locks"))
+    @Query(value = "UPDATE scheduled_job_locks SET locked_until = CURRENT_TIMESTAMP + make_interval(secs => :ttlSeconds) " +
+                   "WHERE job_name = :jobName AND locked_by = :owner", nativeQuery = true)
+    int renew(@Param("jobName") String jobName,
+              @Param("owner") String owner,
+              @Param("ttlSeconds") int ttlSeconds);
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "scheduled_job_locks"))
+    @Query(value = "DELETE FROM scheduled_job_locks WHERE job_name = :jobName AND locked_by = :owner", nativeQuery = true)
+    int release(@Param("jobName") String jobName, @Param("owner") String owner);
+}
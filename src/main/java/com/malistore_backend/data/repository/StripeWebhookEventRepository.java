@@ -0,0 +1,84 @@
+package com.malistore_backend.data.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.malistore_backend.data.entity.StripeWebhookEvent;
+import com.malistore_backend.data.entity.WebhookEventStatus;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface StripeWebhookEventRepository extends JpaRepository<StripeWebhookEvent, Long> {
+
+    Optional<StripeWebhookEvent> findByEventId(String eventId);
+
+    /**
+     * Enregistre un événement s'il n'existe pas encore
+     * @return 1 si l'événement est nouveau, 0 s'il s'agit d'une relivraison
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stripe_webhook_events"))
+    @Query(value = "INSERT INTO stripe_webhook_events (event_id, event_type, ordering_key, payload, status, attempts, received_at) " +
+                   "VALUES (:eventId, :eventType, :orderingKey, :payload, 'RECEIVED', 0, CURRENT_TIMESTAMP) " +
+                   "ON CONFLICT (event_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("eventId") String eventId,
+                       @Param("eventType") String eventType,
+                       @Param("orderingKey") String orderingKey,
+                       @Param("payload") String payload);
+
+    /**
+     * Réserve un événement pour traitement (passage en PROCESSING)
+     * @return 1 si la réservation a réussi, 0 si un autre worker l'a déjà pris
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE StripeWebhookEvent e SET e.status = :processing, e.attempts = e.attempts + 1, e.lastAttemptAt = :now " +
+           "WHERE e.eventId = :eventId AND e.status IN :claimable")
+    int claim(@Param("eventId") String eventId,
+              @Param("processing") WebhookEventStatus processing,
+              @Param("claimable") Collection<WebhookEventStatus> claimable,
+              @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StripeWebhookEvent e SET e.status = :status, e.processedAt = :now, e.lastError = null WHERE e.eventId = :eventId")
+    int markProcessed(@Param("eventId") String eventId,
+                      @Param("status") WebhookEventStatus status,
+                      @Param("now") LocalDateTime now);
+
+    /**
+     * Enregistre l'échec d'une tentative ; l'événement est repris par le balayage après
+     * delaySeconds multiplié par le nombre de tentatives
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stripe_webhook_events"))
+    @Query(value = "UPDATE stripe_webhook_events SET status = 'FAILED', last_error = :error, " +
+                   "available_at = CURRENT_TIMESTAMP + make_interval(secs => :delaySeconds * attempts) " +
+                   "WHERE event_id = :eventId", nativeQuery = true)
+    int markFailed(@Param("eventId") String eventId,
+                   @Param("delaySeconds") double delaySeconds,
+                   @Param("error") String error);
+
+    /**
+     * Libère les événements restés en PROCESSING (worker arrêté en cours de traitement)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE StripeWebhookEvent e SET e.status = :failed, e.lastError = 'Processing interrupted' " +
+           "WHERE e.status = :processing AND e.lastAttemptAt < :staleBefore")
+    int releaseStale(@Param("processing") WebhookEventStatus processing,
+                     @Param("failed") WebhookEventStatus failed,
+                     @Param("staleBefore") LocalDateTime staleBefore);
+}
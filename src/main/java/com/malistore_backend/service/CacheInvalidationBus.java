@@ -0,0 +1,327 @@
+package com.malistore_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation des caches locaux entre instances, par Postgres LISTEN/NOTIFY (canal cache_invalidation).
+ *
+ * - les caches s'enregistrent par nom ({@link #register}) et publient leurs invalidations par {@link #publish} ;
+ *   dans une transaction, les clés sont regroupées et envoyées en un NOTIFY juste avant le commit :
+ *   Postgres ne délivre la notification qu'une fois la transaction validée
+ * - chaque instance écoute sur une connexion dédiée, hors pool, et évince localement ; les notifications
+ *   reçues en rafale sont regroupées pendant app.cache.invalidation.batch-window-ms
+ * - les notifications émises pendant une déconnexion sont perdues : à chaque (re)connexion,
+ *   tous les caches enregistrés sont vidés
+ * - une instance ignore ses propres notifications (déjà appliquées localement)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationBus {
+
+    public static final String CHANNEL = "cache_invalidation";
+
+    // Clé signifiant "toutes les entrées du cache"
+    public static final String ALL = "*";
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+
+    // Charge utile limitée à 8000 octets par Postgres ; au-delà de MAX_KEYS, le cache est vidé entièrement
+    private static final int MAX_PAYLOAD_LENGTH = 7000;
+    private static final int MAX_KEYS = 1000;
+
+    private record Listener(Consumer<String> evict, Runnable evictAll) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final NodeIdLeaseService nodeIdLeaseService;
+
+    @Value("${app.cache.invalidation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.invalidation.batch-window-ms:50}")
+    private int batchWindowMs;
+
+    @Value("${app.cache.invalidation.idle-check-ms:10000}")
+    private int idleCheckMs;
+
+    @Value("${app.cache.invalidation.reconnect-delay-ms:2000}")
+    private long reconnectDelayMs;
+
+    private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile Connection listenConnection;
+    private Thread listenerThread;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Cross-instance cache invalidation disabled");
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        Connection connection = listenConnection;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("Error closing cache invalidation connection: {}", e.getMessage());
+            }
+        }
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    /**
+     * Enregistre un cache local ; plusieurs caches peuvent suivre le même nom
+     * @param evict éviction d'une clé
+     * @param evictAll éviction de toutes les entrées
+     */
+    public void register(String cacheName, Consumer<String> evict, Runnable evictAll) {
+        listeners.computeIfAbsent(cacheName, name -> new CopyOnWriteArrayList<>()).add(new Listener(evict, evictAll));
+    }
+
+    /**
+     * Propage l'invalidation d'une clé aux autres instances ({@link #ALL} pour tout le cache) :
+     * au commit de la transaction courante, ou immédiatement hors transaction
+     */
+    public void publish(String cacheName, String key) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(Map.of(cacheName, Set.of(key)));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Set<String>> pending = (Map<String, Set<String>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<String, Set<String>> keys = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, keys);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // Rien n'a été écrit dans une transaction en lecture seule (éventuellement sur le réplica)
+                    if (!readOnly) {
+                        send(keys);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationBus.this);
+                }
+            });
+            pending = keys;
+        }
+        pending.computeIfAbsent(cacheName, name -> new LinkedHashSet<>()).add(key);
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getResyncs() {
+        return resyncs.get();
+    }
+
+    /**
+     * Envoie un NOTIFY par cache (plusieurs si les clés dépassent la taille maximale de la charge utile)
+     */
+    private void send(Map<String, Set<String>> keysByCache) {
+        String origin = nodeIdLeaseService.getInstanceId();
+        for (Map.Entry<String, Set<String>> entry : keysByCache.entrySet()) {
+            for (String payload : payloads(origin, entry.getKey(), entry.getValue())) {
+                jdbcTemplate.queryForList(NOTIFY_SQL, CHANNEL, payload);
+                published.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Charges utiles "origine|cache|clé,clé,..."
+     */
+    static List<String> payloads(String origin, String cacheName, Collection<String> keys) {
+        String prefix = origin + "|" + cacheName + "|";
+        if (keys.contains(ALL) || keys.size() > MAX_KEYS) {
+            return List.of(prefix + ALL);
+        }
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(prefix);
+        for (String key : keys) {
+            if (payload.length() > prefix.length() && payload.length() + key.length() + 1 > MAX_PAYLOAD_LENGTH) {
+                payloads.add(payload.toString());
+                payload = new StringBuilder(prefix);
+            }
+            if (payload.length() > prefix.length()) {
+                payload.append(',');
+            }
+            payload.append(key);
+        }
+        payloads.add(payload.toString());
+        return payloads;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                listenConnection = connection;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                connected = true;
+                resync();
+                log.info("Listening for cache invalidations on channel {}", CHANNEL);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(idleCheckMs);
+                    if (notifications == null || notifications.length == 0) {
+                        // Détecte une connexion coupée sans notification en attente
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+                    List<PGNotification> batch = new ArrayList<>(List.of(notifications));
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+                    long remainingMs;
+                    while ((remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) > 0) {
+                        PGNotification[] more = pgConnection.getNotifications((int) remainingMs);
+                        if (more != null) {
+                            batch.addAll(List.of(more));
+                        }
+                    }
+                    apply(batch);
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Cache invalidation connection lost, reconnecting in {} ms: {}", reconnectDelayMs,
+                            e.getMessage());
+                }
+            } finally {
+                connected = false;
+                listenConnection = null;
+            }
+            if (running && !sleep(reconnectDelayMs)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applique un lot de notifications : les clés sont regroupées par cache,
+     * un cache invalidé entièrement n'est vidé qu'une fois
+     */
+    private void apply(List<PGNotification> notifications) {
+        String self = nodeIdLeaseService.getInstanceId();
+        Map<String, Set<String>> keysByCache = new HashMap<>();
+        for (PGNotification notification : notifications) {
+            String[] parts = notification.getParameter().split("\\|", 3);
+            if (parts.length < 3 || parts[0].equals(self)) {
+                continue;
+            }
+            received.incrementAndGet();
+            Set<String> keys = keysByCache.computeIfAbsent(parts[1], name -> new LinkedHashSet<>());
+            for (String key : parts[2].split(",")) {
+                keys.add(key);
+            }
+        }
+        if (keysByCache.isEmpty()) {
+            return;
+        }
+
+        batches.incrementAndGet();
+        for (Map.Entry<String, Set<String>> entry : keysByCache.entrySet()) {
+            for (Listener listener : listeners.getOrDefault(entry.getKey(), List.of())) {
+                try {
+                    if (entry.getValue().contains(ALL)) {
+                        listener.evictAll().run();
+                    } else {
+                        entry.getValue().forEach(listener.evict());
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Error applying invalidation of cache {}, clearing it: {}", entry.getKey(), e.getMessage(), e);
+                    listener.evictAll().run();
+                }
+            }
+        }
+        log.debug("Applied {} cache invalidation notifications", notifications.size());
+    }
+
+    /**
+     * Vide tous les caches enregistrés : des notifications ont pu être perdues
+     */
+    private void resync() {
+        listeners.values().forEach(registered -> registered.forEach(listener -> listener.evictAll().run()));
+        resyncs.incrementAndGet();
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.malistore_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Purge des paniers abandonnés : suppression des lignes de panier non modifiées depuis
+ * app.cart.purge.retention-days jours.
+ *
+ * - exécutée par un seul nœud, sous le verrou de tâche "cart-purge" (voir ScheduledJobs) ;
+ *   la purge s'arrête si le verrou est perdu
+ * - parcours de la table par plages d'IDs de app.cart.purge.chunk-size, une transaction par plage ;
+ *   les lignes verrouillées par un client sont sautées (SKIP LOCKED) et purgées à l'exécution suivante
+ * - avant chaque plage, la purge attend tant que la base compte plus de app.cart.purge.max-active-sessions
+ *   sessions actives, et s'arrête si la charge dure plus de app.cart.purge.max-pause-ms
+ * - avec app.cart.purge.archive, les lignes purgées sont copiées dans cart_items_archive
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartPurgeService {
+
+    public static final String JOB_NAME = "cart-purge";
+
+    private static final int RETAINED_RUNS = 20;
+
+    private static final String ID_BOUNDS_SQL = "SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM cart_items";
+
+    private static final String STALE_LINES_SQL =
+            "SELECT id FROM cart_items WHERE id >= ? AND id < ? AND updated_at < ? FOR UPDATE SKIP LOCKED";
+
+    private static final String PURGE_SQL =
+            "DELETE FROM cart_items WHERE id IN (" + STALE_LINES_SQL + ") RETURNING user_id";
+
+    private static final String PURGE_AND_ARCHIVE_SQL =
+            "WITH purged AS (DELETE FROM cart_items WHERE id IN (" + STALE_LINES_SQL + ") RETURNING *) " +
+            "INSERT INTO cart_items_archive (id, user_id, product_id, quantity, unit_price, total_price, created_at, updated_at) " +
+            "SELECT id, user_id, product_id, quantity, unit_price, total_price, created_at, updated_at FROM purged " +
+            "RETURNING user_id";
+
+    // La session qui mesure est elle-même active
+    private static final String ACTIVE_SESSIONS_SQL =
+            "SELECT COUNT(*) - 1 FROM pg_stat_activity WHERE state = 'active' AND datname = current_database()";
+
+    /**
+     * Métriques d'une exécution
+     */
+    public record Run(LocalDateTime startedAt, LocalDateTime cutoff, int chunks, long linesPurged,
+                      boolean archived, long pausedMs, boolean stoppedUnderLoad, long durationMs, boolean failed) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ScheduledJobRunner scheduledJobRunner;
+    private final CartSummaryCache cartSummaryCache;
+
+    @Value("${app.cart.purge.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${app.cart.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.cart.purge.chunk-delay-ms:50}")
+    private long chunkDelayMs;
+
+    @Value("${app.cart.purge.max-active-sessions:20}")
+    private int maxActiveSessions;
+
+    @Value("${app.cart.purge.max-pause-ms:60000}")
+    private long maxPauseMs;
+
+    @Value("${app.cart.purge.archive:false}")
+    private boolean archive;
+
+    private TransactionTemplate chunkTransaction;
+    private final Deque<Run> recentRuns = new ArrayDeque<>();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong linesPurged = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        chunkTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Purge les lignes anciennes (exécution planifiée : app.cart.purge.cron)
+     */
+    public void run() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime cutoff = startedAt.minusDays(retentionDays);
+        long start = System.nanoTime();
+        int chunks = 0;
+        long lines = 0;
+        long pausedMs = 0;
+        boolean stoppedUnderLoad = false;
+        boolean failed = false;
+        try {
+            Map<String, Object> bounds = jdbcTemplate.queryForMap(ID_BOUNDS_SQL);
+            Number minId = (Number) bounds.get("min_id");
+            Number maxId = (Number) bounds.get("max_id");
+            if (minId != null) {
+                String sql = archive ? PURGE_AND_ARCHIVE_SQL : PURGE_SQL;
+                Timestamp cutoffTimestamp = Timestamp.valueOf(cutoff);
+                for (long from = minId.longValue(); from <= maxId.longValue(); from += chunkSize) {
+                    long waited = waitForCapacity();
+                    if (waited < 0) {
+                        stoppedUnderLoad = true;
+                        break;
+                    }
+                    pausedMs += waited;
+                    if (scheduledJobRunner.isLeaseLost(JOB_NAME)) {
+                        break;
+                    }
+
+                    long rangeStart = from;
+                    long rangeEnd = from + chunkSize;
+                    List<Long> userIds = chunkTransaction.execute(status -> {
+                        List<Long> purged = jdbcTemplate.queryForList(sql, Long.class, rangeStart, rangeEnd, cutoffTimestamp);
+                        cartSummaryCache.invalidateAfterCommit(purged);
+                        return purged;
+                    });
+                    chunks++;
+                    lines += userIds.size();
+                    if (chunkDelayMs > 0 && !sleep(chunkDelayMs)) {
+                        break;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            failed = true;
+            failures.incrementAndGet();
+            log.error("Cart purge failed after {} chunks", chunks, e);
+        }
+
+        Run run = new Run(startedAt, cutoff, chunks, lines, archive, pausedMs, stoppedUnderLoad,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failed);
+        runs.incrementAndGet();
+        linesPurged.addAndGet(lines);
+        synchronized (recentRuns) {
+            recentRuns.addFirst(run);
+            if (recentRuns.size() > RETAINED_RUNS) {
+                recentRuns.removeLast();
+            }
+        }
+        log.info("Cart purge: {} lines older than {} purged{} in {} chunks, {} ms ({} ms paused){}",
+                run.linesPurged(), cutoff, archive ? " and archived" : "", run.chunks(), run.durationMs(),
+                run.pausedMs(), stoppedUnderLoad ? ", stopped under database load" : "");
+    }
+
+    /**
+     * Attend que la charge de la base redescende sous le seuil
+     * @return le temps d'attente en ms, -1 si la charge a duré plus de app.cart.purge.max-pause-ms
+     */
+    private long waitForCapacity() {
+        long start = System.nanoTime();
+        while (true) {
+            Integer active = jdbcTemplate.queryForObject(ACTIVE_SESSIONS_SQL, Integer.class);
+            long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (active == null || active <= maxActiveSessions) {
+                return waited;
+            }
+            if (waited >= maxPauseMs) {
+                return -1;
+            }
+            log.debug("Cart purge paused: {} active sessions (max {})", active, maxActiveSessions);
+            if (!sleep(Math.min(1000, maxPauseMs))) {
+                return -1;
+            }
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Dernières exécutions, la plus récente d'abord
+     */
+    public List<Run> getRecentRuns() {
+        synchronized (recentRuns) {
+            return List.copyOf(recentRuns);
+        }
+    }
+
+    public long getRuns() {
+        return runs.get();
+    }
+
+    public long getLinesPurged() {
+        return linesPurged.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+}
@@ -0,0 +1,190 @@
+package com.malistore_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mise à jour des prix des paniers après un changement de prix produit.
+ *
+ * Les produits dont le prix a changé sont mis en file après le commit, puis traités par une tâche
+ * planifiée (app.cart.repricing.interval-ms) : des changements rapprochés forment une seule exécution.
+ * Une exécution repositionne unit_price et total_price par une requête ensembliste
+ * UPDATE cart_items ... FROM products, par blocs de app.cart.repricing.chunk-size lignes,
+ * chaque bloc dans sa propre transaction pour borner la durée des verrous.
+ * Les résumés de panier en cache des clients concernés sont invalidés.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartRepricingService {
+
+    private static final int RETAINED_RUNS = 20;
+
+    // Lignes au prix périmé des produits donnés, au plus ? par bloc ; une ligne mise à jour ne correspond plus
+    private static final String REPRICE_CHUNK_SQL =
+            "UPDATE cart_items ci SET unit_price = p.price, total_price = p.price * ci.quantity, " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "FROM products p " +
+            "WHERE p.id = ci.product_id AND ci.id IN (" +
+            "SELECT c.id FROM cart_items c JOIN products pr ON pr.id = c.product_id " +
+            "WHERE c.product_id = ANY (?) AND c.unit_price <> pr.price ORDER BY c.id LIMIT ?) " +
+            "RETURNING ci.user_id";
+
+    /**
+     * Métriques d'une exécution
+     */
+    public record Run(LocalDateTime startedAt, int products, int chunks, long linesRepriced,
+                      int customers, long durationMs, boolean failed) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final CartSummaryCache cartSummaryCache;
+
+    @Value("${app.cart.repricing.chunk-size:500}")
+    private int chunkSize;
+
+    private TransactionTemplate chunkTransaction;
+    private final Set<Long> pendingProductIds = ConcurrentHashMap.newKeySet();
+    private final Deque<Run> recentRuns = new ArrayDeque<>();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong linesRepriced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        chunkTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Met le produit en file pour la prochaine exécution, après le commit de la transaction courante
+     */
+    public void requestAfterCommit(Long productId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendingProductIds.add(productId);
+                }
+            });
+        } else {
+            pendingProductIds.add(productId);
+        }
+    }
+
+    /**
+     * Traite les produits en file ; ceux d'une exécution en échec sont remis en file
+     */
+    public synchronized void runPending() {
+        List<Long> productIds = new ArrayList<>();
+        for (Iterator<Long> it = pendingProductIds.iterator(); it.hasNext(); ) {
+            productIds.add(it.next());
+            it.remove();
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Run run = reprice(productIds);
+        if (run.failed()) {
+            pendingProductIds.addAll(productIds);
+        }
+    }
+
+    /**
+     * Aligne les lignes de panier des produits donnés sur leur prix courant
+     */
+    public synchronized Run reprice(Collection<Long> productIds) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        Long[] ids = productIds.toArray(Long[]::new);
+        Set<Long> customers = new HashSet<>();
+        int chunks = 0;
+        long lines = 0;
+        boolean failed = false;
+        try {
+            while (true) {
+                List<Long> userIds = chunkTransaction.execute(status -> {
+                    List<Long> repriced = jdbcTemplate.query(connection -> {
+                        PreparedStatement ps = connection.prepareStatement(REPRICE_CHUNK_SQL);
+                        ps.setArray(1, connection.createArrayOf("bigint", ids));
+                        ps.setInt(2, chunkSize);
+                        return ps;
+                    }, (rs, rowNum) -> rs.getLong(1));
+                    cartSummaryCache.invalidateAfterCommit(repriced);
+                    return repriced;
+                });
+                chunks++;
+                lines += userIds.size();
+                customers.addAll(userIds);
+                if (userIds.size() < chunkSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            failed = true;
+            failures.incrementAndGet();
+            log.error("Cart repricing failed for products {} after {} chunks", productIds, chunks, e);
+        }
+
+        Run run = new Run(startedAt, ids.length, chunks, lines, customers.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failed);
+        runs.incrementAndGet();
+        linesRepriced.addAndGet(lines);
+        synchronized (recentRuns) {
+            recentRuns.addFirst(run);
+            if (recentRuns.size() > RETAINED_RUNS) {
+                recentRuns.removeLast();
+            }
+        }
+        log.info("Cart repricing: {} products, {} lines in {} carts, {} chunks, {} ms",
+                run.products(), run.linesRepriced(), run.customers(), run.chunks(), run.durationMs());
+        return run;
+    }
+
+    /**
+     * Dernières exécutions, la plus récente d'abord
+     */
+    public List<Run> getRecentRuns() {
+        synchronized (recentRuns) {
+            return List.copyOf(recentRuns);
+        }
+    }
+
+    public int getPendingProducts() {
+        return pendingProductIds.size();
+    }
+
+    public long getRuns() {
+        return runs.get();
+    }
+
+    public long getLinesRepriced() {
+        return linesRepriced.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+}
@@ -1,20 +1,34 @@
 package com.malistore_backend.service;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.malistore_backend.data.entity.CartItem;
+import com.malistore_backend.data.entity.OrderItem;
 import com.malistore_backend.data.entity.Product;
 import com.malistore_backend.data.entity.User;
 import com.malistore_backend.data.repository.CartItemRepository;
+import com.malistore_backend.data.repository.OrderItemRepository;
 import com.malistore_backend.data.repository.ProductRepository;
 import com.malistore_backend.web.dto.cart.AddToCartDto;
 import com.malistore_backend.web.dto.cart.CartItemResponse;
+import com.malistore_backend.web.dto.cart.CartOperationDto;
 import com.malistore_backend.web.dto.cart.CartResponse;
+import com.malistore_backend.web.dto.cart.CartSummary;
 import com.malistore_backend.web.dto.cart.UpdateCartItemDto;
+import com.malistore_backend.web.exception.BadRequestException;
 import com.malistore_backend.web.exception.ResourceNotFoundException;
 import com.malistore_backend.web.mappers.CartMapper;
 
@@ -27,16 +41,29 @@ import lombok.extern.slf4j.Slf4j;
 @Transactional
 public class CartService {
     
+    public static final int MAX_BATCH_OPERATIONS = 100;
+    
+    private static final String INSERT_LINE_SQL =
+            "INSERT INTO cart_items (user_id, product_id, quantity, unit_price, total_price, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
     private final CartMapper cartMapper;
+    private final CartSummaryCache cartSummaryCache;
+    private final WriteBehindCartStore writeBehindCartStore;
+    private final JdbcTemplate jdbcTemplate;
     
     /**
      * Ajoute un produit au panier
      */
     public CartItemResponse addToCart(User user, AddToCartDto addToCartDto) {
         log.info("Adding product {} to cart for user {}", addToCartDto.getProductId(), user.getEmail());
-        
+        return writeBehindCartStore.locked(user.getId(), () -> addLine(user, addToCartDto));
+    }
+    
+    private CartItemResponse addLine(User user, AddToCartDto addToCartDto) {
         // Vérifier que le produit existe et est actif
         Product product = productRepository.findById(addToCartDto.getProductId())
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + addToCartDto.getProductId()));
@@ -54,8 +81,10 @@ public class CartService {
         CartItem existingCartItem = cartItemRepository.findByUserAndProduct(user, product).orElse(null);
         
         if (existingCartItem != null) {
-            // Mettre à jour la quantité existante
-            int newQuantity = existingCartItem.getQuantity() + addToCartDto.getQuantity();
+            // Mettre à jour la quantité existante (éventuellement en attente d'écriture)
+            Integer pendingQuantity = pendingQuantity(user, existingCartItem);
+            int currentQuantity = pendingQuantity != null ? pendingQuantity : existingCartItem.getQuantity();
+            int newQuantity = currentQuantity + addToCartDto.getQuantity();
             
             // Vérifier le stock total
             if (product.getStock() < newQuantity) {
@@ -63,9 +92,17 @@ public class CartService {
                     ", Requested: " + newQuantity);
             }
             
-            existingCartItem.updateQuantity(newQuantity);
+            if (writeBehindCartStore.isEnabled()) {
+                log.info("Staged cart item for product {} with quantity {}", product.getId(), newQuantity);
+                return stageQuantity(user, existingCartItem, pendingQuantity, newQuantity);
+            }
+            
+            BigDecimal previousTotal = existingCartItem.getTotalPrice();
             existingCartItem.setUnitPrice(product.getPrice());
+            existingCartItem.updateQuantity(newQuantity);
             CartItem updatedCartItem = cartItemRepository.save(existingCartItem);
+            cartSummaryCache.applyAfterCommit(user.getId(), 0, addToCartDto.getQuantity(),
+                    CartSummary.toMinorUnits(updatedCartItem.getTotalPrice()) - CartSummary.toMinorUnits(previousTotal));
             
             log.info("Updated existing cart item for product {} with quantity {}", product.getId(), newQuantity);
             return cartMapper.toResponse(updatedCartItem);
@@ -79,6 +116,8 @@ public class CartService {
                     .build();
             
             CartItem savedCartItem = cartItemRepository.save(cartItem);
+            cartSummaryCache.applyAfterCommit(user.getId(), 1, savedCartItem.getQuantity(),
+                    CartSummary.toMinorUnits(savedCartItem.getTotalPrice()));
             
             log.info("Added new product {} to cart for user {}", product.getId(), user.getEmail());
             return cartMapper.toResponse(savedCartItem);
@@ -86,31 +125,276 @@ public class CartService {
     }
     
     /**
-     * Récupère le contenu du panier d'un utilisateur
+     * Récupère le contenu du panier d'un utilisateur.
+     * Les totaux sont calculés sur les articles chargés, et le résumé du panier est mis en cache au passage.
      */
     @Transactional(readOnly = true)
     public CartResponse getCart(User user) {
         log.info("Fetching cart for user {}", user.getEmail());
         
-        List<CartItem> cartItems = cartItemRepository.findByUserWithProductDetails(user);
-        List<CartItemResponse> cartItemResponses = cartMapper.toResponseList(cartItems);
+        long loadStamp = cartSummaryCache.loadStamp();
+        Map<Long, Integer> pending = writeBehindCartStore.pendingQuantities(user.getId());
+        List<CartItemResponse> items = toResponses(cartItemRepository.findByUserWithProductDetails(user), pending);
+        CartSummary summary = summarize(items);
+        cartSummaryCache.putLoaded(user.getId(), summary, loadStamp);
+        
+        log.info("Cart retrieved for user {} with {} items", user.getEmail(), summary.getQuantity());
+        return toCartResponse(items, summary, "Cart retrieved successfully");
+    }
+    
+    /**
+     * Applique une liste d'opérations au panier en une seule transaction (tout ou rien).
+     * Les produits et les lignes existantes sont chargés en deux requêtes IN, le stock est vérifié
+     * en mémoire sur les quantités finales, puis les lignes sont écrites par lots.
+     */
+    public CartResponse applyBatch(User user, List<CartOperationDto> operations) {
+        log.info("Applying {} cart operations for user {}", operations.size(), user.getEmail());
+        return writeBehindCartStore.locked(user.getId(), () -> applyOperations(user, operations, false));
+    }
+    
+    /**
+     * Ajoute au panier les articles d'une commande passée.
+     * Les produits retirés du catalogue depuis la commande sont ignorés.
+     */
+    public CartResponse reorder(User user, Long orderId) {
+        log.info("Re-ordering order {} for user {}", orderId, user.getEmail());
+        
+        List<OrderItem> orderItems = orderItemRepository.findByOrderIdAndUser(orderId, user);
+        if (orderItems.isEmpty()) {
+            throw new ResourceNotFoundException("Order not found with ID: " + orderId);
+        }
+        
+        List<CartOperationDto> operations = orderItems.stream()
+                .map(item -> new CartOperationDto(CartOperationDto.Type.ADD, item.getProduct().getId(), item.getQuantity()))
+                .toList();
+        return writeBehindCartStore.locked(user.getId(), () -> applyOperations(user, operations, true));
+    }
+    
+    private CartResponse applyOperations(User user, List<CartOperationDto> operations, boolean skipUnavailable) {
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new BadRequestException("Too many cart operations: " + operations.size()
+                    + " (maximum " + MAX_BATCH_OPERATIONS + ")");
+        }
+        
+        // Les lignes sont lues et écrites en base : les changements différés y sont d'abord écrits
+        writeBehindCartStore.flushUser(user.getId());
+        
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (CartOperationDto operation : operations) {
+            productIds.add(operation.getProductId());
+        }
+        
+        // Deux requêtes : les produits (avec catégorie), puis les lignes existantes du panier
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findWithCategoryByIdIn(productIds)) {
+            products.put(product.getId(), product);
+        }
+        Map<Long, CartItem> lines = new HashMap<>();
+        for (CartItem line : cartItemRepository.findByUserAndProductIdIn(user, productIds)) {
+            lines.put(line.getProduct().getId(), line);
+        }
+        
+        // Quantités finales par produit, les opérations étant appliquées dans l'ordre
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartOperationDto operation : operations) {
+            Long productId = operation.getProductId();
+            Product product = products.get(productId);
+            if (skipUnavailable && (product == null || !product.getActive())) {
+                log.info("Skipping unavailable product {} for user {}", productId, user.getEmail());
+                continue;
+            }
+            CartItem line = lines.get(productId);
+            int current = quantities.getOrDefault(productId, line != null ? line.getQuantity() : 0);
+            int next = switch (operation.getType()) {
+                case ADD -> current + requireQuantity(operation, 1);
+                case SET -> requireQuantity(operation, 0);
+                case REMOVE -> 0;
+            };
+            quantities.put(productId, next);
+        }
+        
+        // Vérification du stock sur les quantités finales, avant toute écriture
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            if (entry.getValue() == 0) {
+                continue;
+            }
+            Product product = products.get(entry.getKey());
+            if (product == null || !product.getActive()) {
+                throw new ResourceNotFoundException("Product is not available: " + entry.getKey());
+            }
+            if (product.getStock() < entry.getValue()) {
+                throw new BadRequestException("Insufficient stock for product " + product.getId()
+                        + ". Available: " + product.getStock() + ", Requested: " + entry.getValue());
+            }
+        }
+        
+        List<CartItem> removed = new ArrayList<>();
+        List<CartItem> created = new ArrayList<>();
+        long itemDelta = 0;
+        long quantityDelta = 0;
+        long subtotalMinorDelta = 0;
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            int quantity = entry.getValue();
+            CartItem line = lines.get(entry.getKey());
+            int previousQuantity = line != null ? line.getQuantity() : 0;
+            long previousTotal = line != null ? CartSummary.toMinorUnits(line.getTotalPrice()) : 0;
+            
+            if (quantity == 0) {
+                if (line != null) {
+                    removed.add(line);
+                    itemDelta--;
+                    quantityDelta -= previousQuantity;
+                    subtotalMinorDelta -= previousTotal;
+                }
+                continue;
+            }
+            
+            Product product = products.get(entry.getKey());
+            if (line == null) {
+                line = CartItem.builder()
+                        .user(user)
+                        .product(product)
+                        .quantity(quantity)
+                        .unitPrice(product.getPrice())
+                        .build();
+                line.calculateTotalPrice();
+                created.add(line);
+                itemDelta++;
+            } else {
+                // Ligne gérée par Hibernate : la mise à jour part dans un lot JDBC au flush
+                line.setUnitPrice(product.getPrice());
+                line.updateQuantity(quantity);
+            }
+            quantityDelta += quantity - previousQuantity;
+            subtotalMinorDelta += CartSummary.toMinorUnits(line.getTotalPrice()) - previousTotal;
+        }
+        
+        if (!removed.isEmpty()) {
+            cartItemRepository.deleteAllInBatch(removed);
+        }
+        insertLines(created);
+        cartSummaryCache.applyAfterCommit(user.getId(), itemDelta, quantityDelta, subtotalMinorDelta);
         
-        // Calculer les totaux
-        BigDecimal subtotal = cartItemRepository.calculateCartTotal(user);
-        Integer totalItems = cartItems.stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
+        log.info("Cart batch applied for user {}: {} lines created, {} removed",
+                user.getEmail(), created.size(), removed.size());
         
-        CartResponse cartResponse = CartResponse.builder()
-                .items(cartItemResponses)
-                .totalItems(totalItems)
+        List<CartItemResponse> items = cartMapper.toResponseList(cartItemRepository.findByUserWithProductDetails(user));
+        return toCartResponse(items, summarize(items), "Cart updated successfully");
+    }
+    
+    private static int requireQuantity(CartOperationDto operation, int min) {
+        if (operation.getQuantity() == null || operation.getQuantity() < min) {
+            throw new BadRequestException("Quantity must be at least " + min + " for " + operation.getType()
+                    + " on product " + operation.getProductId());
+        }
+        return operation.getQuantity();
+    }
+    
+    /**
+     * Insère les nouvelles lignes en un lot JDBC : avec des IDs IDENTITY, Hibernate ne regroupe pas les insertions
+     */
+    private void insertLines(List<CartItem> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_LINE_SQL, lines, lines.size(), (ps, line) -> {
+            ps.setLong(1, line.getUser().getId());
+            ps.setLong(2, line.getProduct().getId());
+            ps.setInt(3, line.getQuantity());
+            ps.setBigDecimal(4, line.getUnitPrice());
+            ps.setBigDecimal(5, line.getTotalPrice());
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+        });
+    }
+    
+    private static CartSummary summarize(List<CartItemResponse> items) {
+        long quantity = 0;
+        long subtotalMinor = 0;
+        for (CartItemResponse item : items) {
+            quantity += item.getQuantity();
+            subtotalMinor += CartSummary.toMinorUnits(item.getTotalPrice());
+        }
+        return new CartSummary(items.size(), quantity, subtotalMinor);
+    }
+    
+    private CartResponse toCartResponse(List<CartItemResponse> items, CartSummary summary, String message) {
+        BigDecimal subtotal = summary.getSubtotal();
+        return CartResponse.builder()
+                .items(items)
+                .totalItems((int) summary.getQuantity())
                 .subtotal(subtotal)
                 .total(subtotal) // Pour l'instant, pas de taxes ou réductions
-                .message("Cart retrieved successfully")
+                .message(message)
                 .build();
+    }
+    
+    /**
+     * Lignes du panier telles que vues par le client : les quantités en attente d'écriture
+     * remplacent celles de la base, et les lignes supprimées en attente sont omises
+     */
+    private List<CartItemResponse> toResponses(List<CartItem> cartItems, Map<Long, Integer> pending) {
+        if (pending.isEmpty()) {
+            return cartMapper.toResponseList(cartItems);
+        }
+        List<CartItemResponse> items = new ArrayList<>(cartItems.size());
+        for (CartItem cartItem : cartItems) {
+            Integer quantity = pending.get(cartItem.getId());
+            if (quantity == null) {
+                items.add(cartMapper.toResponse(cartItem));
+            } else if (quantity > 0) {
+                items.add(toPendingResponse(cartItem, quantity));
+            }
+        }
+        return items;
+    }
+    
+    /**
+     * Ligne avec une quantité en attente d'écriture, au prix courant du produit
+     * (prix que prendra la ligne lors de son écriture en base)
+     */
+    private CartItemResponse toPendingResponse(CartItem cartItem, int quantity) {
+        BigDecimal unitPrice = cartItem.getProduct().getPrice();
+        CartItemResponse response = cartMapper.toResponse(cartItem);
+        response.setQuantity(quantity);
+        response.setUnitPrice(unitPrice);
+        response.setTotalPrice(unitPrice.multiply(BigDecimal.valueOf(quantity)));
+        return response;
+    }
+    
+    /**
+     * Quantité en attente d'écriture pour une ligne, null si aucune (ou en mode base)
+     */
+    private Integer pendingQuantity(User user, CartItem cartItem) {
+        return writeBehindCartStore.pendingQuantities(user.getId()).get(cartItem.getId());
+    }
+    
+    /**
+     * Écriture différée : enregistre la nouvelle quantité d'une ligne existante (0 pour la supprimer)
+     * et met le résumé du panier à jour immédiatement, le changement étant déjà visible
+     */
+    private CartItemResponse stageQuantity(User user, CartItem cartItem, Integer pendingQuantity, int quantity) {
+        BigDecimal unitPrice = cartItem.getProduct().getPrice();
+        int previousQuantity = pendingQuantity != null ? pendingQuantity : cartItem.getQuantity();
+        long previousTotal = pendingQuantity != null
+                ? CartSummary.toMinorUnits(unitPrice.multiply(BigDecimal.valueOf(pendingQuantity)))
+                : CartSummary.toMinorUnits(cartItem.getTotalPrice());
         
-        log.info("Cart retrieved for user {} with {} items", user.getEmail(), totalItems);
-        return cartResponse;
+        writeBehindCartStore.stage(user.getId(), cartItem.getId(), quantity);
+        cartSummaryCache.apply(user.getId(), (quantity > 0 ? 1 : 0) - (previousQuantity > 0 ? 1 : 0),
+                quantity - previousQuantity,
+                CartSummary.toMinorUnits(unitPrice.multiply(BigDecimal.valueOf(quantity))) - previousTotal);
+        return toPendingResponse(cartItem, quantity);
+    }
+    
+    /**
+     * Trouve une ligne du panier de l'utilisateur, hors lignes dont la suppression est en attente d'écriture
+     */
+    private CartItem findCartItem(User user, Long cartItemId) {
+        return cartItemRepository.findByIdAndUser(cartItemId, user)
+                .filter(cartItem -> !Integer.valueOf(0).equals(pendingQuantity(user, cartItem)))
+                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found with ID: " + cartItemId));
     }
     
     /**
@@ -118,17 +402,28 @@ public class CartService {
      */
     public CartItemResponse updateCartItem(User user, Long cartItemId, UpdateCartItemDto updateCartItemDto) {
         log.info("Updating cart item {} for user {}", cartItemId, user.getEmail());
-        
-        CartItem cartItem = cartItemRepository.findByIdAndUser(cartItemId, user)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found with ID: " + cartItemId));
+        return writeBehindCartStore.locked(user.getId(), () -> updateLine(user, cartItemId, updateCartItemDto));
+    }
+    
+    private CartItemResponse updateLine(User user, Long cartItemId, UpdateCartItemDto updateCartItemDto) {
+        CartItem cartItem = findCartItem(user, cartItemId);
         
         // Vérifier le stock disponible
         if (cartItem.getProduct().getStock() < updateCartItemDto.getQuantity()) {
             throw new IllegalArgumentException("Insufficient stock. Available: " + cartItem.getProduct().getStock());
         }
         
+        if (writeBehindCartStore.isEnabled()) {
+            log.info("Staged cart item {} with quantity {}", cartItemId, updateCartItemDto.getQuantity());
+            return stageQuantity(user, cartItem, pendingQuantity(user, cartItem), updateCartItemDto.getQuantity());
+        }
+        
+        int previousQuantity = cartItem.getQuantity();
+        BigDecimal previousTotal = cartItem.getTotalPrice();
         cartItem.updateQuantity(updateCartItemDto.getQuantity());
         CartItem updatedCartItem = cartItemRepository.save(cartItem);
+        cartSummaryCache.applyAfterCommit(user.getId(), 0, updatedCartItem.getQuantity() - previousQuantity,
+                CartSummary.toMinorUnits(updatedCartItem.getTotalPrice()) - CartSummary.toMinorUnits(previousTotal));
         
         log.info("Updated cart item {} with quantity {}", cartItemId, updateCartItemDto.getQuantity());
         return cartMapper.toResponse(updatedCartItem);
@@ -140,10 +435,18 @@ public class CartService {
     public void removeFromCart(User user, Long cartItemId) {
         log.info("Removing cart item {} for user {}", cartItemId, user.getEmail());
         
-        CartItem cartItem = cartItemRepository.findByIdAndUser(cartItemId, user)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found with ID: " + cartItemId));
-        
-        cartItemRepository.delete(cartItem);
+        writeBehindCartStore.locked(user.getId(), () -> {
+            CartItem cartItem = findCartItem(user, cartItemId);
+            
+            if (writeBehindCartStore.isEnabled()) {
+                stageQuantity(user, cartItem, pendingQuantity(user, cartItem), 0);
+            } else {
+                cartItemRepository.delete(cartItem);
+                cartSummaryCache.applyAfterCommit(user.getId(), -1, -cartItem.getQuantity(),
+                        -CartSummary.toMinorUnits(cartItem.getTotalPrice()));
+            }
+            return null;
+        });
         
         log.info("Removed cart item {} from cart for user {}", cartItemId, user.getEmail());
     }
@@ -154,7 +457,12 @@ public class CartService {
     public void clearCart(User user) {
         log.info("Clearing cart for user {}", user.getEmail());
         
-        cartItemRepository.deleteByUser(user);
+        writeBehindCartStore.locked(user.getId(), () -> {
+            cartItemRepository.deleteByUser(user);
+            writeBehindCartStore.discard(user.getId());
+            return null;
+        });
+        cartSummaryCache.clearAfterCommit(user.getId());
         
         log.info("Cart cleared for user {}", user.getEmail());
     }
@@ -164,8 +472,7 @@ public class CartService {
      */
     @Transactional(readOnly = true)
     public Integer getCartItemCount(User user) {
-        Long count = cartItemRepository.countByUser(user);
-        return count != null ? count.intValue() : 0;
+        return (int) getCartSummary(user).getItemCount();
     }
     
     /**
@@ -173,8 +480,33 @@ public class CartService {
      */
     @Transactional(readOnly = true)
     public BigDecimal getCartTotal(User user) {
-        BigDecimal total = cartItemRepository.calculateCartTotal(user);
-        return total != null ? total : BigDecimal.ZERO;
+        return getCartSummary(user).getSubtotal();
+    }
+    
+    /**
+     * Récupère le résumé du panier : depuis le cache, sinon en une seule requête d'agrégat
+     * (plus une pour les lignes dont un changement est en attente d'écriture)
+     */
+    @Transactional(readOnly = true)
+    public CartSummary getCartSummary(User user) {
+        CartSummary cached = cartSummaryCache.get(user.getId());
+        if (cached != null) {
+            return cached;
+        }
+        
+        long loadStamp = cartSummaryCache.loadStamp();
+        Map<Long, Integer> pending = writeBehindCartStore.pendingQuantities(user.getId());
+        CartSummary summary = cartItemRepository.summarizeByUser(user);
+        if (!pending.isEmpty()) {
+            for (CartItem cartItem : cartItemRepository.findByUserAndIdIn(user, pending.keySet())) {
+                int quantity = pending.get(cartItem.getId());
+                BigDecimal total = cartItem.getProduct().getPrice().multiply(BigDecimal.valueOf(quantity));
+                summary = summary.plus(quantity > 0 ? 0 : -1, quantity - cartItem.getQuantity(),
+                        CartSummary.toMinorUnits(total) - CartSummary.toMinorUnits(cartItem.getTotalPrice()));
+            }
+        }
+        cartSummaryCache.putLoaded(user.getId(), summary, loadStamp);
+        return summary;
     }
     
     /**
@@ -185,6 +517,9 @@ public class CartService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + productId));
         
+        if (writeBehindCartStore.isEnabled()) {
+            return getProductQuantityInCart(user, productId) > 0;
+        }
         return cartItemRepository.existsByUserAndProduct(user, product);
     }
     
@@ -196,8 +531,9 @@ public class CartService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + productId));
         
+        Map<Long, Integer> pending = writeBehindCartStore.pendingQuantities(user.getId());
         return cartItemRepository.findByUserAndProduct(user, product)
-                .map(CartItem::getQuantity)
+                .map(cartItem -> pending.getOrDefault(cartItem.getId(), cartItem.getQuantity()))
                 .orElse(0);
     }
 }
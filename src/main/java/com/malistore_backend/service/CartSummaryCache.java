@@ -0,0 +1,201 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.web.dto.cart.CartSummary;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache local des résumés de panier (nombre d'articles, quantité, sous-total), par utilisateur.
+ *
+ * - les écritures du panier appliquent leur delta après le commit, sans relire le panier
+ * - une écriture sur un panier absent du cache laisse une marque datée : un chargement commencé
+ *   avant cette écriture ne peut pas remettre en cache un résumé déjà périmé
+ * - les autres instances reçoivent une invalidation par utilisateur ({@link CacheInvalidationBus}),
+ *   envoyée au commit : leur prochain résumé est relu en base
+ * - taille et durée de vie bornées (app.cache.cart-summary.*) ; la durée de vie borne aussi
+ *   la dérive d'un delta perdu, le résumé étant alors recalculé en une requête
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CartSummaryCache {
+
+    public static final String CACHE_NAME = "cart-summary";
+
+    /** summary == null : panier modifié récemment, pas encore rechargé */
+    private record Entry(CartSummary summary, long stamp) {
+    }
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Value("${app.cache.cart-summary.max-entries:50000}")
+    private int maxEntries;
+
+    @Value("${app.cache.cart-summary.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    // Dernier vidage complet : les chargements commencés avant ne sont pas mis en cache
+    private volatile long clearedAt;
+
+    @PostConstruct
+    public void init() {
+        cacheInvalidationBus.register(CACHE_NAME, key -> markModified(Long.valueOf(key), System.nanoTime()),
+                this::clear);
+    }
+
+    public CartSummary get(Long userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null || entry.summary() == null || isExpired(entry)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.summary();
+    }
+
+    /**
+     * Horodatage à prendre avant de lire le panier en base, puis à passer à {@link #putLoaded}
+     */
+    public long loadStamp() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Met en cache un résumé lu en base, sauf si une écriture a eu lieu depuis le début du chargement
+     * ou si un résumé tenu à jour est déjà présent
+     */
+    public void putLoaded(Long userId, CartSummary summary, long loadStamp) {
+        if (loadStamp < clearedAt) {
+            return;
+        }
+        entries.compute(userId, (id, current) -> {
+            if (current == null || isExpired(current)
+                    || (current.summary() == null && current.stamp() < loadStamp)) {
+                return new Entry(summary, loadStamp);
+            }
+            return current;
+        });
+        if (entries.size() > maxEntries) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Applique une variation du panier après le commit de la transaction courante
+     */
+    public void applyAfterCommit(Long userId, long itemDelta, long quantityDelta, long subtotalMinorDelta) {
+        afterCommit(() -> apply(userId, itemDelta, quantityDelta, subtotalMinorDelta));
+        cacheInvalidationBus.publish(CACHE_NAME, userId.toString());
+    }
+
+    /**
+     * Applique une variation du panier immédiatement, pour un changement visible dès son enregistrement
+     * (écriture différée du panier, servie par l'instance qui tient le panier : rien n'est publié)
+     */
+    public void apply(Long userId, long itemDelta, long quantityDelta, long subtotalMinorDelta) {
+        entries.compute(userId, (id, current) -> {
+            if (current == null || current.summary() == null || isExpired(current)) {
+                return new Entry(null, System.nanoTime());
+            }
+            return new Entry(current.summary().plus(itemDelta, quantityDelta, subtotalMinorDelta), current.stamp());
+        });
+    }
+
+    /**
+     * Marque le panier comme vide après le commit (panier vidé ou converti en commande)
+     */
+    public void clearAfterCommit(Long userId) {
+        afterCommit(() -> entries.put(userId, new Entry(CartSummary.EMPTY, System.nanoTime())));
+        cacheInvalidationBus.publish(CACHE_NAME, userId.toString());
+    }
+
+    /**
+     * Invalide les résumés après le commit, pour des paniers modifiés hors de CartService
+     * (prix mis à jour, lignes purgées), ici et sur les autres instances.
+     * Un chargement commencé avant ne peut pas les remettre en cache.
+     */
+    public void invalidateAfterCommit(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            long stamp = System.nanoTime();
+            userIds.forEach(userId -> markModified(userId, stamp));
+        });
+        userIds.forEach(userId -> cacheInvalidationBus.publish(CACHE_NAME, userId.toString()));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Panier modifié ailleurs : le résumé sera relu, un chargement commencé avant n'est pas mis en cache
+     */
+    private void markModified(Long userId, long stamp) {
+        entries.put(userId, new Entry(null, stamp));
+    }
+
+    private void clear() {
+        clearedAt = System.nanoTime();
+        entries.clear();
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.nanoTime() - entry.stamp() > ttlSeconds * 1_000_000_000L;
+    }
+
+    /**
+     * Évince un dixième des entrées, les plus anciennes d'abord
+     */
+    private synchronized void evictOldest() {
+        int excess = entries.size() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        int toEvict = Math.max(excess, maxEntries / 10);
+        entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().stamp()))
+                .limit(toEvict)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(entries::remove);
+        log.debug("Cart summary cache evicted {} entries", toEvict);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
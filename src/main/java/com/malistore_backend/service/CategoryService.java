@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.malistore_backend.data.entity.Category;
@@ -26,6 +27,8 @@ public class CategoryService {
     
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final ProductCache productCache;
+    private final CategorySnapshot categorySnapshot;
     
     /**
      * Crée une nouvelle catégorie
@@ -40,6 +43,7 @@ public class CategoryService {
         
         Category category = categoryMapper.toEntity(categoryCreateDto);
         Category savedCategory = categoryRepository.save(category);
+        categorySnapshot.invalidate();
         
         log.info("Category created successfully with ID: {}", savedCategory.getId());
         return buildCategoryResponse(savedCategory);
@@ -53,20 +57,17 @@ public class CategoryService {
         log.info("Fetching all categories");
         return categoryRepository.findAllByOrderBySortOrderAsc()
                 .stream()
-                .map(this::buildCategoryResponse)
+                .map(this::buildCachedCategoryResponse)
                 .collect(Collectors.toList());
     }
     
     /**
-     * Récupère toutes les catégories actives
+     * Récupère toutes les catégories actives, depuis l'instantané en mémoire
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<CategoryResponse> getActiveCategories() {
-        log.info("Fetching active categories");
-        return categoryRepository.findByActiveTrueOrderBySortOrderAsc()
-                .stream()
-                .map(this::buildCategoryResponse)
-                .collect(Collectors.toList());
+        log.debug("Fetching active categories");
+        return categorySnapshot.getActiveCategories();
     }
     
     /**
@@ -78,7 +79,7 @@ public class CategoryService {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with ID: " + id));
         
-        return buildCategoryResponse(category);
+        return buildCachedCategoryResponse(category);
     }
     
     /**
@@ -99,6 +100,9 @@ public class CategoryService {
         
         categoryMapper.updateEntity(categoryUpdateDto, category);
         Category updatedCategory = categoryRepository.save(category);
+        // La catégorie est incluse dans les fiches produit en cache
+        productCache.invalidateAll();
+        categorySnapshot.invalidate();
         
         log.info("Category updated successfully with ID: {}", updatedCategory.getId());
         return buildCategoryResponse(updatedCategory);
@@ -120,6 +124,7 @@ public class CategoryService {
         }
         
         categoryRepository.delete(category);
+        categorySnapshot.invalidate();
         log.info("Category deleted successfully with ID: {}", id);
     }
     
@@ -131,7 +136,7 @@ public class CategoryService {
         log.info("Searching categories with term: {}", searchTerm);
         return categoryRepository.findByNameContainingIgnoreCase(searchTerm)
                 .stream()
-                .map(this::buildCategoryResponse)
+                .map(this::buildCachedCategoryResponse)
                 .collect(Collectors.toList());
     }
     
@@ -146,6 +151,8 @@ public class CategoryService {
         
         category.setActive(!category.getActive());
         Category updatedCategory = categoryRepository.save(category);
+        productCache.invalidateAll();
+        categorySnapshot.invalidate();
         
         log.info("Category status toggled successfully. New status: {}", updatedCategory.getActive());
         return buildCategoryResponse(updatedCategory);
@@ -160,4 +167,14 @@ public class CategoryService {
         response.setProductCount(productCount);
         return response;
     }
+    
+    /**
+     * Construit une CategoryResponse avec le nombre de produits de l'instantané
+     * (aucune requête de comptage par catégorie)
+     */
+    private CategoryResponse buildCachedCategoryResponse(Category category) {
+        CategoryResponse response = categoryMapper.toResponse(category);
+        response.setProductCount(categorySnapshot.getProductCount(category.getId()));
+        return response;
+    }
 }
@@ -0,0 +1,153 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.config.PrimaryReads;
+import com.malistore_backend.data.entity.Category;
+import com.malistore_backend.data.repository.CategoryRepository;
+import com.malistore_backend.web.dto.category.CategoryResponse;
+import com.malistore_backend.web.mappers.CategoryMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Instantané immuable du menu des catégories : catégories actives triées, avec le nombre
+ * de produits de chaque catégorie (calculé en un seul GROUP BY).
+ *
+ * Les modifications qui changent l'appartenance des produits ou les catégories appellent
+ * {@link #invalidate()} ; l'instantané est reconstruit à la lecture suivante, une fois la
+ * transaction validée. Les invalidations des autres instances arrivent par
+ * {@link CacheInvalidationBus} ; une reconstruction périodique reste un filet de sécurité.
+ * Une seule reconstruction a lieu par version ({@link SingleFlight}) ; avec
+ * app.cache.category.stale-while-revalidate, l'instantané précédent est servi pendant la reconstruction.
+ *
+ * Les réponses de l'instantané sont partagées : elles ne doivent pas être modifiées.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategorySnapshot {
+
+    public static final String CACHE_NAME = "category";
+
+    private record Snapshot(long version, List<CategoryResponse> activeCategories, Map<Long, Long> productCounts) {
+    }
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryMapper categoryMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final SingleFlightRegistry singleFlightRegistry;
+
+    @Value("${app.cache.category.stale-while-revalidate:false}")
+    private boolean staleWhileRevalidate;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private TransactionTemplate rebuildTransaction;
+    private SingleFlight<Long, Snapshot> rebuilds;
+
+    @PostConstruct
+    public void init() {
+        // Reconstruction après invalidation : lue sur le primaire, jamais sur un réplica en retard
+        rebuildTransaction = PrimaryReads.readOnlyTransaction(transactionManager, CACHE_NAME);
+        // Ne jamais lire dans la transaction de l'appelant (éventuellement déjà validée)
+        rebuildTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        rebuilds = singleFlightRegistry.create(CACHE_NAME);
+        cacheInvalidationBus.register(CACHE_NAME, key -> version.incrementAndGet(), version::incrementAndGet);
+    }
+
+    /**
+     * @return les catégories actives triées par ordre d'affichage, avec leur nombre de produits
+     */
+    public List<CategoryResponse> getActiveCategories() {
+        return current().activeCategories();
+    }
+
+    /**
+     * @return le nombre de produits de la catégorie (0 si elle n'en a pas)
+     */
+    public long getProductCount(Long categoryId) {
+        return current().productCounts().getOrDefault(categoryId, 0L);
+    }
+
+    /**
+     * Marque l'instantané comme périmé. Dans une transaction, l'invalidation
+     * n'a lieu qu'après le commit, pour ne pas reconstruire avec l'état d'avant.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+        cacheInvalidationBus.publish(CACHE_NAME, CacheInvalidationBus.ALL);
+    }
+
+    /**
+     * Filet de sécurité pour les modifications faites sur d'autres instances
+     */
+    @Scheduled(fixedDelayString = "${app.cache.category.refresh-interval-ms:60000}")
+    public void refresh() {
+        version.incrementAndGet();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        long target = version.get();
+        if (current != null && current.version() == target) {
+            return current;
+        }
+        if (current != null && staleWhileRevalidate) {
+            return rebuilds.refreshInBackground(target, current, () -> rebuild(target), this::install);
+        }
+        return rebuilds.load(target, () -> rebuild(target), this::install);
+    }
+
+    private Snapshot rebuild(long target) {
+        return rebuildTransaction.execute(status -> {
+            Map<Long, Long> counts = new HashMap<>();
+            for (Object[] row : categoryRepository.countProductsGroupedByCategory()) {
+                counts.put((Long) row[0], (Long) row[1]);
+            }
+
+            List<Category> categories = categoryRepository.findByActiveTrueOrderBySortOrderAsc();
+            List<CategoryResponse> active = categories.stream()
+                    .map(category -> {
+                        CategoryResponse response = categoryMapper.toResponse(category);
+                        response.setProductCount(counts.getOrDefault(category.getId(), 0L));
+                        return response;
+                    })
+                    .toList();
+            return new Snapshot(target, active, Map.copyOf(counts));
+        });
+    }
+
+    /**
+     * Installe l'instantané reconstruit, sauf si un plus récent l'a devancé
+     */
+    private synchronized void install(Snapshot rebuilt) {
+        Snapshot current = snapshot;
+        if (current == null || current.version() < rebuilt.version()) {
+            snapshot = rebuilt;
+            log.debug("Category snapshot rebuilt: {} active categories", rebuilt.activeCategories().size());
+        }
+    }
+}
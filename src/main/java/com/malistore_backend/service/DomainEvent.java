@@ -0,0 +1,13 @@
+package com.malistore_backend.service;
+
+/**
+ * Événement métier publié dans la boîte d'envoi par {@link OutboxPublisher}.
+ * Les événements d'un même agrégat (type et ID) sont distribués dans l'ordre de publication.
+ * Sérialisé en JSON : les implémentations sont des records de valeurs simples.
+ */
+public interface DomainEvent {
+
+    String aggregateType();
+
+    Long aggregateId();
+}
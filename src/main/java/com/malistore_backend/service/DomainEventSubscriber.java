@@ -0,0 +1,15 @@
+package com.malistore_backend.service;
+
+/**
+ * Abonné aux événements d'un type donné, appelé par {@link OutboxDispatcher}.
+ *
+ * L'abonné est appelé dans la transaction qui marque l'événement comme traité : ses écritures
+ * en base sont validées une seule fois. La distribution est "au moins une fois" : un effet
+ * hors base (email, appel distant) peut être rejoué après un échec et doit être idempotent.
+ */
+public interface DomainEventSubscriber<E extends DomainEvent> {
+
+    Class<E> eventType();
+
+    void handle(E event);
+}
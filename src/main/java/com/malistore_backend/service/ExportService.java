@@ -0,0 +1,267 @@
+package com.malistore_backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exports back-office (commandes, produits, paiements) en flux.
+ *
+ * Les lignes sont lues par un curseur JDBC (fetch size) dans une transaction en lecture seule
+ * et écrites au fil de l'eau : la mémoire utilisée ne dépend pas du nombre de lignes.
+ * Les lignes sont triées par ID croissant ; un export interrompu reprend avec afterId
+ * égal au dernier ID reçu.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+
+    private static final String ORDERS_SQL =
+            "SELECT o.id, o.order_number, o.status, o.total_amount, u.id AS user_id, u.email AS customer_email, " +
+            "o.shipping_address, o.created_at, o.updated_at " +
+            "FROM orders o JOIN users u ON u.id = o.user_id";
+
+    private static final String PRODUCTS_SQL =
+            "SELECT p.id, p.name, p.price, p.stock, p.active, p.category_id, c.name AS category_name, " +
+            "p.created_at, p.updated_at " +
+            "FROM products p LEFT JOIN categories c ON c.id = p.category_id";
+
+    private static final String PAYMENTS_SQL =
+            "SELECT p.id, p.order_id, o.order_number, p.status, p.amount, p.currency, p.payment_method, " +
+            "p.transaction_id, p.stripe_session_id, p.stripe_payment_intent_id, p.failure_reason, " +
+            "p.created_at, p.updated_at " +
+            "FROM payments p JOIN orders o ON o.id = p.order_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private TransactionTemplate readOnlyTransaction;
+    private JdbcTemplate cursorJdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        cursorJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        cursorJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Filtres d'export : période sur created_at [from, to[, reprise après un ID, nombre maximum de lignes
+     */
+    public record ExportFilter(LocalDateTime from, LocalDateTime to, Long afterId, Integer limit) {
+    }
+
+    public long exportOrders(ExportFilter filter, ExportFormat format, OutputStream out) {
+        return export("orders", ORDERS_SQL, "o", filter, format, out);
+    }
+
+    public long exportProducts(ExportFilter filter, ExportFormat format, OutputStream out) {
+        return export("products", PRODUCTS_SQL, "p", filter, format, out);
+    }
+
+    public long exportPayments(ExportFilter filter, ExportFormat format, OutputStream out) {
+        return export("payments", PAYMENTS_SQL, "p", filter, format, out);
+    }
+
+    private long export(String name, String baseSql, String alias, ExportFilter filter, ExportFormat format,
+                        OutputStream out) {
+        StringBuilder sql = new StringBuilder(baseSql).append(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (filter.afterId() != null) {
+            sql.append(" AND ").append(alias).append(".id > ?");
+            params.add(filter.afterId());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND ").append(alias).append(".created_at >= ?");
+            params.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND ").append(alias).append(".created_at < ?");
+            params.add(Timestamp.valueOf(filter.to()));
+        }
+        sql.append(" ORDER BY ").append(alias).append(".id ASC");
+        if (filter.limit() != null) {
+            sql.append(" LIMIT ?");
+            params.add(filter.limit());
+        }
+
+        long start = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowWriter rowWriter = format == ExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+
+        // Le curseur côté serveur de PostgreSQL n'est utilisé qu'en dehors de l'autocommit
+        Long rows = readOnlyTransaction.execute(status -> cursorJdbcTemplate.query(sql.toString(), (ResultSetExtractor<Long>) rs -> {
+            long count = 0;
+            try {
+                rowWriter.writeHeader(rs.getMetaData());
+                while (rs.next()) {
+                    rowWriter.writeRow(rs);
+                    count++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        }, params.toArray()));
+
+        try {
+            rowWriter.finish();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Exported {} {} rows as {} in {} ms", rows, name, format,
+                (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    private interface RowWriter {
+        void writeHeader(ResultSetMetaData metaData) throws SQLException, IOException;
+
+        void writeRow(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * Un objet JSON par ligne
+     */
+    private final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+        private String[] columns;
+
+        NdjsonRowWriter(Writer writer) {
+            try {
+                this.generator = objectMapper.getFactory().createGenerator(writer)
+                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void writeHeader(ResultSetMetaData metaData) throws SQLException {
+            columns = new String[metaData.getColumnCount()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = metaData.getColumnLabel(i + 1);
+            }
+        }
+
+        @Override
+        public void writeRow(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                generator.writeFieldName(columns[i]);
+                Object value = rs.getObject(i + 1);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumber(decimal);
+                } else if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+                    generator.writeNumber(((Number) value).longValue());
+                } else if (value instanceof Boolean bool) {
+                    generator.writeBoolean(bool);
+                } else if (value instanceof Timestamp timestamp) {
+                    generator.writeString(timestamp.toLocalDateTime().toString());
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /**
+     * CSV (RFC 4180) avec ligne d'en-tête
+     */
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+        private int columnCount;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void writeHeader(ResultSetMetaData metaData) throws SQLException, IOException {
+            columnCount = metaData.getColumnCount();
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                writeField(metaData.getColumnLabel(i));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void writeRow(ResultSet rs) throws SQLException, IOException {
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                Object value = rs.getObject(i);
+                if (value instanceof Timestamp timestamp) {
+                    writeField(timestamp.toLocalDateTime().toString());
+                } else if (value instanceof BigDecimal decimal) {
+                    writer.write(decimal.toPlainString());
+                } else if (value != null) {
+                    writeField(value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.malistore_backend.service;
 
 import com.malistore_backend.data.entity.Order;
 import com.malistore_backend.data.entity.OrderItem;
-import com.malistore_backend.data.entity.OrderStatus;
 import com.malistore_backend.data.entity.Product;
 import com.malistore_backend.data.repository.OrderRepository;
 import com.malistore_backend.data.repository.ProductRepository;
@@ -23,21 +22,25 @@ public class InventoryService {
 
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
+    private final ProductCache productCache;
 
     /**
-     * Decrement stock for all products in an order after successful payment
+     * Decrement stock for all products in an order after successful payment.
+     * Runs once per order, even if the order was shipped or delivered in the meantime.
      * @param orderId The order ID
-     * @return true if stock was successfully decremented, false if insufficient stock
+     * @return true if stock was decremented, false if it already was or the order is unpaid or cancelled
+     * @throws BadRequestException if stock is insufficient (nothing is decremented)
      */
     @Transactional
     public boolean decrementStockAfterPayment(Long orderId) {
         log.info("Starting stock decrement for order: {}", orderId);
         
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId));
 
-        if (order.getStatus() != OrderStatus.PAID) {
-            log.warn("Order {} is not in PAID status, cannot decrement stock. Current status: {}", 
+        // Réservé dans la transaction du décrément : annulé avec lui en cas de stock insuffisant
+        if (orderRepository.markStockDecremented(orderId) == 0) {
+            log.warn("Stock not decremented for order {}: already decremented or order not paid. Current status: {}", 
                     orderId, order.getStatus());
             return false;
         }
@@ -60,6 +63,7 @@ public class InventoryService {
             product.setStock(newStock);
             product.setUpdatedAt(LocalDateTime.now());
             productRepository.save(product);
+            productCache.invalidate(product.getId());
             
             log.info("Stock decremented for product {} (ID: {}). New stock: {}", 
                     product.getName(), product.getId(), newStock);
@@ -76,7 +80,7 @@ public class InventoryService {
      */
     @Transactional(readOnly = true)
     public boolean checkStockAvailability(Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId));
 
         for (OrderItem item : order.getOrderItems()) {
@@ -123,6 +127,7 @@ public class InventoryService {
         product.setStock(newStock);
         product.setUpdatedAt(LocalDateTime.now());
         Product updatedProduct = productRepository.save(product);
+        productCache.invalidate(productId);
 
         log.info("Stock updated for product {} (ID: {}). Old stock: {}, New stock: {}", 
                 product.getName(), productId, oldStock, newStock);
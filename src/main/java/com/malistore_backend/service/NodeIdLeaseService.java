@@ -0,0 +1,113 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.data.repository.NodeLeaseRepository;
+import com.malistore_backend.web.exception.ServiceUnavailableException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Identifiant de nœud de l'instance, réservé en base par un bail renouvelé périodiquement.
+ *
+ * L'identifiant n'est utilisable que tant que le bail est valide côté instance : l'échéance
+ * locale est mesurée depuis l'envoi de la requête de réservation (ou de renouvellement),
+ * moins une marge, de sorte qu'elle précède toujours l'échéance vue par la base.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NodeIdLeaseService {
+
+    private static final int ACQUIRE_ATTEMPTS = 5;
+
+    private final NodeLeaseRepository nodeLeaseRepository;
+
+    @Value("${app.node-lease.ttl-seconds:60}")
+    private int ttlSeconds;
+
+    @Value("${app.node-lease.safety-margin-ms:5000}")
+    private long safetyMarginMs;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private volatile int nodeId = -1;
+    private volatile long validUntilNanos;
+
+    @PostConstruct
+    public void init() {
+        acquire();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int current = nodeId;
+        if (current >= 0) {
+            nodeLeaseRepository.release(current, instanceId);
+            log.info("Node id {} released", current);
+        }
+    }
+
+    /**
+     * Identifiant unique de cette instance de l'application
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Identifiant de nœud courant
+     * @throws ServiceUnavailableException si le bail n'a pas pu être renouvelé à temps
+     */
+    public int currentNodeId() {
+        int current = nodeId;
+        if (current < 0 || System.nanoTime() - validUntilNanos > 0) {
+            throw new ServiceUnavailableException("Node id lease expired, please retry");
+        }
+        return current;
+    }
+
+    /**
+     * Renouvelle le bail ; en réserve un nouveau s'il a été perdu
+     */
+    @Scheduled(fixedDelayString = "${app.node-lease.renew-interval-ms:20000}")
+    public void renew() {
+        long requestedAt = System.nanoTime();
+        try {
+            if (nodeId >= 0 && nodeLeaseRepository.renew(nodeId, instanceId, ttlSeconds) == 1) {
+                validUntilNanos = deadlineFrom(requestedAt);
+                return;
+            }
+            log.error("Node id {} lease lost, acquiring a new one", nodeId);
+            nodeId = -1;
+            acquire();
+        } catch (RuntimeException e) {
+            log.error("Error renewing node id {} lease: {}", nodeId, e.getMessage(), e);
+        }
+    }
+
+    private void acquire() {
+        for (int attempt = 1; attempt <= ACQUIRE_ATTEMPTS; attempt++) {
+            long requestedAt = System.nanoTime();
+            Optional<Integer> acquired = nodeLeaseRepository.acquire(instanceId, OrderNumberGenerator.MAX_NODE_ID, ttlSeconds);
+            if (acquired.isPresent()) {
+                validUntilNanos = deadlineFrom(requestedAt);
+                nodeId = acquired.get();
+                log.info("Node id {} leased for {} s (instance {})", nodeId, ttlSeconds, instanceId);
+                return;
+            }
+            log.warn("Node id lease attempt {} failed, retrying", attempt);
+        }
+        throw new IllegalStateException("No node id available after " + ACQUIRE_ATTEMPTS + " attempts");
+    }
+
+    private long deadlineFrom(long requestedAt) {
+        return requestedAt + TimeUnit.SECONDS.toNanos(ttlSeconds) - TimeUnit.MILLISECONDS.toNanos(safetyMarginMs);
+    }
+}
@@ -0,0 +1,63 @@
+package com.malistore_backend.service;
+
+import java.math.BigDecimal;
+
+import com.malistore_backend.data.entity.OrderStatus;
+
+/**
+ * Événements du cycle de vie d'une commande (agrégat "order")
+ */
+public final class OrderEvents {
+
+    public static final String AGGREGATE_TYPE = "order";
+
+    private OrderEvents() {
+    }
+
+    public record OrderCreated(Long orderId, Long userId, String orderNumber, BigDecimal totalAmount)
+            implements DomainEvent {
+
+        @Override
+        public String aggregateType() {
+            return AGGREGATE_TYPE;
+        }
+
+        @Override
+        public Long aggregateId() {
+            return orderId;
+        }
+    }
+
+    /**
+     * Paiement réussi : la commande est passée en PAID
+     */
+    public record OrderPaid(Long orderId, Long paymentId) implements DomainEvent {
+
+        @Override
+        public String aggregateType() {
+            return AGGREGATE_TYPE;
+        }
+
+        @Override
+        public Long aggregateId() {
+            return orderId;
+        }
+    }
+
+    /**
+     * Changement de statut par un administrateur
+     */
+    public record OrderStatusChanged(Long orderId, OrderStatus previousStatus, OrderStatus status)
+            implements DomainEvent {
+
+        @Override
+        public String aggregateType() {
+            return AGGREGATE_TYPE;
+        }
+
+        @Override
+        public Long aggregateId() {
+            return orderId;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.malistore_backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Générateur de numéros de commande sans verrou, sur le modèle Snowflake.
+ *
+ * Identifiant sur 63 bits : millisecondes depuis le 2025-01-01 (41 bits), identifiant de nœud
+ * réservé en base (10 bits), séquence dans la milliseconde (12 bits). Il est encodé en base 32
+ * (alphabet de Crockford) sur une largeur fixe de 13 caractères : l'ordre lexicographique suit
+ * l'ordre de génération, et les insertions restent en fin d'index sur orders.order_number.
+ *
+ * Si l'horloge recule, la génération continue sur la dernière milliseconde émise ; quand
+ * la séquence est épuisée, on attend la milliseconde suivante.
+ */
+@Component
+public class OrderNumberGenerator {
+
+    static final String PREFIX = "ORD-";
+    static final long EPOCH_MS = 1735689600000L; // 2025-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final IntSupplier nodeId;
+    private final LongSupplier clock;
+
+    // (milliseconde << SEQUENCE_BITS) | séquence du dernier identifiant émis
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public OrderNumberGenerator(NodeIdLeaseService nodeIdLeaseService) {
+        this(nodeIdLeaseService::currentNodeId, System::currentTimeMillis);
+    }
+
+    OrderNumberGenerator(IntSupplier nodeId, LongSupplier clock) {
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    /**
+     * Génère un nouveau numéro de commande, ex. ORD-01JB3K7Q0G00A
+     */
+    public String next() {
+        return encode(nextId());
+    }
+
+    long nextId() {
+        long node = nodeId.getAsInt();
+        while (true) {
+            long last = lastState.get();
+            long now = clock.getAsLong() - EPOCH_MS;
+            long next;
+            if (now > last >>> SEQUENCE_BITS) {
+                next = now << SEQUENCE_BITS;
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // Même milliseconde, ou horloge en recul : on reste sur la dernière milliseconde émise
+                next = last + 1;
+            } else {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return timestamp << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -1,9 +1,12 @@
 package com.malistore_backend.service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,10 +23,14 @@ import com.malistore_backend.data.repository.OrderRepository;
 import com.malistore_backend.data.repository.ShippingAddressRepository;
 import com.malistore_backend.web.dto.order.OrderCreateDto;
 import com.malistore_backend.web.dto.order.OrderResponse;
+import com.malistore_backend.web.dto.order.OrderSearchDto;
 import com.malistore_backend.web.dto.order.OrderStatusUpdateDto;
+import com.malistore_backend.web.dto.order.OrderSummary;
 import com.malistore_backend.web.exception.BadRequestException;
 import com.malistore_backend.web.exception.ResourceNotFoundException;
+import com.malistore_backend.web.mappers.OrderItemMapper;
 import com.malistore_backend.web.mappers.OrderMapper;
+import com.malistore_backend.web.payload.CursorPage;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,11 +40,18 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class OrderService {
     
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final CartItemRepository cartItemRepository;
     private final ShippingAddressRepository shippingAddressRepository;
     private final OrderMapper orderMapper;
+    private final OrderItemMapper orderItemMapper;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final CartSummaryCache cartSummaryCache;
+    private final WriteBehindCartStore writeBehindCartStore;
+    private final OutboxPublisher outboxPublisher;
     
     /**
      * Crée une commande à partir du panier de l'utilisateur
@@ -46,15 +60,24 @@ public class OrderService {
     public OrderResponse createOrderFromCart(User user, OrderCreateDto orderCreateDto) {
         log.info("Creating order from cart for user: {}", user.getEmail());
         
-        // Récupérer les articles du panier
-        List<CartItem> cartItems = cartItemRepository.findByUser(user);
+        // Écriture différée du panier : aucun changement concurrent entre l'écriture
+        // des changements en attente, la lecture du panier et son vidage
+        return writeBehindCartStore.locked(user.getId(), () -> createOrder(user, orderCreateDto));
+    }
+    
+    private OrderResponse createOrder(User user, OrderCreateDto orderCreateDto) {
+        // Changements en attente écrits avant la lecture
+        writeBehindCartStore.flushUser(user.getId());
+        
+        // Récupérer les articles du panier avec leurs produits
+        List<CartItem> cartItems = cartItemRepository.findByUserWithProductDetails(user);
         
         if (cartItems.isEmpty()) {
             throw new BadRequestException("Cannot create order: cart is empty");
         }
         
         // Générer un numéro de commande unique
-        String orderNumber = generateOrderNumber();
+        String orderNumber = orderNumberGenerator.next();
         
         // Calculer le total d'abord
         BigDecimal totalAmount = BigDecimal.ZERO;
@@ -85,6 +108,7 @@ public class OrderService {
         log.info("Order created with ID: {} and number: {}", order.getId(), orderNumber);
         
         // Créer les articles de commande et vérifier le stock
+        List<OrderItem> orderItems = new ArrayList<>(cartItems.size());
         for (CartItem cartItem : cartItems) {
             Product product = cartItem.getProduct();
             
@@ -105,9 +129,10 @@ public class OrderService {
                     .build();
             
             orderItem = orderItemRepository.save(orderItem);
+            orderItems.add(orderItem);
             
             // Note: Stock will be decremented only when payment is successful
-            // This is handled in PaymentService.updatePaymentStatus() or MockPaymentService.simulateSuccessfulPayment()
+            // This is handled in PaymentService.updatePaymentStatus()
             
             log.info("Order item created: {} x {} = {}", 
                 product.getName(), cartItem.getQuantity(), orderItem.getTotalPrice());
@@ -115,20 +140,59 @@ public class OrderService {
         
         // Vider le panier
         cartItemRepository.deleteByUser(user);
+        // Un flush ultérieur ne doit pas recréer les articles commandés
+        writeBehindCartStore.discard(user.getId());
+        cartSummaryCache.clearAfterCommit(user.getId());
         log.info("Cart cleared for user: {}", user.getEmail());
         
+        outboxPublisher.publish(new OrderEvents.OrderCreated(order.getId(), user.getId(), orderNumber, totalAmount));
         log.info("Order created successfully with total: {}", totalAmount);
-        return orderMapper.toResponse(order);
+        OrderResponse response = orderMapper.toResponseWithoutItems(order);
+        response.setOrderItems(orderItemMapper.toResponseList(orderItems));
+        return response;
     }
     
     /**
-     * Récupère les commandes d'un utilisateur
+     * Récupère l'historique des commandes d'un utilisateur, paginé par curseur.
+     * Deux requêtes quelle que soit la taille de la page : les commandes, puis tous
+     * leurs articles (avec produits) par une clause IN.
      */
     @Transactional(readOnly = true)
-    public List<OrderResponse> getUserOrders(User user) {
+    public CursorPage<OrderResponse> getUserOrders(User user, String cursor, int size) {
         log.info("Fetching orders for user: {}", user.getEmail());
-        List<Order> orders = orderRepository.findByUserOrderByCreatedAtDesc(user);
-        return orderMapper.toResponseList(orders);
+        
+        int pageSize = Math.min(Math.max(size, 1), MAX_SEARCH_PAGE_SIZE);
+        KeysetCursor keyset = KeysetCursor.decode(cursor);
+        
+        List<Order> rows = orderRepository.findHistoryPage(user,
+                keyset != null ? keyset.createdAt() : null,
+                keyset != null ? keyset.id() : null,
+                PageRequest.of(0, pageSize + 1));
+        boolean hasNext = rows.size() > pageSize;
+        List<Order> orders = hasNext ? rows.subList(0, pageSize) : rows;
+        
+        // Articles de toutes les commandes de la page, regroupés par commande
+        Map<Long, List<OrderItem>> itemsByOrder = new HashMap<>();
+        if (!orders.isEmpty()) {
+            List<Long> orderIds = orders.stream().map(Order::getId).toList();
+            for (OrderItem item : orderItemRepository.findWithProductsByOrderIdIn(orderIds)) {
+                itemsByOrder.computeIfAbsent(item.getOrder().getId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+        
+        List<OrderResponse> content = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            OrderResponse response = orderMapper.toResponseWithoutItems(order);
+            response.setOrderItems(orderItemMapper.toResponseList(itemsByOrder.getOrDefault(order.getId(), List.of())));
+            content.add(response);
+        }
+        
+        String nextCursor = null;
+        if (hasNext) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(content, content.size(), nextCursor, hasNext);
     }
     
     /**
@@ -139,17 +203,59 @@ public class OrderService {
         log.info("Fetching order {} for user: {}", orderId, user.getEmail());
         Order order = orderRepository.findByUserAndId(user, orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
-        return orderMapper.toResponse(order);
+        return toDetailedResponse(order);
     }
     
     /**
-     * Récupère toutes les commandes (admin)
+     * Recherche les commandes (admin), paginée par curseur
      */
     @Transactional(readOnly = true)
-    public List<OrderResponse> getAllOrders() {
-        log.info("Fetching all orders");
-        List<Order> orders = orderRepository.findAll();
-        return orderMapper.toResponseList(orders);
+    public CursorPage<OrderSummary> searchOrders(OrderSearchDto searchDto) {
+        log.info("Searching orders: status={}, email={}, prefix={}",
+                searchDto.getStatus(), searchDto.getCustomerEmail(), searchDto.getOrderNumberPrefix());
+
+        int size = Math.min(Math.max(searchDto.getSize() != null ? searchDto.getSize() : 20, 1), MAX_SEARCH_PAGE_SIZE);
+        KeysetCursor cursor = KeysetCursor.decode(searchDto.getCursor());
+
+        // Une ligne de plus que demandé pour savoir s'il existe une page suivante
+        List<OrderSummary> rows = orderRepository.searchSummaries(
+                searchDto.getStatus(),
+                searchDto.getCreatedFrom(),
+                searchDto.getCreatedTo(),
+                blankToNull(searchDto.getCustomerEmail()),
+                searchDto.getMinAmount(),
+                searchDto.getMaxAmount(),
+                prefixPattern(searchDto.getOrderNumberPrefix()),
+                cursor != null ? cursor.createdAt() : null,
+                cursor != null ? cursor.id() : null,
+                PageRequest.of(0, size + 1));
+
+        boolean hasNext = rows.size() > size;
+        List<OrderSummary> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            OrderSummary last = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(content, content.size(), nextCursor, hasNext);
+    }
+    
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+    
+    /**
+     * Motif LIKE de recherche par préfixe, caractères spéciaux échappés avec '!'
+     */
+    private static String prefixPattern(String prefix) {
+        String value = blankToNull(prefix);
+        if (value == null) {
+            return null;
+        }
+        return value.toUpperCase()
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_") + "%";
     }
     
     /**
@@ -158,9 +264,9 @@ public class OrderService {
     @Transactional(readOnly = true)
     public OrderResponse getOrderById(Long orderId) {
         log.info("Fetching order with ID: {}", orderId);
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
-        return orderMapper.toResponse(order);
+        return toDetailedResponse(order);
     }
     
     /**
@@ -170,7 +276,7 @@ public class OrderService {
     public OrderResponse updateOrderStatus(Long orderId, OrderStatusUpdateDto statusUpdateDto) {
         log.info("Updating order {} status to: {}", orderId, statusUpdateDto.getStatus());
         
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
         
         // Vérifier la transition de statut valide
@@ -181,20 +287,24 @@ public class OrderService {
             );
         }
         
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(statusUpdateDto.getStatus());
         order = orderRepository.save(order);
+        outboxPublisher.publish(new OrderEvents.OrderStatusChanged(orderId, previousStatus, order.getStatus()));
         
         log.info("Order {} status updated to: {}", orderId, statusUpdateDto.getStatus());
-        return orderMapper.toResponse(order);
+        return toDetailedResponse(order);
     }
     
     /**
-     * Génère un numéro de commande unique
+     * Convertit une commande (client et adresse déjà chargés) en réponse complète,
+     * les articles et leurs produits étant chargés en une requête
      */
-    private String generateOrderNumber() {
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String uuid = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        return "ORD-" + timestamp + "-" + uuid;
+    private OrderResponse toDetailedResponse(Order order) {
+        OrderResponse response = orderMapper.toResponseWithoutItems(order);
+        response.setOrderItems(orderItemMapper.toResponseList(
+                orderItemRepository.findWithProductsByOrderIdIn(List.of(order.getId()))));
+        return response;
     }
     
     /**
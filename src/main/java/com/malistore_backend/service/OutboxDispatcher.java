@@ -0,0 +1,254 @@
+package com.malistore_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.malistore_backend.data.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Distribution des événements de la boîte d'envoi à leurs abonnés ({@link DomainEventSubscriber}).
+ *
+ * - un balayage (app.outbox.poll-interval-ms, et après chaque commit qui publie) réserve par
+ *   SKIP LOCKED les événements dont aucun prédécesseur du même agrégat n'est en attente :
+ *   les événements d'un agrégat sont distribués un par un, dans l'ordre, même entre instances
+ * - les événements réservés sont répartis sur des workers mono-thread selon leur agrégat
+ * - les abonnés sont appelés dans la transaction qui marque l'événement comme traité ;
+ *   en cas d'échec, l'événement est retenté après app.outbox.retry-delay-ms (croissant avec les
+ *   tentatives), puis abandonné (DEAD) après app.outbox.max-attempts, ce qui débloque l'agrégat
+ * - retard de distribution (création → traitement, horloge de la base), échecs et file en attente sont mesurés
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxDispatcher {
+
+    // Événements réservés : seul le premier événement non traité de chaque agrégat est éligible
+    private static final String CLAIM_SQL =
+            "UPDATE outbox_events SET status = 'PROCESSING', attempts = attempts + 1, last_attempt_at = CURRENT_TIMESTAMP " +
+            "WHERE id IN (" +
+            "SELECT o.id FROM outbox_events o " +
+            "WHERE o.status IN ('PENDING', 'FAILED') AND o.available_at <= CURRENT_TIMESTAMP " +
+            "AND NOT EXISTS (SELECT 1 FROM outbox_events p WHERE p.aggregate_type = o.aggregate_type " +
+            "AND p.aggregate_id = o.aggregate_id AND p.id < o.id AND p.status IN ('PENDING', 'PROCESSING', 'FAILED')) " +
+            "ORDER BY o.id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, aggregate_type, aggregate_id, event_type, payload, attempts";
+
+    // Ne réussit que si la réservation n'a pas été reprise entre-temps ; renvoie le retard en ms
+    private static final String MARK_PROCESSED_SQL =
+            "UPDATE outbox_events SET status = 'PROCESSED', processed_at = CURRENT_TIMESTAMP, last_error = NULL " +
+            "WHERE id = ? AND status = 'PROCESSING' AND attempts = ? " +
+            "RETURNING CAST(EXTRACT(EPOCH FROM (processed_at - created_at)) * 1000 AS BIGINT)";
+
+    /**
+     * Métriques de distribution
+     */
+    public record Stats(long delivered, long failures, long deadLettered, long lastLagMs, long maxLagMs,
+                        long pending, Long oldestPendingAgeMs) {
+    }
+
+    private record ClaimedEvent(Long id, String aggregateType, Long aggregateId, String eventType,
+                                String payload, int attempts) {
+    }
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final List<DomainEventSubscriber<?>> subscribers;
+
+    @Value("${app.outbox.workers:4}")
+    private int workerCount;
+
+    @Value("${app.outbox.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    @Value("${app.outbox.processing-timeout-seconds:300}")
+    private int processingTimeoutSeconds;
+
+    @Value("${app.outbox.retention-days:7}")
+    private int retentionDays;
+
+    private final Map<String, Class<? extends DomainEvent>> eventTypes = new HashMap<>();
+    private final Map<Class<?>, List<DomainEventSubscriber<?>>> subscribersByType = new HashMap<>();
+    private TransactionTemplate deliveryTransaction;
+    private ExecutorService[] lanes;
+    private ThreadPoolExecutor poller;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private volatile long lastLagMs;
+    private volatile long maxLagMs;
+
+    @PostConstruct
+    public void init() {
+        for (DomainEventSubscriber<?> subscriber : subscribers) {
+            eventTypes.put(eventTypeName(subscriber.eventType()), subscriber.eventType());
+            subscribersByType.computeIfAbsent(subscriber.eventType(), type -> new ArrayList<>()).add(subscriber);
+        }
+        deliveryTransaction = new TransactionTemplate(transactionManager);
+
+        lanes = new ExecutorService[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            String threadName = "outbox-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, threadName));
+        }
+        // Un seul réveil en attente suffit : les suivants sont ignorés
+        poller = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                runnable -> new Thread(runnable, "outbox-poller"), new ThreadPoolExecutor.DiscardPolicy());
+        log.info("Outbox dispatcher started with {} workers, {} subscribers", workerCount, subscribers.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * Demande un balayage immédiat (après le commit d'une transaction qui a publié)
+     */
+    public void wakeUp() {
+        poller.execute(() -> {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                log.error("Outbox poll failed: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Réserve et distribue les événements éligibles
+     * (déclenché toutes les app.outbox.poll-interval-ms, voir ScheduledJobs)
+     */
+    public synchronized void poll() {
+        int released = outboxEventRepository.releaseStale(processingTimeoutSeconds);
+        if (released > 0) {
+            log.warn("Released {} stale outbox events stuck in PROCESSING", released);
+        }
+
+        List<ClaimedEvent> claimed;
+        do {
+            claimed = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new ClaimedEvent(
+                    rs.getLong("id"),
+                    rs.getString("aggregate_type"),
+                    rs.getLong("aggregate_id"),
+                    rs.getString("event_type"),
+                    rs.getString("payload"),
+                    rs.getInt("attempts")), batchSize);
+            for (ClaimedEvent event : claimed) {
+                dispatch(event);
+            }
+        } while (claimed.size() == batchSize);
+    }
+
+    /**
+     * Supprime les événements traités depuis plus de app.outbox.retention-days jours
+     */
+    public void purgeProcessed() {
+        int deleted = outboxEventRepository.deleteProcessedBefore(retentionDays);
+        log.info("Outbox cleanup: {} processed events deleted", deleted);
+    }
+
+    public Stats getStats() {
+        return new Stats(delivered.get(), failures.get(), deadLettered.get(), lastLagMs, maxLagMs,
+                outboxEventRepository.countPending(), outboxEventRepository.findOldestPendingAgeMs());
+    }
+
+    static String eventTypeName(Class<?> eventType) {
+        return eventType.getSimpleName();
+    }
+
+    private void dispatch(ClaimedEvent event) {
+        String aggregateKey = event.aggregateType() + ":" + event.aggregateId();
+        ExecutorService lane = lanes[Math.floorMod(aggregateKey.hashCode(), lanes.length)];
+        try {
+            lane.execute(() -> deliver(event));
+        } catch (RejectedExecutionException e) {
+            outboxEventRepository.release(event.id(), event.attempts());
+            log.warn("Outbox queue full, event {} deferred to next poll", event.id());
+        }
+    }
+
+    private void deliver(ClaimedEvent event) {
+        try {
+            DomainEvent domainEvent = deserialize(event);
+            Long lagMs = deliveryTransaction.execute(status -> {
+                if (domainEvent != null) {
+                    for (DomainEventSubscriber<?> subscriber : subscribersByType.get(domainEvent.getClass())) {
+                        handle(subscriber, domainEvent);
+                    }
+                }
+                List<Long> lag = jdbcTemplate.queryForList(MARK_PROCESSED_SQL, Long.class, event.id(), event.attempts());
+                if (lag.isEmpty()) {
+                    throw new IllegalStateException("Outbox event " + event.id() + " was claimed again");
+                }
+                return lag.get(0);
+            });
+            delivered.incrementAndGet();
+            lastLagMs = lagMs;
+            maxLagMs = Math.max(maxLagMs, lagMs);
+            log.debug("Outbox event {} ({}) delivered after {} ms", event.id(), event.eventType(), lagMs);
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            String error = e.getMessage() != null && e.getMessage().length() > 1000
+                    ? e.getMessage().substring(0, 1000) : e.getMessage();
+            if (event.attempts() >= maxAttempts) {
+                deadLettered.incrementAndGet();
+                log.error("Outbox event {} ({}) for {} {} abandoned after {} attempts: {}", event.id(),
+                        event.eventType(), event.aggregateType(), event.aggregateId(), event.attempts(), error, e);
+            } else {
+                log.warn("Outbox event {} ({}) failed (attempt {}): {}", event.id(), event.eventType(),
+                        event.attempts(), error, e);
+            }
+            outboxEventRepository.markFailed(event.id(), event.attempts(), maxAttempts,
+                    retryDelayMs * event.attempts() / 1000.0, error);
+        }
+    }
+
+    /**
+     * @return null si aucun abonné n'écoute ce type d'événement
+     */
+    private DomainEvent deserialize(ClaimedEvent event) throws Exception {
+        Class<? extends DomainEvent> type = eventTypes.get(event.eventType());
+        return type != null ? objectMapper.readValue(event.payload(), type) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends DomainEvent> void handle(DomainEventSubscriber<E> subscriber, DomainEvent event) {
+        subscriber.handle((E) event);
+    }
+}
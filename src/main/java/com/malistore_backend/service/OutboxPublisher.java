@@ -0,0 +1,50 @@
+package com.malistore_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.malistore_backend.data.entity.OutboxEvent;
+import com.malistore_backend.data.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publication des événements métier dans la boîte d'envoi (table outbox_events).
+ * L'événement est écrit dans la transaction courante : il n'existe que si la modification
+ * de l'agrégat est validée. La distribution est relancée dès le commit, sans attendre le prochain balayage.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxPublisher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDispatcher outboxDispatcher;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(DomainEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize event " + event.getClass().getSimpleName(), e);
+        }
+
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateType(event.aggregateType())
+                .aggregateId(event.aggregateId())
+                .eventType(OutboxDispatcher.eventTypeName(event.getClass()))
+                .payload(payload)
+                .build());
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxDispatcher.wakeUp();
+            }
+        });
+    }
+}
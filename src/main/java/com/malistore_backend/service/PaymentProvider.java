@@ -0,0 +1,45 @@
+package com.malistore_backend.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * SPI des fournisseurs de paiement.
+ * Un fournisseur ne fait que l'appel distant de création de session :
+ * la lecture de la commande et l'enregistrement du Payment restent dans {@link PaymentService}.
+ * Les implémentations ne doivent pas ouvrir de transaction.
+ *
+ * Le fournisseur actif est choisi par la propriété app.payment.provider (stripe | simulated).
+ */
+public interface PaymentProvider {
+
+    /**
+     * Nom du fournisseur (journalisation, messages)
+     */
+    String getName();
+
+    /**
+     * Crée une session de paiement chez le fournisseur
+     */
+    ProviderSession createCheckoutSession(CheckoutRequest checkout);
+
+    /**
+     * Commande à payer, détachée de toute session JPA
+     */
+    record CheckoutRequest(Long orderId, String orderNumber, BigDecimal totalAmount, String currency,
+                           List<CheckoutLine> lines, String successUrl, String cancelUrl) {
+    }
+
+    /**
+     * Ligne de commande, montant unitaire en centimes
+     */
+    record CheckoutLine(String name, String description, long unitAmount, long quantity) {
+    }
+
+    /**
+     * Session créée chez le fournisseur. paymentIntentId peut être null s'il n'est connu
+     * qu'à la réception du webhook.
+     */
+    record ProviderSession(String sessionId, String sessionUrl, String paymentIntentId) {
+    }
+}
@@ -3,6 +3,9 @@ package com.malistore_backend.service;
 import com.malistore_backend.data.entity.*;
 import com.malistore_backend.data.repository.OrderRepository;
 import com.malistore_backend.data.repository.PaymentRepository;
+import com.malistore_backend.service.PaymentProvider.CheckoutLine;
+import com.malistore_backend.service.PaymentProvider.CheckoutRequest;
+import com.malistore_backend.service.PaymentProvider.ProviderSession;
 import com.malistore_backend.web.dto.payment.PaymentResponse;
 import com.malistore_backend.web.dto.payment.PaymentSessionRequest;
 import com.malistore_backend.web.dto.payment.PaymentSessionResponse;
@@ -10,20 +13,24 @@ import com.malistore_backend.web.exception.BadRequestException;
 import com.malistore_backend.web.exception.ResourceNotFoundException;
 import com.malistore_backend.web.mappers.PaymentMapper;
 import com.stripe.Stripe;
-import com.stripe.exception.StripeException;
-import com.stripe.model.checkout.Session;
-import com.stripe.param.checkout.SessionCreateParams;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.annotation.PostConstruct;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Paiements des commandes. L'appel distant de création de session est délégué
+ * au {@link PaymentProvider} actif (Stripe ou simulé).
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -32,7 +39,12 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
     private final PaymentMapper paymentMapper;
-    private final InventoryService inventoryService;
+    private final OutboxPublisher outboxPublisher;
+    private final PaymentProvider paymentProvider;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate writeTransaction;
 
     @Value("${stripe.secret-key}")
     private String stripeSecretKey;
@@ -48,125 +60,99 @@ public class PaymentService {
 
     @PostConstruct
     public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+
         if (stripeSecretKey != null && !stripeSecretKey.isEmpty() && stripeSecretKey.length() > 7) {
             Stripe.apiKey = stripeSecretKey;
             log.info("Stripe initialized with secret key: {}...", stripeSecretKey.substring(0, 7));
         } else {
             log.warn("Stripe secret key not configured. Payment features will be disabled.");
         }
+        log.info("Payment provider: {}", paymentProvider.getName());
     }
 
     /**
-     * Crée une session de paiement Stripe pour une commande
+     * Crée une session de paiement pour une commande.
+     * L'appel au fournisseur est fait hors transaction : aucune connexion JDBC n'est retenue
+     * pendant l'aller-retour réseau. Le flux est découpé en une lecture courte,
+     * l'appel distant, puis une écriture courte de l'enregistrement Payment.
      */
-    @Transactional
     public PaymentSessionResponse createPaymentSession(PaymentSessionRequest request) {
-        log.info("Creating payment session for order: {}", request.getOrderId());
-
-        // Récupérer la commande
-        Order order = orderRepository.findById(request.getOrderId())
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + request.getOrderId()));
-
-        // Vérifier que la commande n'a pas déjà un paiement réussi
-        if (paymentRepository.hasSuccessfulPayment(order)) {
-            throw new BadRequestException("Order already has a successful payment");
-        }
+        log.info("Creating {} payment session for order: {}", paymentProvider.getName(), request.getOrderId());
+
+        // 1. Lecture courte : vérifier la commande et préparer les lignes
+        CheckoutRequest checkout = readOnlyTransaction.execute(status -> loadCheckout(request));
+
+        // 2. Appel distant hors transaction
+        ProviderSession session = paymentProvider.createCheckoutSession(checkout);
+
+        // 3. Écriture courte : créer l'enregistrement de paiement
+        Payment payment = writeTransaction.execute(status -> paymentRepository.save(Payment.builder()
+                .order(orderRepository.getReferenceById(checkout.orderId()))
+                .status(PaymentStatus.PENDING)
+                .amount(checkout.totalAmount())
+                .transactionId(session.sessionId())
+                .stripeSessionId(session.sessionId())
+                .stripePaymentIntentId(session.paymentIntentId())
+                .paymentMethod(PaymentMethod.CARD)
+                .currency(checkout.currency())
+                .description("Paiement pour la commande " + checkout.orderNumber())
+                .build()));
+        log.info("Payment record created with ID: {}", payment.getId());
+
+        // Retourner la réponse
+        PaymentSessionResponse response = new PaymentSessionResponse();
+        response.setSessionId(session.sessionId());
+        response.setSessionUrl(session.sessionUrl());
+        response.setPublicKey(stripePublicKey);
+        response.setOrderId(checkout.orderId());
+        response.setMessage("Payment session created successfully");
+
+        return response;
+    }
 
-        // Vérifier que la commande est en statut PENDING
-        if (order.getStatus() != OrderStatus.PENDING) {
-            throw new BadRequestException("Order is not in PENDING status");
+    /**
+     * Charge la commande, vérifie qu'elle peut être payée et construit les lignes à facturer
+     */
+    private CheckoutRequest loadCheckout(PaymentSessionRequest request) {
+        // Commande, articles, statut et absence de paiement réussi vérifiés en une seule requête
+        Order order = orderRepository.findPayableWithItems(request.getOrderId())
+                .orElseThrow(() -> notPayable(request.getOrderId()));
+
+        List<CheckoutLine> lines = new ArrayList<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            lines.add(new CheckoutLine(
+                    orderItem.getProduct().getName(),
+                    orderItem.getProduct().getDescription(),
+                    orderItem.getUnitPrice().multiply(BigDecimal.valueOf(100)).longValue(), // Convertir en centimes
+                    orderItem.getQuantity()));
         }
 
-        try {
-            // Créer les line items pour Stripe
-            List<SessionCreateParams.LineItem> lineItems = new ArrayList<>();
-            for (OrderItem orderItem : order.getOrderItems()) {
-                SessionCreateParams.LineItem lineItem = SessionCreateParams.LineItem.builder()
-                        .setPriceData(SessionCreateParams.LineItem.PriceData.builder()
-                                .setCurrency("eur")
-                                .setProductData(SessionCreateParams.LineItem.PriceData.ProductData.builder()
-                                        .setName(orderItem.getProduct().getName())
-                                        .setDescription(orderItem.getProduct().getDescription())
-                                        .build())
-                                .setUnitAmount(orderItem.getUnitPrice().multiply(BigDecimal.valueOf(100)).longValue()) // Convertir en centimes
-                                .build())
-                        .setQuantity((long) orderItem.getQuantity())
-                        .build();
-                lineItems.add(lineItem);
-            }
-
-            // Créer la session Stripe
-            SessionCreateParams params = SessionCreateParams.builder()
-                    .setMode(SessionCreateParams.Mode.PAYMENT)
-                    .setSuccessUrl(request.getSuccessUrl() != null ? request.getSuccessUrl() : defaultSuccessUrl)
-                    .setCancelUrl(request.getCancelUrl() != null ? request.getCancelUrl() : defaultCancelUrl)
-                    .setPaymentIntentData(SessionCreateParams.PaymentIntentData.builder()
-                            .setDescription("Paiement pour la commande " + order.getOrderNumber())
-                            .build())
-                    .addAllLineItem(lineItems)
-                    .putMetadata("order_id", order.getId().toString())
-                    .putMetadata("order_number", order.getOrderNumber())
-                    .build();
-
-            Session session = Session.create(params);
-            log.info("Stripe session created: {}", session.getId());
-
-            // Créer l'enregistrement de paiement
-            Payment payment = Payment.builder()
-                    .order(order)
-                    .status(PaymentStatus.PENDING)
-                    .amount(order.getTotalAmount())
-                    .transactionId(session.getId())
-                    .stripeSessionId(session.getId())
-                    .paymentMethod(PaymentMethod.CARD)
-                    .currency("EUR")
-                    .description("Paiement pour la commande " + order.getOrderNumber())
-                    .build();
-
-            payment = paymentRepository.save(payment);
-            log.info("Payment record created with ID: {}", payment.getId());
-
-            // Retourner la réponse
-            PaymentSessionResponse response = new PaymentSessionResponse();
-            response.setSessionId(session.getId());
-            response.setSessionUrl(session.getUrl());
-            response.setPublicKey(stripePublicKey);
-            response.setOrderId(order.getId());
-            response.setMessage("Payment session created successfully");
-
-            return response;
-
-        } catch (StripeException e) {
-            log.error("Error creating Stripe session: {}", e.getMessage(), e);
-            throw new BadRequestException("Failed to create payment session: " + e.getMessage());
-        }
+        return new CheckoutRequest(order.getId(), order.getOrderNumber(), order.getTotalAmount(), "EUR", lines,
+                request.getSuccessUrl() != null ? request.getSuccessUrl() : defaultSuccessUrl,
+                request.getCancelUrl() != null ? request.getCancelUrl() : defaultCancelUrl);
     }
 
     /**
-     * Traite un webhook Stripe
+     * Explique pourquoi une commande ne peut pas être payée (chemin d'erreur uniquement)
      */
-    @Transactional
-    public void handleStripeWebhook(String payload, String signature) {
-        log.info("Processing Stripe webhook");
-
-        try {
-            // Ici, vous devriez vérifier la signature du webhook
-            // Pour simplifier, on va traiter directement le payload
-            
-            // Dans un vrai projet, vous devriez utiliser:
-            // Event event = Webhook.constructEvent(payload, signature, webhookSecret);
-            
-            // Pour la démo, on va simuler le traitement
-            log.info("Webhook processed successfully");
-            
-        } catch (Exception e) {
-            log.error("Error processing webhook: {}", e.getMessage(), e);
-            throw new BadRequestException("Failed to process webhook: " + e.getMessage());
+    private RuntimeException notPayable(Long orderId) {
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            return new ResourceNotFoundException("Order not found with ID: " + orderId);
+        }
+        if (order.getStatus() != OrderStatus.PENDING) {
+            return new BadRequestException("Order is not in PENDING status");
         }
+        return new BadRequestException("Order already has a successful payment");
     }
 
     /**
-     * Met à jour le statut d'un paiement
+     * Met à jour le statut d'un paiement.
+     * Un paiement réussi fait passer la commande en PAID une seule fois, que l'événement Stripe
+     * reçu en premier soit checkout.session.completed ou payment_intent.succeeded.
      */
     @Transactional
     public PaymentResponse updatePaymentStatus(String sessionId, PaymentStatus status, String paymentIntentId) {
@@ -175,28 +161,33 @@ public class PaymentService {
         Payment payment = paymentRepository.findByStripeSessionId(sessionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Payment not found with session ID: " + sessionId));
 
+        // Commande déjà payée (ou expédiée) : ni nouvelle transition ni nouveau décrément de stock
+        Order order = payment.getOrder();
+        if (payment.getStatus() == PaymentStatus.SUCCEEDED && status == PaymentStatus.SUCCEEDED
+                && order.getStatus() != OrderStatus.PENDING) {
+            log.info("Payment for session {} already SUCCEEDED and order {} is {}, skipping",
+                    sessionId, order.getId(), order.getStatus());
+            return paymentMapper.toResponse(payment);
+        }
+
         payment.setStatus(status);
-        payment.setStripePaymentIntentId(paymentIntentId);
-        payment.setWebhookReceivedAt(java.time.LocalDateTime.now());
+        if (paymentIntentId != null) {
+            payment.setStripePaymentIntentId(paymentIntentId);
+        }
+        payment.setWebhookReceivedAt(LocalDateTime.now());
 
         if (status == PaymentStatus.SUCCEEDED) {
-            // Mettre à jour le statut de la commande
-            payment.getOrder().setStatus(OrderStatus.PAID);
-            orderRepository.save(payment.getOrder());
-            log.info("Order {} status updated to PAID", payment.getOrder().getId());
-            
-            // Décrémenter le stock des produits
-            try {
-                boolean stockDecremented = inventoryService.decrementStockAfterPayment(payment.getOrder().getId());
-                if (stockDecremented) {
-                    log.info("Stock successfully decremented for order {}", payment.getOrder().getId());
-                } else {
-                    log.warn("Failed to decrement stock for order {}", payment.getOrder().getId());
-                }
-            } catch (Exception e) {
-                log.error("Error decrementing stock for order {}: {}", payment.getOrder().getId(), e.getMessage(), e);
-                // Note: In a real application, you might want to handle this differently
-                // For now, we'll log the error but not fail the payment
+            if (order.getStatus() == OrderStatus.PENDING) {
+                // Mettre à jour le statut de la commande
+                order.setStatus(OrderStatus.PAID);
+                orderRepository.save(order);
+                log.info("Order {} status updated to PAID", order.getId());
+                
+                // Le stock est décrémenté après le commit par l'abonné à OrderPaid (StockDecrementSubscriber)
+                outboxPublisher.publish(new OrderEvents.OrderPaid(order.getId(), payment.getId()));
+            } else {
+                log.warn("Payment for session {} succeeded but order {} is {}, status left unchanged",
+                        sessionId, order.getId(), order.getStatus());
             }
         }
 
@@ -206,6 +197,24 @@ public class PaymentService {
         return paymentMapper.toResponse(payment);
     }
 
+    /**
+     * Marque un paiement comme échoué
+     */
+    @Transactional
+    public PaymentResponse failPayment(String sessionId, String failureReason) {
+        log.info("Marking payment for session {} as FAILED: {}", sessionId, failureReason);
+
+        Payment payment = paymentRepository.findByStripeSessionId(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Payment not found with session ID: " + sessionId));
+
+        payment.setStatus(PaymentStatus.FAILED);
+        payment.setFailureReason(failureReason);
+        payment.setWebhookReceivedAt(LocalDateTime.now());
+
+        payment = paymentRepository.save(payment);
+        return paymentMapper.toResponse(payment);
+    }
+
     /**
      * Récupère les paiements d'un utilisateur
      */
@@ -0,0 +1,237 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.web.dto.product.ProductResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Cache local des fiches produit (ProductResponse avec images), par ID.
+ *
+ * - taille bornée : au-delà de app.cache.product.max-entries, les entrées les plus anciennes sont évincées
+ * - durée de vie bornée (app.cache.product.ttl-seconds) pour limiter l'effet d'une invalidation manquée
+ * - les invalidations faites dans une transaction sont rejouées après le commit, afin qu'une lecture
+ *   concurrente ne remette pas en cache l'état d'avant la modification
+ * - les invalidations sont propagées aux autres instances par {@link CacheInvalidationBus}
+ * - {@link #getOrLoad} regroupe les chargements concurrents d'un même produit ({@link SingleFlight}) ;
+ *   avec app.cache.product.stale-while-revalidate-seconds, une entrée expirée depuis moins de ce délai
+ *   est encore servie pendant son rechargement en arrière-plan (jamais une entrée invalidée)
+ * - les chargements groupés faits hors de {@link #getOrLoad} relèvent les invalidations avant la requête
+ *   ({@link #stamp}) : {@link #putLoaded} ne met pas en cache un produit invalidé depuis
+ *
+ * Les réponses en cache sont partagées : elles ne doivent pas être modifiées après insertion.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCache {
+
+    public static final String CACHE_NAME = "product";
+
+    // Compteurs d'invalidation partagés par les IDs de même reste : une collision ne fait qu'écarter une mise en cache
+    private static final int STAMP_SLOTS = 4096;
+
+    private record Entry(ProductResponse product, long loadedAt) {
+    }
+
+    /**
+     * Invalidations relevées avant un chargement groupé, à passer à {@link #putLoaded}
+     */
+    public record LoadStamp(long epoch, Map<Long, Long> slots) {
+    }
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final SingleFlightRegistry singleFlightRegistry;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLongArray invalidations = new AtomicLongArray(STAMP_SLOTS);
+    // Incrémenté par chaque vidage complet
+    private final AtomicLong epoch = new AtomicLong();
+
+    @Value("${app.cache.product.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.cache.product.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${app.cache.product.stale-while-revalidate-seconds:0}")
+    private long staleWhileRevalidateSeconds;
+
+    private SingleFlight<Long, ProductResponse> loads;
+
+    @PostConstruct
+    public void init() {
+        loads = singleFlightRegistry.create(CACHE_NAME);
+        cacheInvalidationBus.register(CACHE_NAME, key -> evictLocally(Long.valueOf(key)), this::evictAllLocally);
+    }
+
+    public ProductResponse get(Long id) {
+        Entry entry = entries.get(id);
+        if (entry == null || isExpired(entry)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.product();
+    }
+
+    /**
+     * Produit en cache, sinon chargé par un seul appelant à la fois et mis en cache
+     * @param loader chargement depuis la base, hors transaction de l'appelant
+     */
+    public ProductResponse getOrLoad(Long id, Supplier<ProductResponse> loader) {
+        Entry entry = entries.get(id);
+        if (entry != null && !isExpired(entry)) {
+            hits.incrementAndGet();
+            return entry.product();
+        }
+        misses.incrementAndGet();
+        if (entry != null && isWithinStaleWindow(entry)) {
+            return loads.refreshInBackground(id, entry.product(), loader, this::put);
+        }
+        return loads.load(id, loader, this::put);
+    }
+
+    /**
+     * @return les produits présents en cache, par ID (les absents sont omis)
+     */
+    public Map<Long, ProductResponse> getAll(Collection<Long> ids) {
+        Map<Long, ProductResponse> found = new HashMap<>();
+        for (Long id : ids) {
+            ProductResponse product = get(id);
+            if (product != null) {
+                found.put(id, product);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Relevé à prendre avant de charger les produits hors de {@link #getOrLoad}
+     */
+    public LoadStamp stamp(Collection<Long> ids) {
+        Map<Long, Long> slots = new HashMap<>();
+        for (Long id : ids) {
+            slots.put(id, invalidations.get(slot(id)));
+        }
+        return new LoadStamp(epoch.get(), slots);
+    }
+
+    /**
+     * Met en cache un produit chargé après le relevé, sauf s'il a été invalidé depuis :
+     * vérifié sous le verrou de l'entrée, l'éviction qui suit l'invalidation ne peut pas être devancée
+     */
+    public void putLoaded(LoadStamp stamp, ProductResponse product) {
+        Long expected = stamp.slots().get(product.getId());
+        if (expected == null) {
+            return;
+        }
+        entries.compute(product.getId(), (id, current) ->
+                epoch.get() == stamp.epoch() && invalidations.get(slot(id)) == expected
+                        ? new Entry(product, System.nanoTime())
+                        : current);
+        if (entries.size() > maxEntries) {
+            evictOldest();
+        }
+    }
+
+    private void put(ProductResponse product) {
+        entries.put(product.getId(), new Entry(product, System.nanoTime()));
+        if (entries.size() > maxEntries) {
+            evictOldest();
+        }
+    }
+
+    public void invalidate(Long id) {
+        evictLocally(id);
+        afterCommit(() -> evictLocally(id));
+        cacheInvalidationBus.publish(CACHE_NAME, id.toString());
+    }
+
+    public void invalidateAll() {
+        evictAllLocally();
+        afterCommit(this::evictAllLocally);
+        cacheInvalidationBus.publish(CACHE_NAME, CacheInvalidationBus.ALL);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Un chargement en cours commencé avant l'invalidation ne remet pas l'ancien état en cache
+    private void evictLocally(Long id) {
+        invalidations.incrementAndGet(slot(id));
+        loads.forget(id);
+        entries.remove(id);
+    }
+
+    private void evictAllLocally() {
+        epoch.incrementAndGet();
+        loads.forgetAll();
+        entries.clear();
+    }
+
+    private static int slot(Long id) {
+        return Long.hashCode(id) & (STAMP_SLOTS - 1);
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.nanoTime() - entry.loadedAt() > ttlSeconds * 1_000_000_000L;
+    }
+
+    private boolean isWithinStaleWindow(Entry entry) {
+        return System.nanoTime() - entry.loadedAt() <= (ttlSeconds + staleWhileRevalidateSeconds) * 1_000_000_000L;
+    }
+
+    /**
+     * Évince un dixième des entrées, les plus anciennes d'abord
+     */
+    private synchronized void evictOldest() {
+        int excess = entries.size() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        int toEvict = Math.max(excess, maxEntries / 10);
+        entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().loadedAt()))
+                .limit(toEvict)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(entries::remove);
+        log.debug("Product cache evicted {} entries", toEvict);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
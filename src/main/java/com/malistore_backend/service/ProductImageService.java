@@ -13,7 +13,9 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +26,7 @@ public class ProductImageService {
     
     private final ProductImageRepository productImageRepository;
     private final ImageStorageService imageStorageService;
+    private final ProductCache productCache;
     
     /**
      * Add images to a product
@@ -43,6 +46,7 @@ public class ProductImageService {
                 .collect(Collectors.toList());
         
         List<ProductImage> savedImages = productImageRepository.saveAll(images);
+        productCache.invalidate(productId);
         
         // Ensure only one primary image
         if (savedImages.stream().anyMatch(ProductImage::getIsPrimary)) {
@@ -127,6 +131,26 @@ public class ProductImageService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Convert images already loaded with their product (e.g. from the second-level cache)
+     */
+    public List<ProductImageDto> toDtos(List<ProductImage> images) {
+        return images.stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Get the images of several products in one query, keyed by product ID
+     * (products without images are absent from the map)
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<ProductImageDto>> getImagesByProductIds(Collection<Long> productIds) {
+        return productImageRepository.findByProductIdIn(productIds).stream()
+                .collect(Collectors.groupingBy(image -> image.getProduct().getId(),
+                        Collectors.mapping(this::convertToDto, Collectors.toList())));
+    }
+    
     /**
      * Get primary image for a product
      */
@@ -151,6 +175,7 @@ public class ProductImageService {
         image.setSortOrder(dto.getSortOrder());
         
         ProductImage savedImage = productImageRepository.save(image);
+        productCache.invalidate(savedImage.getProduct().getId());
         
         // Ensure only one primary image
         if (savedImage.getIsPrimary()) {
@@ -172,6 +197,7 @@ public class ProductImageService {
         
         // Delete from database
         productImageRepository.delete(image);
+        productCache.invalidate(image.getProduct().getId());
         
         log.info("Image deleted: {}", imageId);
     }
@@ -187,6 +213,7 @@ public class ProductImageService {
         
         // Delete from database
         productImageRepository.deleteByProductId(productId);
+        productCache.invalidate(productId);
         
         log.info("All images deleted for product: {}", productId);
     }
@@ -204,6 +231,7 @@ public class ProductImageService {
         // Set this image as primary
         image.setIsPrimary(true);
         ProductImage savedImage = productImageRepository.save(image);
+        productCache.invalidate(savedImage.getProduct().getId());
         
         return convertToDto(savedImage);
     }
@@ -0,0 +1,162 @@
+package com.malistore_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lecture en flux des lignes d'un fichier d'import (CSV avec en-tête, ou NDJSON).
+ * Les noms de colonnes sont normalisés en minuscules.
+ */
+abstract class ProductImportReader implements Closeable {
+
+    record Row(long line, Map<String, String> fields) {
+    }
+
+    protected final BufferedReader reader;
+
+    protected ProductImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    static ProductImportReader of(ProductImportService.Format format, BufferedReader reader, ObjectMapper objectMapper)
+            throws IOException {
+        return format == ProductImportService.Format.CSV ? new Csv(reader) : new Ndjson(reader, objectMapper);
+    }
+
+    /**
+     * @return la ligne suivante, ou null en fin de fichier
+     */
+    abstract Row next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * CSV (RFC 4180) : champs entre guillemets pouvant contenir virgules et retours à la ligne
+     */
+    private static final class Csv extends ProductImportReader {
+
+        private final String[] header;
+        private long line;
+
+        Csv(BufferedReader reader) throws IOException {
+            super(reader);
+            List<String> columns = readRecord();
+            if (columns == null) {
+                throw new IOException("Empty file: CSV header expected");
+            }
+            header = columns.stream().map(column -> column.trim().toLowerCase(Locale.ROOT)).toArray(String[]::new);
+        }
+
+        @Override
+        Row next() throws IOException {
+            List<String> values;
+            do {
+                values = readRecord();
+                if (values == null) {
+                    return null;
+                }
+            } while (values.size() == 1 && values.get(0).isBlank());
+
+            long recordLine = line;
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < header.length && i < values.size(); i++) {
+                fields.put(header[i], values.get(i));
+            }
+            return new Row(recordLine, fields);
+        }
+
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c < 0) {
+                return null;
+            }
+            line++;
+            List<String> values = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (c >= 0) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int nextChar = reader.read();
+                        if (nextChar == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            values.add(field.toString());
+            return values;
+        }
+    }
+
+    /**
+     * Un objet JSON par ligne ; les lignes vides sont ignorées
+     */
+    private static final class Ndjson extends ProductImportReader {
+
+        private final ObjectMapper objectMapper;
+        private long line;
+
+        Ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+            super(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Row next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                if (text == null) {
+                    return null;
+                }
+                line++;
+            } while (text.isBlank());
+
+            Map<String, String> fields = new HashMap<>();
+            try {
+                JsonNode node = objectMapper.readTree(text);
+                Iterator<Map.Entry<String, JsonNode>> entries = node.fields();
+                while (entries.hasNext()) {
+                    Map.Entry<String, JsonNode> entry = entries.next();
+                    JsonNode value = entry.getValue();
+                    fields.put(entry.getKey().toLowerCase(Locale.ROOT), value.isNull() ? null : value.asText());
+                }
+            } catch (JsonProcessingException e) {
+                // Ligne illisible : rejetée à la validation, l'import continue
+                fields.put(ProductImportService.PARSE_ERROR_FIELD, e.getOriginalMessage());
+            }
+            return new Row(line, fields);
+        }
+    }
+}
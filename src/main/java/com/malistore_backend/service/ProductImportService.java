@@ -0,0 +1,484 @@
+package com.malistore_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.malistore_backend.data.entity.Category;
+import com.malistore_backend.data.repository.CategoryRepository;
+import com.malistore_backend.web.dto.product.ProductImportError;
+import com.malistore_backend.web.dto.product.ProductImportStatus;
+import com.malistore_backend.web.exception.BadRequestException;
+import com.malistore_backend.web.exception.ResourceNotFoundException;
+import com.malistore_backend.web.exception.ServiceUnavailableException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Import en masse de produits (CSV ou NDJSON), exécuté en tâche de fond.
+ *
+ * Le fichier est lu en flux par blocs de app.import.chunk-size lignes. Chaque bloc est validé
+ * en parallèle (catégories résolues par nom depuis une table chargée une fois par import),
+ * inséré par lots JDBC dans une table temporaire, puis fusionné dans products par
+ * INSERT ... ON CONFLICT (sku) DO UPDATE, en une transaction par bloc.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportService {
+
+    static final String PARSE_ERROR_FIELD = "__parse_error";
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String CREATE_STAGING_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS product_import_staging (" +
+            "sku VARCHAR(100), name VARCHAR(200), description VARCHAR(1000), price NUMERIC(10,2), " +
+            "stock INTEGER, category_id BIGINT, image_url VARCHAR(500), active BOOLEAN) ON COMMIT DELETE ROWS";
+
+    private static final String INSERT_STAGING_SQL =
+            "INSERT INTO product_import_staging (sku, name, description, price, stock, category_id, image_url, active) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // xmax = 0 : la ligne vient d'être insérée (sinon elle a été mise à jour) ;
+    // previous : prix avant la fusion des produits existants, pour repositionner les paniers
+    private static final String MERGE_SQL =
+            "WITH previous AS (SELECT p.sku, p.price FROM products p " +
+            "JOIN product_import_staging s ON s.sku = p.sku FOR UPDATE OF p) " +
+            "INSERT INTO products (sku, name, description, price, stock, category_id, image_url, active, created_at, updated_at) " +
+            "SELECT sku, name, description, price, stock, category_id, image_url, active, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP " +
+            "FROM product_import_staging " +
+            "ON CONFLICT (sku) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description, " +
+            "price = EXCLUDED.price, stock = EXCLUDED.stock, category_id = EXCLUDED.category_id, " +
+            "image_url = COALESCE(EXCLUDED.image_url, products.image_url), active = EXCLUDED.active, " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "RETURNING products.id, (xmax = 0) AS inserted, " +
+            "EXISTS (SELECT 1 FROM previous WHERE previous.sku = products.sku " +
+            "AND previous.price <> products.price) AS price_changed";
+
+    private static final int MAX_RETAINED_JOBS = 50;
+
+    private final CategoryRepository categoryRepository;
+    private final ProductCache productCache;
+    private final SecondLevelCacheInvalidator secondLevelCacheInvalidator;
+    private final ProductSearchCache productSearchCache;
+    private final CategorySnapshot categorySnapshot;
+    private final CartRepricingService cartRepricingService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.import.validation-threads:4}")
+    private int validationThreads;
+
+    @Value("${app.import.queue-capacity:4}")
+    private int queueCapacity;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor importExecutor;
+    private ForkJoinPool validationPool;
+    private TransactionTemplate writeTransaction;
+
+    @PostConstruct
+    public void init() {
+        importExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> new Thread(runnable, "product-import"));
+        validationPool = new ForkJoinPool(validationThreads);
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+        validationPool.shutdownNow();
+    }
+
+    /**
+     * Enregistre le fichier et met l'import en file
+     * @param format format explicite, sinon déduit de l'extension du fichier
+     */
+    public ProductImportStatus submit(MultipartFile file, Format format) {
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("Import file is required");
+        }
+        Format resolved = format != null ? format : formatFromFilename(file.getOriginalFilename());
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file.getOriginalFilename(), resolved);
+        try {
+            // Le fichier multipart est supprimé à la fin de la requête : copie pour la tâche de fond
+            job.path = Files.createTempFile("product-import-", "." + resolved.name().toLowerCase(Locale.ROOT));
+            file.transferTo(job.path);
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read import file: " + e.getMessage());
+        }
+
+        evictFinishedJobs();
+        jobs.put(job.id, job);
+        try {
+            importExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            deleteQuietly(job.path);
+            throw new ServiceUnavailableException("Too many product imports in progress, please retry later");
+        }
+        log.info("Product import {} queued: {} ({})", job.id, job.filename, resolved);
+        return job.toStatus(maxReportedErrors);
+    }
+
+    public ProductImportStatus getStatus(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import job not found: " + jobId);
+        }
+        return job.toStatus(maxReportedErrors);
+    }
+
+    public List<ProductImportStatus> getJobs() {
+        return jobs.values().stream()
+                .sorted((a, b) -> b.submittedAt.compareTo(a.submittedAt))
+                .map(job -> job.toStatus(0))
+                .toList();
+    }
+
+    private void run(ImportJob job) {
+        job.state = "RUNNING";
+        job.startedAt = LocalDateTime.now();
+        job.startNanos = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(job.path, StandardCharsets.UTF_8);
+             ProductImportReader rows = ProductImportReader.of(job.format, reader, objectMapper)) {
+            Map<String, Long> categoryIds = loadCategoryIds();
+
+            List<ProductImportReader.Row> chunk = new ArrayList<>(chunkSize);
+            ProductImportReader.Row row;
+            while ((row = rows.next()) != null) {
+                job.rowsRead.incrementAndGet();
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    processChunk(job, chunk, categoryIds);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(job, chunk, categoryIds);
+            }
+            job.state = "COMPLETED";
+        } catch (Exception e) {
+            log.error("Product import {} failed after {} rows: {}", job.id, job.rowsRead.get(), e.getMessage(), e);
+            job.failureMessage = e.getMessage();
+            job.state = "FAILED";
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            job.endNanos = System.nanoTime();
+            deleteQuietly(job.path);
+            log.info("Product import {} {}: {} read, {} inserted, {} updated, {} rejected ({} rows/s)",
+                    job.id, job.state, job.rowsRead.get(), job.rowsInserted.get(), job.rowsUpdated.get(),
+                    job.rowsRejected.get(), Math.round(job.rowsPerSecond()));
+        }
+    }
+
+    /**
+     * Table nom de catégorie (minuscules) → ID, construite une fois par import
+     */
+    private Map<String, Long> loadCategoryIds() {
+        Map<String, Long> categoryIds = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            categoryIds.put(category.getName().trim().toLowerCase(Locale.ROOT), category.getId());
+        }
+        return Collections.unmodifiableMap(categoryIds);
+    }
+
+    private void processChunk(ImportJob job, List<ProductImportReader.Row> chunk, Map<String, Long> categoryIds)
+            throws InterruptedException, ExecutionException {
+        List<Object> results = validationPool.submit(() -> chunk.parallelStream()
+                .map(row -> validate(row, categoryIds))
+                .toList()).get();
+
+        // Un même SKU ne peut être fusionné qu'une fois par instruction : la dernière ligne l'emporte
+        Map<String, StagedProduct> bySku = new LinkedHashMap<>();
+        for (Object result : results) {
+            if (result instanceof ProductImportError error) {
+                job.reject(error, maxReportedErrors);
+            } else {
+                StagedProduct product = (StagedProduct) result;
+                StagedProduct superseded = bySku.put(product.sku(), product);
+                if (superseded != null) {
+                    job.reject(new ProductImportError(superseded.line(), superseded.sku(),
+                            "Duplicate SKU, superseded by line " + product.line()), maxReportedErrors);
+                }
+            }
+        }
+        if (bySku.isEmpty()) {
+            return;
+        }
+
+        List<StagedProduct> products = new ArrayList<>(bySku.values());
+        List<MergedProduct> merged = writeTransaction.execute(status -> {
+            jdbcTemplate.execute(CREATE_STAGING_SQL);
+            jdbcTemplate.batchUpdate(INSERT_STAGING_SQL, products, products.size(), (ps, product) -> {
+                ps.setString(1, product.sku());
+                ps.setString(2, product.name());
+                ps.setString(3, product.description());
+                ps.setBigDecimal(4, product.price());
+                ps.setInt(5, product.stock());
+                ps.setLong(6, product.categoryId());
+                if (product.imageUrl() != null) {
+                    ps.setString(7, product.imageUrl());
+                } else {
+                    ps.setNull(7, Types.VARCHAR);
+                }
+                ps.setBoolean(8, product.active());
+            });
+            List<MergedProduct> rows = jdbcTemplate.query(MERGE_SQL, (rs, rowNum) -> new MergedProduct(
+                    rs.getLong("id"), rs.getBoolean("inserted"), rs.getBoolean("price_changed")));
+            // Les paniers contenant un produit dont le prix a changé sont remis au nouveau prix en tâche de fond
+            rows.stream()
+                    .filter(MergedProduct::priceChanged)
+                    .forEach(product -> cartRepricingService.requestAfterCommit(product.id()));
+            return rows;
+        });
+
+        long insertedCount = merged.stream().filter(MergedProduct::inserted).count();
+        job.rowsInserted.addAndGet(insertedCount);
+        job.rowsUpdated.addAndGet(merged.size() - insertedCount);
+
+        // Produits mis à jour : les caches sont vidés pour ce lot plutôt que produit par produit
+        // (écriture JDBC, invisible du cache de second niveau)
+        if (insertedCount < merged.size()) {
+            secondLevelCacheInvalidator.evictProducts();
+            productCache.invalidateAll();
+        }
+        // Nouveaux produits ou changements de catégorie : les compteurs du menu et les recherches changent
+        categorySnapshot.invalidate();
+        productSearchCache.invalidateAll();
+    }
+
+    /**
+     * @return un StagedProduct si la ligne est valide, sinon un ProductImportError
+     */
+    private Object validate(ProductImportReader.Row row, Map<String, Long> categoryIds) {
+        Map<String, String> fields = row.fields();
+        String sku = trimToNull(fields.get("sku"));
+        if (fields.containsKey(PARSE_ERROR_FIELD)) {
+            return new ProductImportError(row.line(), null, "Malformed row: " + fields.get(PARSE_ERROR_FIELD));
+        }
+
+        List<String> problems = new ArrayList<>();
+        if (sku == null) {
+            problems.add("sku is required");
+        } else if (sku.length() > 100) {
+            problems.add("sku must not exceed 100 characters");
+        }
+
+        String name = trimToNull(fields.get("name"));
+        if (name == null || name.length() < 2 || name.length() > 200) {
+            problems.add("name must be between 2 and 200 characters");
+        }
+
+        String description = trimToNull(fields.get("description"));
+        if (description != null && description.length() > 1000) {
+            problems.add("description must not exceed 1000 characters");
+        }
+
+        // Colonne absente, vide ou null (NDJSON) : valeur manquante
+        String priceText = trimToNull(fields.get("price"));
+        BigDecimal price = null;
+        if (priceText == null) {
+            problems.add("price is required");
+        } else {
+            try {
+                price = new BigDecimal(priceText);
+                if (price.signum() <= 0 || price.scale() > 2 || price.precision() - price.scale() > 8) {
+                    problems.add("price must be greater than 0 with at most 2 decimals");
+                }
+            } catch (NumberFormatException e) {
+                problems.add("price is not a number");
+            }
+        }
+
+        String stockText = trimToNull(fields.get("stock"));
+        Integer stock = null;
+        if (stockText == null) {
+            problems.add("stock is required");
+        } else {
+            try {
+                stock = Integer.valueOf(stockText);
+                if (stock < 0) {
+                    problems.add("stock must be 0 or greater");
+                }
+            } catch (NumberFormatException e) {
+                problems.add("stock is not an integer");
+            }
+        }
+
+        String categoryName = trimToNull(fields.get("category"));
+        Long categoryId = categoryName != null ? categoryIds.get(categoryName.toLowerCase(Locale.ROOT)) : null;
+        if (categoryId == null) {
+            problems.add(categoryName == null ? "category is required" : "unknown category: " + categoryName);
+        }
+
+        String imageUrl = trimToNull(fields.get("image_url"));
+        if (imageUrl != null && imageUrl.length() > 500) {
+            problems.add("image_url must not exceed 500 characters");
+        }
+
+        String active = trimToNull(fields.get("active"));
+        if (active != null && !active.equalsIgnoreCase("true") && !active.equalsIgnoreCase("false")) {
+            problems.add("active must be true or false");
+        }
+
+        if (!problems.isEmpty()) {
+            return new ProductImportError(row.line(), sku, String.join("; ", problems));
+        }
+        return new StagedProduct(row.line(), sku, name, description, price, stock, categoryId, imageUrl,
+                active == null || Boolean.parseBoolean(active));
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static Format formatFromFilename(String filename) {
+        String lower = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+        if (lower.endsWith(".csv")) {
+            return Format.CSV;
+        }
+        if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+            return Format.NDJSON;
+        }
+        throw new BadRequestException("Cannot infer import format from file name, use format=CSV or format=NDJSON");
+    }
+
+    private void evictFinishedJobs() {
+        if (jobs.size() < MAX_RETAINED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted((a, b) -> a.finishedAt.compareTo(b.finishedAt))
+                .limit(jobs.size() - MAX_RETAINED_JOBS + 1L)
+                .forEach(job -> jobs.remove(job.id));
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            if (path != null) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private record MergedProduct(long id, boolean inserted, boolean priceChanged) {
+    }
+
+    private record StagedProduct(long line, String sku, String name, String description, BigDecimal price,
+                                 int stock, Long categoryId, String imageUrl, boolean active) {
+    }
+
+    /**
+     * État d'un import, mis à jour par la tâche de fond et lu par les appels de suivi
+     */
+    private static final class ImportJob {
+        final String id;
+        final String filename;
+        final Format format;
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong rowsInserted = new AtomicLong();
+        final AtomicLong rowsUpdated = new AtomicLong();
+        final AtomicLong rowsRejected = new AtomicLong();
+        final List<ProductImportError> errors = Collections.synchronizedList(new ArrayList<>());
+        volatile String state = "QUEUED";
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        volatile long startNanos;
+        volatile long endNanos;
+        volatile String failureMessage;
+        Path path;
+
+        ImportJob(String id, String filename, Format format) {
+            this.id = id;
+            this.filename = filename;
+            this.format = format;
+        }
+
+        void reject(ProductImportError error, int maxReportedErrors) {
+            rowsRejected.incrementAndGet();
+            if (errors.size() < maxReportedErrors) {
+                errors.add(error);
+            }
+        }
+
+        double rowsPerSecond() {
+            if (startNanos == 0) {
+                return 0;
+            }
+            long elapsed = (endNanos != 0 ? endNanos : System.nanoTime()) - startNanos;
+            return elapsed > 0 ? rowsRead.get() * 1_000_000_000.0 / elapsed : 0;
+        }
+
+        ProductImportStatus toStatus(int errorLimit) {
+            List<ProductImportError> reported;
+            synchronized (errors) {
+                reported = List.copyOf(errors.subList(0, Math.min(errorLimit, errors.size())));
+            }
+            return ProductImportStatus.builder()
+                    .jobId(id)
+                    .filename(filename)
+                    .format(format.name())
+                    .state(state)
+                    .rowsRead(rowsRead.get())
+                    .rowsInserted(rowsInserted.get())
+                    .rowsUpdated(rowsUpdated.get())
+                    .rowsRejected(rowsRejected.get())
+                    .rowsPerSecond(Math.round(rowsPerSecond() * 10) / 10.0)
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .failureMessage(failureMessage)
+                    .errors(reported)
+                    .build();
+        }
+    }
+}
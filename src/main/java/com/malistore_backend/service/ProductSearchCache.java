@@ -0,0 +1,328 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.web.dto.cache.SearchCacheStatus;
+import com.malistore_backend.web.dto.cache.SearchShapeStatus;
+import com.malistore_backend.web.dto.product.ProductResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache local des résultats de recherche produits ({@link ProductService#searchProducts}),
+ * par recherche normalisée ({@link ProductSearchKey}).
+ *
+ * - une entrée ne garde que les IDs de la page et le nombre total de résultats ; les fiches
+ *   sont reprises de {@link ProductCache} à la lecture, les absentes rechargées par
+ *   {@link ProductService} (seul à alimenter le cache produits, sous contrôle des invalidations)
+ * - validité par compteurs de génération : une modification de produit incrémente la génération
+ *   de sa catégorie (et celle des recherches sans filtre de catégorie), un changement global
+ *   (import) celle du catalogue ; une entrée lue avec une génération dépassée est ignorée.
+ *   La génération est relevée avant la requête : un résultat chargé pendant une modification
+ *   n'est jamais servi
+ * - admission : seules les recherches vues au moins app.cache.search.admission-threshold fois
+ *   récemment sont mises en cache (fréquences estimées par un count-min sketch, divisées par deux
+ *   périodiquement pour oublier les anciennes recherches populaires)
+ * - seuls les tris sur name, price et createdAt sont mis en cache : le stock, modifié à chaque
+ *   commande, n'incrémente pas les générations
+ * - les incréments de génération sont propagés aux autres instances par {@link CacheInvalidationBus}
+ * - taux de succès par forme de recherche (filtres renseignés et tri), voir {@link #getStatus()}
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchCache {
+
+    public static final String CACHE_NAME = "product-search";
+
+    private static final Set<String> CACHEABLE_SORTS = Set.of("name", "price", "createdAt");
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int MAX_FREQUENCY = 15;
+
+    /**
+     * Générations en vigueur au moment de la lecture, à conserver avec le résultat
+     */
+    public record Generation(long catalog, long scope) {
+    }
+
+    /**
+     * Résultat en cache : IDs de la page, dans l'ordre, et nombre total de résultats
+     */
+    public record Hit(List<Long> productIds, long totalElements) {
+    }
+
+    private record Entry(Hit hit, Generation generation, long loadedAt) {
+    }
+
+    private static final class ShapeCounters {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong notAdmitted = new AtomicLong();
+        private final AtomicLong stale = new AtomicLong();
+    }
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${app.cache.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.search.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${app.cache.search.ttl-seconds:120}")
+    private long ttlSeconds;
+
+    @Value("${app.cache.search.admission-threshold:3}")
+    private int admissionThreshold;
+
+    private final Map<ProductSearchKey, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong catalogGeneration = new AtomicLong();
+    // Recherches sans filtre de catégorie : touchées par toute modification
+    private final AtomicLong unfilteredGeneration = new AtomicLong();
+    private final Map<Long, AtomicLong> categoryGenerations = new ConcurrentHashMap<>();
+    private final Map<String, ShapeCounters> shapes = new ConcurrentHashMap<>();
+
+    private int[][] sketch;
+    private int sketchMask;
+    private int sketchAdditions;
+    private int sketchResetAt;
+
+    @PostConstruct
+    public void init() {
+        int width = Integer.highestOneBit(Math.max(64, maxEntries * 4) - 1) << 1;
+        sketch = new int[SKETCH_DEPTH][width];
+        sketchMask = width - 1;
+        sketchResetAt = width * 10;
+        cacheInvalidationBus.register(CACHE_NAME, key -> bumpCategory(Long.valueOf(key)), this::bumpCatalog);
+    }
+
+    /**
+     * Résultat en cache et encore valide, null sinon ; la recherche est comptée pour l'admission
+     */
+    public Hit get(ProductSearchKey key) {
+        if (!isCacheable(key)) {
+            return null;
+        }
+        ShapeCounters counters = counters(key);
+        recordAccess(key);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            counters.misses.incrementAndGet();
+            return null;
+        }
+        if (!entry.generation().equals(currentGeneration(key)) || isExpired(entry)) {
+            entries.remove(key, entry);
+            counters.stale.incrementAndGet();
+            counters.misses.incrementAndGet();
+            return null;
+        }
+        counters.hits.incrementAndGet();
+        return entry.hit();
+    }
+
+    /**
+     * Générations à relever avant d'exécuter la recherche
+     */
+    public Generation currentGeneration(ProductSearchKey key) {
+        long scope = key.categoryId() != null ? categoryGeneration(key.categoryId()).get() : unfilteredGeneration.get();
+        return new Generation(catalogGeneration.get(), scope);
+    }
+
+    /**
+     * Met en cache les IDs de la page chargée si la recherche est assez fréquente
+     * @param generation générations relevées avant la requête
+     */
+    public void put(ProductSearchKey key, Generation generation, Page<ProductResponse> page) {
+        if (!isCacheable(key)) {
+            return;
+        }
+        if (estimateFrequency(key) < admissionThreshold) {
+            counters(key).notAdmitted.incrementAndGet();
+            return;
+        }
+        // Produit modifié pendant la requête : la page n'est pas gardée
+        if (!generation.equals(currentGeneration(key))) {
+            return;
+        }
+        List<Long> productIds = page.getContent().stream().map(ProductResponse::getId).toList();
+        entries.put(key, new Entry(new Hit(productIds, page.getTotalElements()), generation, System.nanoTime()));
+        if (entries.size() > maxEntries) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Un produit de la catégorie a été créé, modifié ou supprimé (catégorie d'avant et d'après
+     * pour un changement de catégorie) ; effet immédiat et rejoué après le commit
+     */
+    public void invalidateCategory(Long categoryId) {
+        if (categoryId == null) {
+            invalidateAll();
+            return;
+        }
+        bumpCategory(categoryId);
+        afterCommit(() -> bumpCategory(categoryId));
+        cacheInvalidationBus.publish(CACHE_NAME, categoryId.toString());
+    }
+
+    /**
+     * Modification du catalogue sans catégorie connue (import)
+     */
+    public void invalidateAll() {
+        bumpCatalog();
+        afterCommit(this::bumpCatalog);
+        cacheInvalidationBus.publish(CACHE_NAME, CacheInvalidationBus.ALL);
+    }
+
+    public SearchCacheStatus getStatus() {
+        List<SearchShapeStatus> shapeStatuses = shapes.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> toStatus(entry.getKey(), entry.getValue()))
+                .toList();
+        return SearchCacheStatus.builder()
+                .enabled(enabled)
+                .entries(entries.size())
+                .catalogGeneration(catalogGeneration.get())
+                .hits(shapeStatuses.stream().mapToLong(SearchShapeStatus::getHits).sum())
+                .misses(shapeStatuses.stream().mapToLong(SearchShapeStatus::getMisses).sum())
+                .shapes(shapeStatuses)
+                .build();
+    }
+
+    /**
+     * Forme d'une recherche : filtres renseignés et tri, ex. "term+category|price,desc"
+     */
+    static String shapeOf(ProductSearchKey key) {
+        StringBuilder shape = new StringBuilder();
+        if (key.searchTerm() != null) {
+            shape.append("term");
+        }
+        if (key.categoryId() != null) {
+            shape.append(shape.isEmpty() ? "" : "+").append("category");
+        }
+        if (key.minPrice() != null || key.maxPrice() != null) {
+            shape.append(shape.isEmpty() ? "" : "+").append("price");
+        }
+        if (shape.isEmpty()) {
+            shape.append("all");
+        }
+        return shape.append('|').append(key.sortBy()).append(',')
+                .append(key.direction().name().toLowerCase(Locale.ROOT)).toString();
+    }
+
+    private boolean isCacheable(ProductSearchKey key) {
+        return enabled && CACHEABLE_SORTS.contains(key.sortBy());
+    }
+
+    private ShapeCounters counters(ProductSearchKey key) {
+        return shapes.computeIfAbsent(shapeOf(key), shape -> new ShapeCounters());
+    }
+
+    private AtomicLong categoryGeneration(Long categoryId) {
+        return categoryGenerations.computeIfAbsent(categoryId, id -> new AtomicLong());
+    }
+
+    private void bumpCategory(Long categoryId) {
+        categoryGeneration(categoryId).incrementAndGet();
+        unfilteredGeneration.incrementAndGet();
+    }
+
+    private void bumpCatalog() {
+        catalogGeneration.incrementAndGet();
+        entries.clear();
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.nanoTime() - entry.loadedAt() > ttlSeconds * 1_000_000_000L;
+    }
+
+    private synchronized void recordAccess(ProductSearchKey key) {
+        int hash = key.hashCode();
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            int index = index(hash, row);
+            if (sketch[row][index] < MAX_FREQUENCY) {
+                sketch[row][index]++;
+            }
+        }
+        if (++sketchAdditions >= sketchResetAt) {
+            for (int[] counters : sketch) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>>= 1;
+                }
+            }
+            sketchAdditions /= 2;
+        }
+    }
+
+    private synchronized int estimateFrequency(ProductSearchKey key) {
+        int hash = key.hashCode();
+        int frequency = Integer.MAX_VALUE;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            frequency = Math.min(frequency, sketch[row][index(hash, row)]);
+        }
+        return frequency;
+    }
+
+    // Une fonction de hachage par ligne, dérivée du finaliseur de SplitMix64
+    private int index(int hash, int row) {
+        long z = hash * 0x9E3779B97F4A7C15L + (row + 1) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31)) & sketchMask;
+    }
+
+    /**
+     * Évince un dixième des entrées, les plus anciennes d'abord
+     */
+    private synchronized void evictOldest() {
+        int excess = entries.size() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        int toEvict = Math.max(excess, maxEntries / 10);
+        entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().loadedAt()))
+                .limit(toEvict)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(entries::remove);
+        log.debug("Search cache evicted {} entries", toEvict);
+    }
+
+    private static SearchShapeStatus toStatus(String shape, ShapeCounters counters) {
+        long hits = counters.hits.get();
+        long misses = counters.misses.get();
+        return SearchShapeStatus.builder()
+                .shape(shape)
+                .hits(hits)
+                .misses(misses)
+                .notAdmitted(counters.notAdmitted.get())
+                .stale(counters.stale.get())
+                .hitRate(hits + misses == 0 ? 0 : (double) hits / (hits + misses))
+                .build();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.web.dto.product.ProductSearchDto;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/**
+ * Recherche de produits normalisée : deux recherches qui produisent la même requête SQL
+ * ont la même clé (terme en minuscules, la requête compare en LOWER ; prix comparés par valeur ;
+ * tri effectif, le tri par défaut étant name ASC).
+ */
+public record ProductSearchKey(String searchTerm, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                               String sortBy, Sort.Direction direction, int page, int size) {
+
+    private static final String DEFAULT_SORT = "name";
+
+    public static ProductSearchKey of(ProductSearchDto searchDto) {
+        String searchTerm = searchDto.getSearchTerm();
+        // LIKE '%%' équivaut à l'absence de terme
+        if (searchTerm != null && searchTerm.isEmpty()) {
+            searchTerm = null;
+        }
+
+        String sortBy = DEFAULT_SORT;
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (searchDto.getSortBy() != null && searchDto.getSortDirection() != null) {
+            sortBy = searchDto.getSortBy();
+            direction = searchDto.getSortDirection().equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        }
+
+        return new ProductSearchKey(
+                searchTerm != null ? searchTerm.toLowerCase(Locale.ROOT) : null,
+                searchDto.getCategoryId(),
+                normalize(searchDto.getMinPrice()),
+                normalize(searchDto.getMaxPrice()),
+                sortBy,
+                direction,
+                searchDto.getPage() != null ? searchDto.getPage() : 0,
+                searchDto.getSize() != null ? searchDto.getSize() : 10);
+    }
+
+    public Pageable toPageable() {
+        return PageRequest.of(page, size, Sort.by(direction, sortBy));
+    }
+
+    // 10, 10.0 et 10.00 : même clé
+    private static BigDecimal normalize(BigDecimal price) {
+        return price != null ? price.stripTrailingZeros() : null;
+    }
+}
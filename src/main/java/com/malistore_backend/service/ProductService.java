@@ -1,27 +1,40 @@
 package com.malistore_backend.service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.malistore_backend.config.PrimaryReads;
 import com.malistore_backend.data.entity.Category;
 import com.malistore_backend.data.entity.Product;
 import com.malistore_backend.data.repository.CategoryRepository;
 import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.web.dto.product.ProductBatchResponse;
 import com.malistore_backend.web.dto.product.ProductCreateDto;
+import com.malistore_backend.web.dto.product.ProductImageDto;
 import com.malistore_backend.web.dto.product.ProductResponse;
 import com.malistore_backend.web.dto.product.ProductSearchDto;
 import com.malistore_backend.web.dto.product.ProductUpdateDto;
+import com.malistore_backend.web.exception.BadRequestException;
 import com.malistore_backend.web.exception.ResourceNotFoundException;
 import com.malistore_backend.web.mappers.ProductMapper;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,10 +44,29 @@ import lombok.extern.slf4j.Slf4j;
 @Transactional
 public class ProductService {
     
+    /** Nombre maximal d'IDs acceptés par une lecture groupée */
+    public static final int MAX_BATCH_SIZE = 200;
+    
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ProductMapper productMapper;
     private final ProductImageService productImageService;
+    private final ProductCache productCache;
+    private final CategorySnapshot categorySnapshot;
+    private final ProductSearchCache productSearchCache;
+    private final CartRepricingService cartRepricingService;
+    private final SingleFlightRegistry singleFlightRegistry;
+    private final PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate readOnlyTransaction;
+    private SingleFlight<ProductSearchKey, Page<ProductResponse>> searches;
+    
+    @PostConstruct
+    public void init() {
+        // Chargements destinés aux caches : lus sur le primaire, jamais sur un réplica en retard
+        readOnlyTransaction = PrimaryReads.readOnlyTransaction(transactionManager, "product-cache");
+        searches = singleFlightRegistry.create("product-search");
+    }
     
     /**
      * Crée un nouveau produit
@@ -49,6 +81,8 @@ public class ProductService {
         Product product = productMapper.toEntity(productCreateDto);
         product.setCategory(category);
         Product savedProduct = productRepository.save(product);
+        categorySnapshot.invalidate();
+        productSearchCache.invalidateCategory(category.getId());
         
         // Handle multiple images if provided
         if (productCreateDto.getImages() != null && !productCreateDto.getImages().isEmpty()) {
@@ -66,8 +100,7 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<ProductResponse> getAllProducts(Pageable pageable) {
         log.info("Fetching all products with pagination: page={}, size={}", pageable.getPageNumber(), pageable.getPageSize());
-        return productRepository.findByActiveTrue(pageable)
-                .map(productMapper::toResponse);
+        return toResponsePage(productRepository.findByActiveTrue(pageable));
     }
     
     /**
@@ -76,47 +109,135 @@ public class ProductService {
     @Transactional(readOnly = true)
     public List<ProductResponse> getAllActiveProducts() {
         log.info("Fetching all active products");
-        return productRepository.findByActiveTrue()
-                .stream()
-                .map(productMapper::toResponse)
-                .collect(Collectors.toList());
+        return toResponses(productRepository.findByActiveTrue());
     }
     
     /**
-     * Récupère un produit par son ID
+     * Récupère un produit par son ID.
+     * Hors transaction, les chargements concurrents d'un même produit sont regroupés :
+     * les appelants en attente ne retiennent pas de connexion, seul le chargement ouvre une transaction.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductResponse getProductById(Long id) {
         log.info("Fetching product with ID: {}", id);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return productCache.getOrLoad(id, () -> readOnlyTransaction.execute(status -> loadProduct(id)));
+        }
+        
+        // Appel depuis une écriture (createProduct) : lecture dans la transaction de l'appelant,
+        // non mise en cache tant qu'elle n'est pas validée
+        ProductResponse cached = productCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        return loadProduct(id);
+    }
+    
+    private ProductResponse loadProduct(Long id) {
+        // Produit, catégorie et images par le cache de second niveau ; trois requêtes à froid
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
         
-        ProductResponse response = productMapper.toResponse(product);
+        ProductResponse response = productMapper.toResponseWithoutImages(product);
         
         // Add images to response
-        response.setImages(productImageService.getProductImages(id));
-        
+        response.setImages(productImageService.toDtos(product.getImages()));
         return response;
     }
     
+    /**
+     * Récupère plusieurs produits par ID, dans l'ordre demandé.
+     * Les produits en cache sont servis directement ; les autres sont chargés
+     * en une requête (avec leur catégorie) plus une requête pour leurs images.
+     * Les IDs introuvables sont renvoyés à part sans faire échouer l'appel.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ProductBatchResponse getProductsByIds(List<Long> ids) {
+        // Dédoublonner en conservant l'ordre de la demande
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        if (requested.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("At most " + MAX_BATCH_SIZE + " product IDs can be requested at once");
+        }
+        log.info("Fetching {} products by ID", requested.size());
+        
+        Map<Long, ProductResponse> found = getCachedOrLoad(requested);
+        List<ProductResponse> result = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requested) {
+            ProductResponse response = found.get(id);
+            if (response != null) {
+                result.add(response);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new ProductBatchResponse(result, missingIds);
+    }
+    
+    /**
+     * Produits en cache, les autres chargés en une requête (avec leur catégorie) plus une pour leurs images.
+     * Hors transaction, le chargement est lu sur le primaire et mis en cache, sauf pour un produit
+     * invalidé pendant la requête ; dans la transaction de l'appelant, il n'est pas mis en cache.
+     * @return les produits trouvés, par ID
+     */
+    private Map<Long, ProductResponse> getCachedOrLoad(Collection<Long> ids) {
+        Map<Long, ProductResponse> found = productCache.getAll(ids);
+        List<Long> toLoad = ids.stream()
+                .filter(id -> !found.containsKey(id))
+                .toList();
+        if (toLoad.isEmpty()) {
+            return found;
+        }
+        
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            toResponses(productRepository.findWithCategoryByIdIn(toLoad))
+                    .forEach(response -> found.put(response.getId(), response));
+            return found;
+        }
+        ProductCache.LoadStamp stamp = productCache.stamp(toLoad);
+        List<ProductResponse> loaded = readOnlyTransaction.execute(
+                status -> toResponses(productRepository.findWithCategoryByIdIn(toLoad)));
+        for (ProductResponse response : loaded) {
+            productCache.putLoaded(stamp, response);
+            found.put(response.getId(), response);
+        }
+        return found;
+    }
+    
     /**
      * Met à jour un produit
      */
     public ProductResponse updateProduct(Long id, ProductUpdateDto productUpdateDto) {
         log.info("Updating product with ID: {}", id);
         
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findWithCategoryById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
         
+        Long previousCategoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        
         // Vérifier la catégorie si elle est fournie
         if (productUpdateDto.getCategoryId() != null) {
             Category category = categoryRepository.findById(productUpdateDto.getCategoryId())
                     .orElseThrow(() -> new ResourceNotFoundException("Category not found with ID: " + productUpdateDto.getCategoryId()));
+            if (product.getCategory() == null || !category.getId().equals(product.getCategory().getId())) {
+                // Le produit change de catégorie : les compteurs du menu changent
+                categorySnapshot.invalidate();
+                productSearchCache.invalidateCategory(category.getId());
+            }
             product.setCategory(category);
         }
         
+        BigDecimal previousPrice = product.getPrice();
         productMapper.updateEntity(productUpdateDto, product);
         Product updatedProduct = productRepository.save(product);
+        productCache.invalidate(id);
+        // Nom, prix ou statut : les recherches de la catégorie sont à refaire
+        productSearchCache.invalidateCategory(previousCategoryId);
+        if (previousPrice.compareTo(updatedProduct.getPrice()) != 0) {
+            // Les paniers contenant le produit sont remis au nouveau prix en tâche de fond
+            cartRepricingService.requestAfterCommit(id);
+        }
         
         log.info("Product updated successfully with ID: {}", updatedProduct.getId());
         return productMapper.toResponse(updatedProduct);
@@ -131,30 +252,62 @@ public class ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
         
+        Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
         productRepository.delete(product);
+        productCache.invalidate(id);
+        categorySnapshot.invalidate();
+        productSearchCache.invalidateCategory(categoryId);
         log.info("Product deleted successfully with ID: {}", id);
     }
     
     /**
-     * Recherche et filtre des produits
+     * Recherche et filtre des produits.
+     * Hors transaction, les recherches fréquentes sont servies par {@link ProductSearchCache}
+     * (IDs de la page, fiches reprises du cache produits ou rechargées) et les recherches identiques
+     * (même {@link ProductSearchKey}) en cours au même moment sont regroupées en une seule requête.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Page<ProductResponse> searchProducts(ProductSearchDto searchDto) {
         log.info("Searching products with filters: {}", searchDto);
+        ProductSearchKey key = ProductSearchKey.of(searchDto);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return findProducts(key);
+        }
         
-        // Créer le Pageable avec tri
-        Pageable pageable = createPageable(searchDto);
+        ProductSearchCache.Hit hit = productSearchCache.get(key);
+        if (hit != null) {
+            return hydrate(key, hit);
+        }
+        ProductSearchCache.Generation generation = productSearchCache.currentGeneration(key);
+        return searches.load(key, () -> readOnlyTransaction.execute(status -> findProducts(key)),
+                page -> productSearchCache.put(key, generation, page));
+    }
+    
+    /**
+     * Reconstitue une page en cache : fiches du cache produits, les absentes chargées en une fois
+     */
+    private Page<ProductResponse> hydrate(ProductSearchKey key, ProductSearchCache.Hit hit) {
+        Map<Long, ProductResponse> found = getCachedOrLoad(hit.productIds());
         
+        // Un produit supprimé depuis a aussi changé la génération : l'entrée ne sera plus servie
+        List<ProductResponse> content = hit.productIds().stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, key.toPageable(), hit.totalElements());
+    }
+    
+    private Page<ProductResponse> findProducts(ProductSearchKey key) {
         // Utiliser la méthode de recherche avancée
         Page<Product> products = productRepository.findProductsWithFilters(
-                searchDto.getSearchTerm(),
-                searchDto.getCategoryId(),
-                searchDto.getMinPrice(),
-                searchDto.getMaxPrice(),
-                pageable
+                key.searchTerm(),
+                key.categoryId(),
+                key.minPrice(),
+                key.maxPrice(),
+                key.toPageable()
         );
         
-        return products.map(productMapper::toResponse);
+        return toResponsePage(products);
     }
     
     /**
@@ -163,8 +316,7 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<ProductResponse> searchProductsByTerm(String searchTerm, Pageable pageable) {
         log.info("Searching products with term: {}", searchTerm);
-        return productRepository.findByNameContainingIgnoreCaseAndActiveTrue(searchTerm, pageable)
-                .map(productMapper::toResponse);
+        return toResponsePage(productRepository.findByNameContainingIgnoreCaseAndActiveTrue(searchTerm, pageable));
     }
     
     /**
@@ -173,8 +325,7 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<ProductResponse> getProductsByCategory(Long categoryId, Pageable pageable) {
         log.info("Fetching products for category ID: {}", categoryId);
-        return productRepository.findByCategoryIdAndActiveTrue(categoryId, pageable)
-                .map(productMapper::toResponse);
+        return toResponsePage(productRepository.findByCategoryIdAndActiveTrue(categoryId, pageable));
     }
     
     /**
@@ -183,8 +334,7 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<ProductResponse> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
         log.info("Fetching products with price range: {} - {}", minPrice, maxPrice);
-        return productRepository.findByPriceBetweenAndActiveTrue(minPrice, maxPrice, pageable)
-                .map(productMapper::toResponse);
+        return toResponsePage(productRepository.findByPriceBetweenAndActiveTrue(minPrice, maxPrice, pageable));
     }
     
     /**
@@ -193,8 +343,7 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<ProductResponse> getOutOfStockProducts(Integer stockThreshold, Pageable pageable) {
         log.info("Fetching out of stock products with threshold: {}", stockThreshold);
-        return productRepository.findByStockLessThanAndActiveTrue(stockThreshold, pageable)
-                .map(productMapper::toResponse);
+        return toResponsePage(productRepository.findByStockLessThanAndActiveTrue(stockThreshold, pageable));
     }
     
     /**
@@ -203,11 +352,13 @@ public class ProductService {
     public ProductResponse toggleProductStatus(Long id) {
         log.info("Toggling product status with ID: {}", id);
         
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findWithCategoryById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
         
         product.setActive(!product.getActive());
         Product updatedProduct = productRepository.save(product);
+        productCache.invalidate(id);
+        productSearchCache.invalidateCategory(product.getCategory() != null ? product.getCategory().getId() : null);
         
         log.info("Product status toggled successfully. New status: {}", updatedProduct.getActive());
         return productMapper.toResponse(updatedProduct);
@@ -219,29 +370,37 @@ public class ProductService {
     public ProductResponse updateProductStock(Long id, Integer newStock) {
         log.info("Updating product stock for ID: {} to {}", id, newStock);
         
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findWithCategoryById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
         
         product.setStock(newStock);
         Product updatedProduct = productRepository.save(product);
+        productCache.invalidate(id);
         
         log.info("Product stock updated successfully for ID: {}", id);
         return productMapper.toResponse(updatedProduct);
     }
     
     /**
-     * Crée un Pageable avec tri basé sur les critères de recherche
+     * Convertit une liste de produits (catégorie déjà chargée) en réponses,
+     * avec les images de tous les produits chargées en une seule requête
      */
-    private Pageable createPageable(ProductSearchDto searchDto) {
-        Sort sort = Sort.by(Sort.Direction.ASC, "name"); // Tri par défaut
-        
-        if (searchDto.getSortBy() != null && searchDto.getSortDirection() != null) {
-            Sort.Direction direction = searchDto.getSortDirection().equalsIgnoreCase("desc") 
-                    ? Sort.Direction.DESC 
-                    : Sort.Direction.ASC;
-            sort = Sort.by(direction, searchDto.getSortBy());
+    private List<ProductResponse> toResponses(List<Product> products) {
+        if (products.isEmpty()) {
+            return List.of();
         }
-        
-        return PageRequest.of(searchDto.getPage(), searchDto.getSize(), sort);
+        Map<Long, List<ProductImageDto>> images = productImageService.getImagesByProductIds(
+                products.stream().map(Product::getId).toList());
+        List<ProductResponse> responses = new ArrayList<>(products.size());
+        for (Product product : products) {
+            ProductResponse response = productMapper.toResponseWithoutImages(product);
+            response.setImages(images.getOrDefault(product.getId(), List.of()));
+            responses.add(response);
+        }
+        return responses;
+    }
+    
+    private Page<ProductResponse> toResponsePage(Page<Product> products) {
+        return new PageImpl<>(toResponses(products.getContent()), products.getPageable(), products.getTotalElements());
     }
 }
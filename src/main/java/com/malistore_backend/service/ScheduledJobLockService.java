@@ -0,0 +1,52 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.data.repository.ScheduledJobLockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Verrous des tâches planifiées, partagés par toutes les instances via la base :
+ * une tâche n'est exécutée que par l'instance qui détient son verrou.
+ * Un verrou non libéré (instance arrêtée brutalement) expire après sa durée de vie.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledJobLockService {
+
+    private final ScheduledJobLockRepository scheduledJobLockRepository;
+    private final NodeIdLeaseService nodeIdLeaseService;
+
+    /**
+     * Prend le verrou de la tâche pour ttlSeconds
+     * @return false si une autre instance le détient
+     */
+    public boolean tryAcquire(String jobName, int ttlSeconds) {
+        boolean acquired = scheduledJobLockRepository.acquire(jobName, owner(), ttlSeconds).isPresent();
+        if (!acquired) {
+            log.debug("Job {} is locked by another instance", jobName);
+        }
+        return acquired;
+    }
+
+    /**
+     * Prolonge le verrou de la tâche pendant une exécution longue
+     * @return false si le verrou a été perdu (expiré puis pris par une autre instance)
+     */
+    public boolean renew(String jobName, int ttlSeconds) {
+        boolean renewed = scheduledJobLockRepository.renew(jobName, owner(), ttlSeconds) == 1;
+        if (!renewed) {
+            log.warn("Lock of job {} lost", jobName);
+        }
+        return renewed;
+    }
+
+    public void release(String jobName) {
+        scheduledJobLockRepository.release(jobName, owner());
+    }
+
+    private String owner() {
+        return nodeIdLeaseService.getInstanceId();
+    }
+}
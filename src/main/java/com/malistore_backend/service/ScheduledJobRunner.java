@@ -0,0 +1,261 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.data.repository.NodeLeaseRepository;
+import com.malistore_backend.web.dto.scheduler.ScheduledJobStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exécution des tâches planifiées de l'application (déclenchées par {@link ScheduledJobs}).
+ *
+ * - chaque tâche a son propre exécuteur d'un seul thread, sans file : un déclenchement qui trouve
+ *   la tâche encore en cours est ignoré et compté comme dépassement
+ * - une tâche "sur un seul nœud" n'est lancée que par le nœud qui lui est attribué par hachage
+ *   parmi les nœuds dont le bail est en cours (node_leases), puis sous son verrou en base
+ *   (scheduled_job_locks), renouvelé pendant l'exécution ; pendant un changement de membres,
+ *   deux nœuds peuvent se croire attribués, le verrou garantit une seule exécution
+ * - durée, retard au démarrage et dépassements sont mesurés par tâche
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledJobRunner {
+
+    private final NodeIdLeaseService nodeIdLeaseService;
+    private final NodeLeaseRepository nodeLeaseRepository;
+    private final ScheduledJobLockService scheduledJobLockService;
+
+    @Value("${app.scheduler.lease-seconds:60}")
+    private int leaseSeconds;
+
+    @Value("${app.scheduler.shutdown-timeout-seconds:10}")
+    private int shutdownTimeoutSeconds;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private ScheduledExecutorService leaseRenewer;
+
+    @PostConstruct
+    public void init() {
+        leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "job-lease-renewer"));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        jobs.values().forEach(job -> job.executor.shutdown());
+        for (Job job : jobs.values()) {
+            if (!job.executor.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                log.warn("Job {} still running at shutdown", job.name);
+            }
+        }
+        leaseRenewer.shutdownNow();
+    }
+
+    /**
+     * Lance la tâche sur cette instance (état ou file propres à chaque nœud)
+     */
+    public void runOnEveryNode(String name, Runnable task) {
+        submit(job(name, false), task);
+    }
+
+    /**
+     * Lance la tâche si elle est attribuée à ce nœud et que son verrou est libre
+     */
+    public void runOnOneNode(String name, Runnable task) {
+        Job job = job(name, true);
+        if (!isAssigned(name)) {
+            job.skippedNotAssigned.incrementAndGet();
+            return;
+        }
+        submit(job, task);
+    }
+
+    /**
+     * Indique qu'une tâche en cours a perdu son verrou (renouvellement impossible) :
+     * les tâches longues s'arrêtent à la prochaine étape
+     */
+    public boolean isLeaseLost(String name) {
+        Job job = jobs.get(name);
+        return job != null && job.leaseLost;
+    }
+
+    /**
+     * Métriques des tâches déclenchées depuis le démarrage, par nom
+     */
+    public List<ScheduledJobStatus> getStatuses() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(job -> job.name))
+                .map(Job::toStatus)
+                .toList();
+    }
+
+    private Job job(String name, boolean singleNode) {
+        return jobs.computeIfAbsent(name, key -> new Job(key, singleNode));
+    }
+
+    private void submit(Job job, Runnable task) {
+        long triggeredAt = System.nanoTime();
+        try {
+            job.executor.execute(() -> execute(job, task, triggeredAt));
+        } catch (RejectedExecutionException e) {
+            job.overruns.incrementAndGet();
+            log.warn("Job {} still running, trigger skipped", job.name);
+        }
+    }
+
+    private void execute(Job job, Runnable task, long triggeredAt) {
+        long start = System.nanoTime();
+        job.lastLagMs = TimeUnit.NANOSECONDS.toMillis(start - triggeredAt);
+        job.maxLagMs = Math.max(job.maxLagMs, job.lastLagMs);
+
+        ScheduledFuture<?> renewal = null;
+        try {
+            if (job.singleNode) {
+                if (!scheduledJobLockService.tryAcquire(job.name, leaseSeconds)) {
+                    job.skippedLocked.incrementAndGet();
+                    return;
+                }
+                job.leaseLost = false;
+                long renewSeconds = Math.max(1, leaseSeconds / 3);
+                renewal = leaseRenewer.scheduleAtFixedRate(() -> renewLease(job), renewSeconds, renewSeconds,
+                        TimeUnit.SECONDS);
+            }
+            job.running = true;
+            job.lastStartedAt = LocalDateTime.now();
+            task.run();
+            job.runs.incrementAndGet();
+        } catch (RuntimeException e) {
+            job.failures.incrementAndGet();
+            log.error("Job {} failed: {}", job.name, e.getMessage(), e);
+        } finally {
+            if (job.running) {
+                job.running = false;
+                job.lastFinishedAt = LocalDateTime.now();
+                job.lastDurationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                job.maxDurationMs = Math.max(job.maxDurationMs, job.lastDurationMs);
+            }
+            if (renewal != null) {
+                renewal.cancel(false);
+                release(job);
+            }
+        }
+    }
+
+    private void renewLease(Job job) {
+        try {
+            if (!scheduledJobLockService.renew(job.name, leaseSeconds)) {
+                job.leaseLost = true;
+            }
+        } catch (RuntimeException e) {
+            log.error("Error renewing lock of job {}: {}", job.name, e.getMessage(), e);
+        }
+    }
+
+    private void release(Job job) {
+        try {
+            scheduledJobLockService.release(job.name);
+        } catch (RuntimeException e) {
+            log.warn("Error releasing lock of job {}, it will expire: {}", job.name, e.getMessage());
+        }
+    }
+
+    private boolean isAssigned(String name) {
+        try {
+            int nodeId = nodeIdLeaseService.currentNodeId();
+            return assignedNode(name, nodeLeaseRepository.findActiveNodeIds()) == nodeId;
+        } catch (RuntimeException e) {
+            log.warn("Cannot resolve node assignment of job {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Hachage de rendez-vous : la tâche revient au nœud de plus grand poids ; l'arrivée ou le départ
+     * d'un nœud ne déplace que les tâches qu'il gagne ou perd
+     * @return -1 si aucun nœud n'est actif
+     */
+    static int assignedNode(String name, List<Integer> nodeIds) {
+        int assigned = -1;
+        long bestWeight = Long.MIN_VALUE;
+        for (int nodeId : nodeIds) {
+            long weight = mix(name.hashCode() * 0x9E3779B97F4A7C15L + nodeId);
+            if (assigned < 0 || weight > bestWeight) {
+                assigned = nodeId;
+                bestWeight = weight;
+            }
+        }
+        return assigned;
+    }
+
+    // Finaliseur de SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Job {
+
+        private final String name;
+        private final boolean singleNode;
+        private final ThreadPoolExecutor executor;
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong overruns = new AtomicLong();
+        private final AtomicLong skippedNotAssigned = new AtomicLong();
+        private final AtomicLong skippedLocked = new AtomicLong();
+        // Écrits par le seul thread de la tâche
+        private volatile boolean running;
+        private volatile boolean leaseLost;
+        private volatile long lastDurationMs;
+        private volatile long maxDurationMs;
+        private volatile long lastLagMs;
+        private volatile long maxLagMs;
+        private volatile LocalDateTime lastStartedAt;
+        private volatile LocalDateTime lastFinishedAt;
+
+        private Job(String name, boolean singleNode) {
+            this.name = name;
+            this.singleNode = singleNode;
+            String threadName = "job-" + name;
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new SynchronousQueue<>(), runnable -> new Thread(runnable, threadName));
+        }
+
+        private ScheduledJobStatus toStatus() {
+            return ScheduledJobStatus.builder()
+                    .name(name)
+                    .singleNode(singleNode)
+                    .running(running)
+                    .runs(runs.get())
+                    .failures(failures.get())
+                    .overruns(overruns.get())
+                    .skippedNotAssigned(skippedNotAssigned.get())
+                    .skippedLocked(skippedLocked.get())
+                    .lastDurationMs(lastDurationMs)
+                    .maxDurationMs(maxDurationMs)
+                    .lastLagMs(lastLagMs)
+                    .maxLagMs(maxLagMs)
+                    .lastStartedAt(lastStartedAt)
+                    .lastFinishedAt(lastFinishedAt)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.malistore_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Déclencheurs des tâches planifiées de l'application, exécutées par {@link ScheduledJobRunner}.
+ *
+ * Les déclencheurs rendent la main immédiatement : le thread du planificateur Spring n'est jamais
+ * bloqué par une tâche lente. Les tâches internes courtes (bail de nœud, réplica, menu des catégories)
+ * restent planifiées directement sur leur composant.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScheduledJobs {
+
+    public static final String STOCK_ALERT = "stock-alert";
+    public static final String PASSWORD_RESET_CLEANUP = "password-reset-cleanup";
+    public static final String CART_PURGE = CartPurgeService.JOB_NAME;
+    public static final String CART_WRITE_BEHIND_FLUSH = "cart-write-behind-flush";
+    public static final String CART_REPRICING = "cart-repricing";
+    public static final String WEBHOOK_SWEEP = "stripe-webhook-sweep";
+    public static final String OUTBOX_POLL = "outbox-poll";
+    public static final String OUTBOX_CLEANUP = "outbox-cleanup";
+
+    private final ScheduledJobRunner runner;
+    private final StockAlertService stockAlertService;
+    private final PasswordResetService passwordResetService;
+    private final CartPurgeService cartPurgeService;
+    private final WriteBehindCartStore writeBehindCartStore;
+    private final CartRepricingService cartRepricingService;
+    private final StripeWebhookEventProcessor stripeWebhookEventProcessor;
+    private final OutboxDispatcher outboxDispatcher;
+
+    // Tâches sur un seul nœud
+
+    @Scheduled(fixedRateString = "${app.scheduler.jobs.stock-alert.interval-ms:3600000}")
+    public void stockAlert() {
+        runner.runOnOneNode(STOCK_ALERT, stockAlertService::checkLowStockAndSendAlerts);
+    }
+
+    @Scheduled(cron = "${app.scheduler.jobs.password-reset-cleanup.cron:0 15 * * * *}")
+    public void passwordResetCleanup() {
+        runner.runOnOneNode(PASSWORD_RESET_CLEANUP, passwordResetService::cleanupExpiredTokens);
+    }
+
+    @Scheduled(cron = "${app.cart.purge.cron:0 30 3 * * *}")
+    public void cartPurge() {
+        runner.runOnOneNode(CART_PURGE, cartPurgeService::run);
+    }
+
+    @Scheduled(cron = "${app.outbox.cleanup-cron:0 45 3 * * *}")
+    public void outboxCleanup() {
+        runner.runOnOneNode(OUTBOX_CLEANUP, outboxDispatcher::purgeProcessed);
+    }
+
+    // Tâches sur chaque nœud (état ou file propres à l'instance)
+
+    @Scheduled(fixedDelayString = "${app.cart.write-behind.max-staleness-ms:2000}")
+    public void cartWriteBehindFlush() {
+        if (writeBehindCartStore.isEnabled()) {
+            runner.runOnEveryNode(CART_WRITE_BEHIND_FLUSH, writeBehindCartStore::flush);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.repricing.interval-ms:5000}")
+    public void cartRepricing() {
+        runner.runOnEveryNode(CART_REPRICING, cartRepricingService::runPending);
+    }
+
+    @Scheduled(fixedDelayString = "${app.webhook.sweep-interval-ms:30000}")
+    public void webhookSweep() {
+        runner.runOnEveryNode(WEBHOOK_SWEEP, stripeWebhookEventProcessor::sweep);
+    }
+
+    // Chaque nœud réserve sa part des événements (SKIP LOCKED)
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void outboxPoll() {
+        runner.runOnEveryNode(OUTBOX_POLL, outboxDispatcher::poll);
+    }
+}
@@ -0,0 +1,70 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.data.entity.Category;
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.entity.ProductImage;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Éviction du cache de second niveau Hibernate (catalogue : catégories, produits, images).
+ *
+ * - les écritures faites par Hibernate sur cette instance tiennent le cache à jour d'elles-mêmes
+ * - les écritures des autres instances arrivent par {@link CacheInvalidationBus}, sous les noms
+ *   déjà publiés par {@link ProductCache} et {@link CategorySnapshot}
+ * - les écritures JDBC (import de produits) doivent appeler {@link #evictProducts()}
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SecondLevelCacheInvalidator {
+
+    public static final String ACTIVE_CATEGORIES_REGION = "query.categories.active";
+
+    private static final String PRODUCT_IMAGES_ROLE = Product.class.getName() + ".images";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private Cache cache;
+
+    @PostConstruct
+    public void init() {
+        cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cacheInvalidationBus.register(ProductCache.CACHE_NAME, key -> evictProduct(Long.valueOf(key)), this::evictProducts);
+        cacheInvalidationBus.register(CategorySnapshot.CACHE_NAME, key -> evictCategories(), this::evictCategories);
+    }
+
+    /**
+     * Évince un produit et la collection de ses images (les images elles-mêmes expirent par TTL)
+     */
+    public void evictProduct(Long productId) {
+        cache.evictEntityData(Product.class, productId);
+        cache.evictCollectionData(PRODUCT_IMAGES_ROLE, productId);
+    }
+
+    /**
+     * Vide les régions des produits et de leurs images
+     */
+    public void evictProducts() {
+        cache.evictEntityData(Product.class);
+        cache.evictEntityData(ProductImage.class);
+        cache.evictCollectionData(PRODUCT_IMAGES_ROLE);
+        log.debug("Second-level cache: product regions evicted");
+    }
+
+    /**
+     * Vide la région des catégories et le résultat en cache de la liste des catégories actives
+     */
+    public void evictCategories() {
+        cache.evictEntityData(Category.class);
+        cache.evictQueryRegion(ACTIVE_CATEGORIES_REGION);
+        log.debug("Second-level cache: category regions evicted");
+    }
+}
@@ -0,0 +1,164 @@
+package com.malistore_backend.service;
+
+import com.google.gson.JsonObject;
+import com.malistore_backend.web.exception.ServiceUnavailableException;
+import com.stripe.Stripe;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fournisseur de paiement simulé, sans réseau, pour le développement et les tests de charge.
+ *
+ * - la latence de création de session suit une loi log-normale (médiane et p99 configurables)
+ * - une fraction configurable des appels échoue comme un fournisseur indisponible
+ * - si l'émission de webhooks est activée, un événement au format Stripe
+ *   (checkout.session.completed ou payment_intent.payment_failed) est injecté
+ *   de manière asynchrone dans la boîte de réception des webhooks
+ */
+@Component
+@ConditionalOnProperty(name = "app.payment.provider", havingValue = "simulated", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class SimulatedPaymentProvider implements PaymentProvider {
+
+    /** Quantile 0,99 de la loi normale centrée réduite */
+    private static final double Z_99 = 2.326;
+
+    // Résolu à la demande : le service de webhooks dépend lui-même de PaymentService
+    private final ObjectProvider<StripeWebhookService> stripeWebhookService;
+
+    @Value("${app.payment.simulated.latency-median-ms:80}")
+    private double latencyMedianMs;
+
+    @Value("${app.payment.simulated.latency-p99-ms:400}")
+    private double latencyP99Ms;
+
+    @Value("${app.payment.simulated.failure-rate:0.0}")
+    private double failureRate;
+
+    @Value("${app.payment.simulated.webhook.enabled:false}")
+    private boolean webhookEnabled;
+
+    @Value("${app.payment.simulated.webhook.delay-ms:1000}")
+    private long webhookDelayMs;
+
+    @Value("${app.payment.simulated.webhook.decline-rate:0.0}")
+    private double declineRate;
+
+    @Value("${app.payment.simulated.webhook.threads:2}")
+    private int webhookThreads;
+
+    // Préfixe propre à chaque démarrage : les IDs restent uniques en base après un redémarrage
+    private final String instancePrefix = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private ScheduledExecutorService webhookScheduler;
+    private double latencySigma;
+
+    @PostConstruct
+    public void init() {
+        latencySigma = latencyP99Ms > latencyMedianMs ? Math.log(latencyP99Ms / latencyMedianMs) / Z_99 : 0;
+        webhookScheduler = Executors.newScheduledThreadPool(webhookThreads,
+                runnable -> new Thread(runnable, "simulated-payment-webhook"));
+        log.warn("Simulated payment provider active (median {} ms, p99 {} ms, failure rate {}, webhooks {})",
+                latencyMedianMs, latencyP99Ms, failureRate, webhookEnabled);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        webhookScheduler.shutdownNow();
+    }
+
+    @Override
+    public String getName() {
+        return "simulated";
+    }
+
+    @Override
+    public ProviderSession createCheckoutSession(CheckoutRequest checkout) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        sleep(sampleLatencyMs(random));
+
+        if (random.nextDouble() < failureRate) {
+            log.warn("Simulated provider failure for order {}", checkout.orderNumber());
+            throw new ServiceUnavailableException("Simulated payment provider failure");
+        }
+
+        long id = sequence.incrementAndGet();
+        String sessionId = "mock_session_" + instancePrefix + "_" + id;
+        String paymentIntentId = "mock_pi_" + instancePrefix + "_" + id;
+
+        if (webhookEnabled) {
+            boolean declined = random.nextDouble() < declineRate;
+            webhookScheduler.schedule(() -> emitWebhook(sessionId, paymentIntentId, declined),
+                    webhookDelayMs, TimeUnit.MILLISECONDS);
+        }
+
+        return new ProviderSession(sessionId, "https://checkout.stripe.com/mock/" + sessionId, paymentIntentId);
+    }
+
+    private long sampleLatencyMs(ThreadLocalRandom random) {
+        return Math.round(latencyMedianMs * Math.exp(latencySigma * random.nextGaussian()));
+    }
+
+    /**
+     * Injecte dans la boîte de réception un événement au format Stripe
+     */
+    private void emitWebhook(String sessionId, String paymentIntentId, boolean declined) {
+        try {
+            JsonObject object = new JsonObject();
+            String type;
+            if (declined) {
+                type = "payment_intent.payment_failed";
+                object.addProperty("id", paymentIntentId);
+                object.addProperty("object", "payment_intent");
+                JsonObject error = new JsonObject();
+                error.addProperty("message", "Simulated card decline");
+                object.add("last_payment_error", error);
+            } else {
+                type = "checkout.session.completed";
+                object.addProperty("id", sessionId);
+                object.addProperty("object", "checkout.session");
+                object.addProperty("payment_intent", paymentIntentId);
+            }
+
+            JsonObject data = new JsonObject();
+            data.add("object", object);
+
+            JsonObject event = new JsonObject();
+            event.addProperty("id", "evt_sim_" + instancePrefix + "_" + sequence.incrementAndGet());
+            event.addProperty("object", "event");
+            event.addProperty("type", type);
+            event.addProperty("api_version", Stripe.API_VERSION);
+            event.addProperty("created", Instant.now().getEpochSecond());
+            event.add("data", data);
+
+            stripeWebhookService.getObject().ingestRecordedEvent(event.toString());
+        } catch (Exception e) {
+            log.error("Error emitting simulated webhook for session {}: {}", sessionId, e.getMessage(), e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
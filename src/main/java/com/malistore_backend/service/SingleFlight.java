@@ -0,0 +1,176 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.web.dto.cache.CacheLoaderStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Regroupement des chargements concurrents d'une même clé : le premier appelant charge,
+ * les suivants attendent le même CompletableFuture au lieu d'interroger la base à leur tour.
+ *
+ * - une erreur du chargement est renvoyée à tous les appelants regroupés
+ * - un appelant qui attend plus de wait-timeout-ms charge lui-même (chargement bloqué)
+ * - {@link #forget} détache le chargement en cours d'une clé invalidée : les appelants suivants
+ *   lancent un nouveau chargement, et le résultat détaché n'est pas mis en cache
+ * - {@link #refreshInBackground} recharge une clé périmée sur l'exécuteur de rafraîchissement
+ *   (stale-while-revalidate), au plus une fois à la fois
+ *
+ * Instances créées par {@link SingleFlightRegistry}.
+ */
+@Slf4j
+public final class SingleFlight<K, V> {
+
+    private final String name;
+    private final long waitTimeoutMs;
+    private final Executor refreshExecutor;
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong waitTimeouts = new AtomicLong();
+    private final AtomicLong staleServed = new AtomicLong();
+    private final AtomicLong backgroundRefreshes = new AtomicLong();
+    private final AtomicLong refreshesRejected = new AtomicLong();
+
+    SingleFlight(String name, long waitTimeoutMs, Executor refreshExecutor) {
+        this.name = name;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        return load(key, loader, value -> { });
+    }
+
+    /**
+     * Charge la clé, ou attend le chargement déjà en cours
+     * @param store mise en cache du résultat, appelée par le seul appelant qui a chargé,
+     *              sauf si la clé a été oubliée entre-temps
+     */
+    public V load(K key, Supplier<V> loader, Consumer<V> store) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing, loader);
+        }
+        return run(key, flight, loader, store);
+    }
+
+    /**
+     * Sert une valeur périmée et lance son rechargement en arrière-plan, sauf s'il est déjà en cours
+     */
+    public V refreshInBackground(K key, V stale, Supplier<V> loader, Consumer<V> store) {
+        staleServed.incrementAndGet();
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, flight) != null) {
+            return stale;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    run(key, flight, loader, store);
+                } catch (RuntimeException e) {
+                    log.warn("Background refresh of {} key {} failed: {}", name, key, e.getMessage());
+                }
+            });
+            backgroundRefreshes.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            // File de rafraîchissement pleine : un prochain appel retentera
+            refreshesRejected.incrementAndGet();
+            inFlight.remove(key, flight);
+            flight.complete(stale);
+        }
+        return stale;
+    }
+
+    /**
+     * Détache le chargement en cours de la clé (invalidation)
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Compteurs depuis le démarrage
+     */
+    public CacheLoaderStatus toStatus() {
+        return CacheLoaderStatus.builder()
+                .name(name)
+                .loads(loads.get())
+                .coalesced(coalesced.get())
+                .failures(failures.get())
+                .waitTimeouts(waitTimeouts.get())
+                .staleServed(staleServed.get())
+                .backgroundRefreshes(backgroundRefreshes.get())
+                .refreshesRejected(refreshesRejected.get())
+                .inFlight(inFlight.size())
+                .build();
+    }
+
+    private V run(K key, CompletableFuture<V> flight, Supplier<V> loader, Consumer<V> store) {
+        loads.incrementAndGet();
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            failures.incrementAndGet();
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        // Mise en cache et fin du chargement atomiques vis-à-vis de forget()
+        inFlight.compute(key, (k, current) -> {
+            if (current == flight) {
+                store.accept(value);
+                return null;
+            }
+            return current;
+        });
+        flight.complete(value);
+        return value;
+    }
+
+    private V await(CompletableFuture<V> flight, Supplier<V> loader) {
+        try {
+            return flight.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            waitTimeouts.incrementAndGet();
+            log.warn("Load of {} still running after {} ms, loading directly", name, waitTimeoutMs);
+            return loader.get();
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Load of " + name + " failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for load of " + name, e);
+        }
+    }
+}
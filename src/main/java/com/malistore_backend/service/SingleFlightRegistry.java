@@ -0,0 +1,68 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.web.dto.cache.CacheLoaderStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Crée les {@link SingleFlight} des chargeurs du catalogue et partage entre eux
+ * l'exécuteur des rafraîchissements en arrière-plan (app.cache.single-flight.*).
+ */
+@Component
+public class SingleFlightRegistry {
+
+    @Value("${app.cache.single-flight.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    @Value("${app.cache.single-flight.refresh-threads:2}")
+    private int refreshThreads;
+
+    @Value("${app.cache.single-flight.refresh-queue-capacity:100}")
+    private int refreshQueueCapacity;
+
+    private final List<SingleFlight<?, ?>> flights = new CopyOnWriteArrayList<>();
+    private ThreadPoolExecutor refreshExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(refreshQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    public <K, V> SingleFlight<K, V> create(String name) {
+        SingleFlight<K, V> flight = new SingleFlight<>(name, waitTimeoutMs, refreshExecutor);
+        flights.add(flight);
+        return flight;
+    }
+
+    /**
+     * Compteurs de chaque chargeur, par nom
+     */
+    public List<CacheLoaderStatus> getStatuses() {
+        return flights.stream()
+                .map(SingleFlight::toStatus)
+                .sorted(Comparator.comparing(CacheLoaderStatus::getName))
+                .toList();
+    }
+}
@@ -4,7 +4,6 @@ import com.malistore_backend.data.entity.Product;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -24,9 +23,8 @@ public class StockAlertService {
 
     /**
      * Vérifie les stocks bas et envoie des alertes si nécessaire
-     * Cette méthode est exécutée toutes les heures
+     * Cette méthode est exécutée toutes les heures, sur un seul nœud (voir ScheduledJobs)
      */
-    @Scheduled(fixedRate = 3600000) // 1 heure = 3600000 ms
     public void checkLowStockAndSendAlerts() {
         log.info("Starting scheduled stock check with threshold: {}", stockAlertThreshold);
         
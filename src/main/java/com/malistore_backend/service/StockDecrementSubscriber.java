@@ -0,0 +1,34 @@
+package com.malistore_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Décrémente le stock des produits d'une commande payée.
+ * Appelé dans la transaction de distribution : une insuffisance de stock fait échouer
+ * la distribution, qui est retentée puis abandonnée (la commande reste PAID).
+ * Idempotent : une redistribution, ou un changement de statut (expédiée) avant la distribution,
+ * ne décrémente le stock qu'une fois.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockDecrementSubscriber implements DomainEventSubscriber<OrderEvents.OrderPaid> {
+
+    private final InventoryService inventoryService;
+
+    @Override
+    public Class<OrderEvents.OrderPaid> eventType() {
+        return OrderEvents.OrderPaid.class;
+    }
+
+    @Override
+    public void handle(OrderEvents.OrderPaid event) {
+        if (inventoryService.decrementStockAfterPayment(event.orderId())) {
+            log.info("Stock successfully decremented for order {}", event.orderId());
+        } else {
+            log.warn("Stock not decremented for order {}: already decremented, unpaid or cancelled", event.orderId());
+        }
+    }
+}
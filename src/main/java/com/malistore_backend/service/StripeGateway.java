@@ -0,0 +1,153 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.web.exception.ServiceUnavailableException;
+import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.checkout.SessionCreateParams;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Appels distants vers Stripe, protégés par :
+ * - des timeouts de connexion et de lecture (sans retry réseau implicite)
+ * - une cloison (bulkhead) limitant le nombre d'appels simultanés
+ * - un disjoncteur qui coupe les appels après N échecs consécutifs du fournisseur
+ *
+ * Ces appels ne doivent jamais être faits à l'intérieur d'une transaction.
+ */
+@Component
+@Slf4j
+public class StripeGateway {
+
+    @Value("${stripe.api-base:}")
+    private String apiBase;
+
+    @Value("${stripe.connect-timeout-ms:3000}")
+    private int connectTimeoutMs;
+
+    @Value("${stripe.read-timeout-ms:10000}")
+    private int readTimeoutMs;
+
+    @Value("${stripe.bulkhead.max-concurrent-calls:20}")
+    private int maxConcurrentCalls;
+
+    @Value("${stripe.bulkhead.max-wait-ms:500}")
+    private long maxWaitMs;
+
+    @Value("${stripe.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${stripe.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    private Semaphore bulkhead;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean halfOpenProbe = new AtomicBoolean();
+    private volatile long openUntil;
+
+    @PostConstruct
+    public void init() {
+        bulkhead = new Semaphore(maxConcurrentCalls);
+        if (apiBase != null && !apiBase.isBlank()) {
+            Stripe.overrideApiBase(apiBase);
+            log.warn("Stripe API base overridden: {}", apiBase);
+        }
+    }
+
+    /**
+     * Crée une session Checkout Stripe
+     */
+    public Session createCheckoutSession(SessionCreateParams params) throws StripeException {
+        boolean probe = checkCircuit();
+        if (!acquire()) {
+            if (probe) {
+                halfOpenProbe.set(false);
+            }
+            throw new ServiceUnavailableException("Too many concurrent payment requests, please retry");
+        }
+
+        try {
+            Session session = Session.create(params, requestOptions());
+            onSuccess();
+            return session;
+        } catch (ApiConnectionException | ApiException | RateLimitException e) {
+            onFailure(e);
+            throw e;
+        } catch (StripeException e) {
+            // Erreur côté requête : le fournisseur a répondu, il est donc disponible
+            onSuccess();
+            throw e;
+        } catch (RuntimeException | Error e) {
+            // Erreur inattendue (E/S enveloppée, réponse illisible...) : comptée comme un échec,
+            // sans quoi une sonde laisserait le disjoncteur semi-ouvert indéfiniment
+            onFailure(e);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Vérifie l'état du disjoncteur
+     * @return true si l'appel est la sonde de l'état semi-ouvert
+     */
+    private boolean checkCircuit() {
+        long until = openUntil;
+        if (until == 0) {
+            return false;
+        }
+        if (System.currentTimeMillis() < until || !halfOpenProbe.compareAndSet(false, true)) {
+            throw new ServiceUnavailableException("Payment provider temporarily unavailable, please retry later");
+        }
+        log.info("Stripe circuit breaker half-open, probing provider");
+        return true;
+    }
+
+    private boolean acquire() {
+        try {
+            return bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (openUntil != 0) {
+            log.info("Stripe circuit breaker closed");
+        }
+        openUntil = 0;
+        halfOpenProbe.set(false);
+    }
+
+    private void onFailure(Throwable e) {
+        int failures = consecutiveFailures.incrementAndGet();
+        log.warn("Stripe call failed ({} consecutive): {}", failures, e.getMessage());
+        if (failures >= failureThreshold) {
+            openUntil = System.currentTimeMillis() + openDurationMs;
+            halfOpenProbe.set(false);
+            log.error("Stripe circuit breaker opened for {} ms after {} consecutive failures", openDurationMs, failures);
+        }
+    }
+
+    private RequestOptions requestOptions() {
+        return RequestOptions.builder()
+                .setConnectTimeout(connectTimeoutMs)
+                .setReadTimeout(readTimeoutMs)
+                .setMaxNetworkRetries(0)
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.web.exception.BadRequestException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fournisseur de paiement Stripe Checkout
+ */
+@Component
+@ConditionalOnProperty(name = "app.payment.provider", havingValue = "stripe")
+@RequiredArgsConstructor
+@Slf4j
+public class StripePaymentProvider implements PaymentProvider {
+
+    private final StripeGateway stripeGateway;
+
+    @Override
+    public String getName() {
+        return "stripe";
+    }
+
+    @Override
+    public ProviderSession createCheckoutSession(CheckoutRequest checkout) {
+        SessionCreateParams.Builder params = SessionCreateParams.builder()
+                .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setSuccessUrl(checkout.successUrl())
+                .setCancelUrl(checkout.cancelUrl())
+                .setPaymentIntentData(SessionCreateParams.PaymentIntentData.builder()
+                        .setDescription("Paiement pour la commande " + checkout.orderNumber())
+                        .build())
+                .putMetadata("order_id", checkout.orderId().toString())
+                .putMetadata("order_number", checkout.orderNumber());
+
+        // Créer les line items pour Stripe
+        for (CheckoutLine line : checkout.lines()) {
+            params.addLineItem(SessionCreateParams.LineItem.builder()
+                    .setPriceData(SessionCreateParams.LineItem.PriceData.builder()
+                            .setCurrency(checkout.currency().toLowerCase())
+                            .setProductData(SessionCreateParams.LineItem.PriceData.ProductData.builder()
+                                    .setName(line.name())
+                                    .setDescription(line.description())
+                                    .build())
+                            .setUnitAmount(line.unitAmount())
+                            .build())
+                    .setQuantity(line.quantity())
+                    .build());
+        }
+
+        try {
+            Session session = stripeGateway.createCheckoutSession(params.build());
+            log.info("Stripe session created: {}", session.getId());
+            return new ProviderSession(session.getId(), session.getUrl(), session.getPaymentIntent());
+        } catch (StripeException e) {
+            log.error("Error creating Stripe session: {}", e.getMessage(), e);
+            throw new BadRequestException("Failed to create payment session: " + e.getMessage());
+        }
+    }
+}
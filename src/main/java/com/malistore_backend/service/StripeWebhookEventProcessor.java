@@ -0,0 +1,294 @@
+package com.malistore_backend.service;
+
+import com.malistore_backend.data.entity.PaymentStatus;
+import com.malistore_backend.data.entity.WebhookEventStatus;
+import com.malistore_backend.data.repository.PaymentRepository;
+import com.malistore_backend.data.repository.StripeWebhookEventRepository;
+import com.stripe.model.Event;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeObject;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.ApiResource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traite de manière asynchrone les événements Stripe enregistrés dans la boîte de réception.
+ * Les événements sont répartis sur des workers mono-thread selon leur clé d'ordonnancement
+ * (payment intent) : deux événements d'un même paiement ne sont jamais traités en parallèle.
+ * Un événement en échec est repris après app.webhook.retry-delay-ms multiplié par son nombre de tentatives.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StripeWebhookEventProcessor {
+
+    private static final EnumSet<WebhookEventStatus> CLAIMABLE = EnumSet.of(WebhookEventStatus.RECEIVED, WebhookEventStatus.FAILED);
+
+    // Événements à reprendre, réservés jusqu'au prochain délai de reprise : le balayage tourne sur
+    // chaque instance, une instance ne remet en file que les lignes qu'elle a réservées
+    private static final String RESERVE_SQL =
+            "WITH reserved AS (" +
+            "UPDATE stripe_webhook_events SET available_at = CURRENT_TIMESTAMP + make_interval(secs => ?) " +
+            "WHERE id IN (" +
+            "SELECT id FROM stripe_webhook_events " +
+            "WHERE status IN ('RECEIVED', 'FAILED') AND attempts < ? " +
+            "AND received_at < ? AND available_at <= CURRENT_TIMESTAMP " +
+            "ORDER BY received_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING event_id, ordering_key, received_at) " +
+            "SELECT event_id, ordering_key FROM reserved ORDER BY received_at";
+
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    private record PendingEvent(String eventId, String orderingKey) {
+    }
+
+    private final StripeWebhookEventRepository webhookEventRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentService paymentService;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.webhook.workers:4}")
+    private int workerCount;
+
+    @Value("${app.webhook.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.webhook.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.webhook.retry-delay-ms:30000}")
+    private long retryDelayMs;
+
+    private ExecutorService[] lanes;
+
+    @PostConstruct
+    public void init() {
+        lanes = new ExecutorService[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            String threadName = "stripe-webhook-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, threadName));
+        }
+        log.info("Stripe webhook processor started with {} workers", workerCount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * Met un événement en file sur le worker associé à sa clé d'ordonnancement.
+     * Si la file est pleine, l'événement reste RECEIVED et sera repris par le balayage.
+     */
+    public void dispatch(String eventId, String orderingKey) {
+        ExecutorService lane = lanes[Math.floorMod(orderingKey.hashCode(), lanes.length)];
+        try {
+            lane.execute(() -> process(eventId));
+        } catch (RejectedExecutionException e) {
+            log.warn("Webhook queue full, event {} deferred to next sweep", eventId);
+        }
+    }
+
+    /**
+     * Reprend les événements non traités (file pleine, échec, redémarrage de l'application).
+     * Déclenché toutes les app.webhook.sweep-interval-ms (voir ScheduledJobs).
+     */
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = webhookEventRepository.releaseStale(WebhookEventStatus.PROCESSING, WebhookEventStatus.FAILED,
+                now.minusMinutes(5));
+        if (released > 0) {
+            log.warn("Released {} stale webhook events stuck in PROCESSING", released);
+        }
+
+        // Événements reçus depuis moins du délai : encore en file après leur réception
+        List<PendingEvent> pending = jdbcTemplate.query(RESERVE_SQL,
+                (rs, rowNum) -> new PendingEvent(rs.getString("event_id"), rs.getString("ordering_key")),
+                retryDelayMs / 1000.0, maxAttempts, Timestamp.valueOf(now.minusNanos(retryDelayMs * 1_000_000)),
+                SWEEP_BATCH_SIZE);
+        for (PendingEvent event : pending) {
+            dispatch(event.eventId(), event.orderingKey());
+        }
+        if (!pending.isEmpty()) {
+            log.info("Re-dispatched {} pending webhook events", pending.size());
+        }
+    }
+
+    /**
+     * Détermine la clé d'ordonnancement d'un événement : l'ID du payment intent si disponible,
+     * sinon l'ID de l'objet (session) ou à défaut l'ID de l'événement
+     */
+    public static String orderingKey(Event event) {
+        StripeObject object = event.getDataObjectDeserializer().getObject().orElse(null);
+        if (object instanceof PaymentIntent paymentIntent) {
+            return paymentIntent.getId();
+        }
+        if (object instanceof Session session) {
+            return session.getPaymentIntent() != null ? session.getPaymentIntent() : session.getId();
+        }
+        return event.getId();
+    }
+
+    private void process(String eventId) {
+        if (webhookEventRepository.claim(eventId, WebhookEventStatus.PROCESSING, CLAIMABLE, LocalDateTime.now()) == 0) {
+            log.debug("Webhook event {} already claimed or processed", eventId);
+            return;
+        }
+
+        try {
+            StripeWebhookEvent record = webhookEventRepository.findByEventId(eventId)
+                    .orElseThrow(() -> new IllegalStateException("Webhook event not found: " + eventId));
+            Event event = ApiResource.GSON.fromJson(record.getPayload(), Event.class);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                handleEvent(event);
+                webhookEventRepository.markProcessed(eventId, WebhookEventStatus.PROCESSED, LocalDateTime.now());
+            });
+            log.info("Webhook event {} ({}) processed", eventId, event.getType());
+        } catch (Exception e) {
+            log.error("Error processing webhook event {}: {}", eventId, e.getMessage(), e);
+            String error = e.getMessage() != null && e.getMessage().length() > 1000
+                    ? e.getMessage().substring(0, 1000) : e.getMessage();
+            webhookEventRepository.markFailed(eventId, retryDelayMs / 1000.0, error);
+        }
+    }
+
+    /**
+     * Traite l'événement selon son type
+     */
+    private void handleEvent(Event event) {
+        switch (event.getType()) {
+            case "checkout.session.completed":
+                handleCheckoutSessionCompleted(event);
+                break;
+            case "payment_intent.succeeded":
+                handlePaymentIntentSucceeded(event);
+                break;
+            case "payment_intent.payment_failed":
+                handlePaymentIntentFailed(event);
+                break;
+            case "payment_intent.canceled":
+                handlePaymentIntentCanceled(event);
+                break;
+            default:
+                log.info("Unhandled event type: {}", event.getType());
+        }
+    }
+
+    /**
+     * Traite l'événement checkout.session.completed
+     */
+    private void handleCheckoutSessionCompleted(Event event) {
+        Session session = (Session) event.getDataObjectDeserializer().getObject().orElse(null);
+        if (session == null) {
+            log.error("Session object is null");
+            return;
+        }
+
+        String sessionId = session.getId();
+        log.info("Checkout session completed: {}", sessionId);
+
+        // Mettre à jour le statut du paiement
+        paymentService.updatePaymentStatus(sessionId, PaymentStatus.SUCCEEDED, session.getPaymentIntent());
+    }
+
+    /**
+     * Traite l'événement payment_intent.succeeded
+     */
+    private void handlePaymentIntentSucceeded(Event event) {
+        PaymentIntent paymentIntent = (PaymentIntent) event.getDataObjectDeserializer().getObject().orElse(null);
+        if (paymentIntent == null) {
+            log.error("PaymentIntent object is null");
+            return;
+        }
+
+        String paymentIntentId = paymentIntent.getId();
+        log.info("Payment intent succeeded: {}", paymentIntentId);
+
+        // Même chemin que checkout.session.completed : la commande passe en PAID quel que soit l'ordre d'arrivée
+        paymentRepository.findByStripePaymentIntentId(paymentIntentId)
+                .ifPresentOrElse(
+                        payment -> paymentService.updatePaymentStatus(
+                                payment.getStripeSessionId(), PaymentStatus.SUCCEEDED, paymentIntentId),
+                        () -> log.warn("No payment found for payment intent: {}", paymentIntentId)
+                );
+    }
+
+    /**
+     * Traite l'événement payment_intent.payment_failed
+     */
+    private void handlePaymentIntentFailed(Event event) {
+        PaymentIntent paymentIntent = (PaymentIntent) event.getDataObjectDeserializer().getObject().orElse(null);
+        if (paymentIntent == null) {
+            log.error("PaymentIntent object is null");
+            return;
+        }
+
+        String paymentIntentId = paymentIntent.getId();
+        String failureReason = paymentIntent.getLastPaymentError() != null ?
+                paymentIntent.getLastPaymentError().getMessage() : "Payment failed";
+
+        log.info("Payment intent failed: {} - {}", paymentIntentId, failureReason);
+
+        // Trouver le paiement par payment intent ID
+        paymentRepository.findByStripePaymentIntentId(paymentIntentId)
+                .ifPresentOrElse(
+                        payment -> {
+                            payment.setStatus(PaymentStatus.FAILED);
+                            payment.setFailureReason(failureReason);
+                            payment.setWebhookReceivedAt(LocalDateTime.now());
+                            paymentRepository.save(payment);
+                            log.info("Payment status updated to FAILED for payment intent: {}", paymentIntentId);
+                        },
+                        () -> log.warn("No payment found for payment intent: {}", paymentIntentId)
+                );
+    }
+
+    /**
+     * Traite l'événement payment_intent.canceled
+     */
+    private void handlePaymentIntentCanceled(Event event) {
+        PaymentIntent paymentIntent = (PaymentIntent) event.getDataObjectDeserializer().getObject().orElse(null);
+        if (paymentIntent == null) {
+            log.error("PaymentIntent object is null");
+            return;
+        }
+
+        String paymentIntentId = paymentIntent.getId();
+        log.info("Payment intent canceled: {}", paymentIntentId);
+
+        // Trouver le paiement par payment intent ID
+        paymentRepository.findByStripePaymentIntentId(paymentIntentId)
+                .ifPresentOrElse(
+                        payment -> {
+                            payment.setStatus(PaymentStatus.CANCELLED);
+                            payment.setWebhookReceivedAt(LocalDateTime.now());
+                            paymentRepository.save(payment);
+                            log.info("Payment status updated to CANCELLED for payment intent: {}", paymentIntentId);
+                        },
+                        () -> log.warn("No payment found for payment intent: {}", paymentIntentId)
+                );
+    }
+}
@@ -0,0 +1,77 @@
+package com.malistore_backend.service;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Rejoue des événements Stripe enregistrés (fichiers JSON) à travers la boîte de réception
+ * des webhooks, sans vérification de signature. Destiné aux tests de charge uniquement :
+ * activé seulement si app.webhook.replay.dir est défini.
+ *
+ * Avec app.webhook.replay.repeat > 1, chaque passe suffixe les IDs d'événement
+ * afin que la déduplication ne les écarte pas.
+ */
+@Component
+@ConditionalOnProperty(name = "app.webhook.replay.dir")
+@RequiredArgsConstructor
+@Slf4j
+public class StripeWebhookReplayRunner implements ApplicationRunner {
+
+    private final StripeWebhookService stripeWebhookService;
+
+    @Value("${app.webhook.replay.dir}")
+    private String replayDir;
+
+    @Value("${app.webhook.replay.repeat:1}")
+    private int repeat;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.list(Paths.get(replayDir))) {
+            files = paths.filter(path -> path.toString().endsWith(".json")).sorted().toList();
+        }
+        log.warn("Replaying {} recorded Stripe events from {} ({} passes)", files.size(), replayDir, repeat);
+
+        long start = System.nanoTime();
+        int accepted = 0;
+        int duplicates = 0;
+        for (int pass = 0; pass < repeat; pass++) {
+            for (Path file : files) {
+                String payload = Files.readString(file);
+                if (repeat > 1) {
+                    payload = withEventIdSuffix(payload, "_replay" + pass);
+                }
+                if (stripeWebhookService.ingestRecordedEvent(payload)) {
+                    accepted++;
+                } else {
+                    duplicates++;
+                }
+            }
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.warn("Replay finished: {} accepted, {} duplicates in {} ms ({} events/s ingested)",
+                accepted, duplicates, elapsedMs, (accepted + duplicates) * 1000L / elapsedMs);
+    }
+
+    private String withEventIdSuffix(String payload, String suffix) {
+        JsonObject json = JsonParser.parseString(payload).getAsJsonObject();
+        json.addProperty("id", json.get("id").getAsString() + suffix);
+        return json.toString();
+    }
+}
@@ -0,0 +1,515 @@
+package com.malistore_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Écriture différée (write-behind) des modifications du panier, activée par app.cart.store=write-behind.
+ *
+ * - les changements de quantité et les suppressions de lignes existantes sont tenus en mémoire,
+ *   répartis en partitions par utilisateur ; le verrou de la partition sert de verrou utilisateur
+ * - chaque changement est d'abord ajouté au journal local de sa partition, puis écrit en base par lots
+ *   au plus tard après app.cart.write-behind.max-staleness-ms ; les changements successifs d'une même
+ *   ligne sont fusionnés (seule la dernière quantité est écrite)
+ * - au démarrage, les journaux laissés par une exécution précédente sont rejoués en base
+ * - les nouvelles lignes sont insérées immédiatement : leur ID est renvoyé au client
+ *
+ * Le panier d'un utilisateur doit être servi par un seul nœud (affinité de session) :
+ * un autre nœud lirait la base sans les changements en attente.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WriteBehindCartStore {
+
+    public static final String MODE = "write-behind";
+
+    // Les lignes écrites prennent le prix courant du produit
+    private static final String UPDATE_LINE_SQL =
+            "UPDATE cart_items ci SET quantity = ?, unit_price = p.price, total_price = p.price * ?, updated_at = ? " +
+            "FROM products p WHERE ci.id = ? AND p.id = ci.product_id";
+    private static final String DELETE_LINE_SQL = "DELETE FROM cart_items WHERE id = ?";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("shard-(\\d+)-(\\d+)\\.log");
+
+    /** quantity == 0 : ligne supprimée */
+    private record Change(long userId, long cartItemId, int quantity) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.cart.store:database}")
+    private String store;
+
+    @Value("${app.cart.write-behind.shards:64}")
+    private int shardCount;
+
+    @Value("${app.cart.write-behind.journal-dir:./data/cart-journal}")
+    private String journalDir;
+
+    private boolean enabled;
+    private Path directory;
+    private Shard[] shards;
+    private TransactionTemplate flushTransaction;
+    private final AtomicLong segmentSequence = new AtomicLong();
+
+    private final AtomicLong stagedChanges = new AtomicLong();
+    private final AtomicLong flushedChanges = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    @PostConstruct
+    public void init() {
+        enabled = MODE.equals(store);
+        if (!enabled) {
+            return;
+        }
+        directory = Paths.get(journalDir);
+        flushTransaction = new TransactionTemplate(transactionManager);
+
+        List<Path> previousSegments;
+        try {
+            Files.createDirectories(directory);
+            previousSegments = listSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cart journal directory " + directory, e);
+        }
+        segmentSequence.set(previousSegments.stream().mapToLong(WriteBehindCartStore::sequenceOf).max().orElse(0));
+        recover(previousSegments);
+
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+        log.info("Write-behind cart store enabled: {} shards, journal in {}", shardCount, directory.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        flush();
+        for (Shard shard : shards) {
+            shard.segment.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Exécute l'action sous le verrou de l'utilisateur : lecture de la quantité courante
+     * et enregistrement du changement forment une seule opération. Sans effet en mode base.
+     */
+    public <T> T locked(Long userId, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        Shard shard = shardOf(userId);
+        shard.lock.lock();
+        try {
+            return action.get();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Quantités en attente d'écriture pour l'utilisateur, par ID de ligne (0 : ligne supprimée)
+     */
+    public Map<Long, Integer> pendingQuantities(Long userId) {
+        if (!enabled) {
+            return Map.of();
+        }
+        Shard shard = shardOf(userId);
+        shard.lock.lock();
+        try {
+            Map<Long, Integer> quantities = new HashMap<>(shard.inFlight.getOrDefault(userId, Map.of()));
+            quantities.putAll(shard.pending.getOrDefault(userId, Map.of()));
+            return quantities;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Enregistre la nouvelle quantité d'une ligne existante (0 pour la supprimer).
+     * Le changement est journalisé avant d'être visible.
+     */
+    public void stage(Long userId, Long cartItemId, int quantity) {
+        Shard shard = shardOf(userId);
+        shard.lock.lock();
+        try {
+            shard.segment.append(new Change(userId, cartItemId, quantity));
+            shard.pending.computeIfAbsent(userId, id -> new HashMap<>()).put(cartItemId, quantity);
+            stagedChanges.incrementAndGet();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Oublie les changements en attente de l'utilisateur (panier vidé en base)
+     */
+    public void discard(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        Shard shard = shardOf(userId);
+        shard.lock.lock();
+        try {
+            shard.pending.remove(userId);
+            shard.inFlight.remove(userId);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Écrit les changements en attente de l'utilisateur dans la transaction courante,
+     * avant une lecture du panier en base (commande, opérations en lot).
+     * Ils sont remis en attente si la transaction est annulée.
+     */
+    public void flushUser(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        Shard shard = shardOf(userId);
+        shard.lock.lock();
+        try {
+            Map<Long, Integer> pendingForUser = shard.pending.remove(userId);
+            Map<Long, Integer> inFlightForUser = shard.inFlight.get(userId);
+            if (pendingForUser == null && inFlightForUser == null) {
+                return;
+            }
+            // Les valeurs en vol sont réécrites : l'UPDATE attend le commit du cycle d'écriture en cours
+            Map<Long, Integer> quantities = new HashMap<>(inFlightForUser != null ? inFlightForUser : Map.of());
+            if (pendingForUser != null) {
+                quantities.putAll(pendingForUser);
+            }
+            List<Change> changes = new ArrayList<>();
+            quantities.forEach((cartItemId, quantity) -> changes.add(new Change(userId, cartItemId, quantity)));
+            write(changes);
+            log.debug("Flushed {} pending cart changes for user {}", changes.size(), userId);
+
+            if (pendingForUser != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED) {
+                            restage(userId, pendingForUser);
+                        }
+                    }
+                });
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Écrit en base les changements en attente de toutes les partitions, en une transaction.
+     * Chaque partition est verrouillée le temps de son lot, ce qui ordonne ses écritures
+     * avec celles de {@link #flushUser} ; la connexion est prise avant les verrous.
+     * Déclenchée toutes les app.cart.write-behind.max-staleness-ms (voir ScheduledJobs).
+     */
+    public synchronized void flush() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Map<Shard, List<Path>> closedSegments = new LinkedHashMap<>();
+        int written;
+        try {
+            written = flushTransaction.execute(status -> {
+                int count = 0;
+                for (Shard shard : shards) {
+                    shard.lock.lock();
+                    try {
+                        if (shard.pending.isEmpty()) {
+                            continue;
+                        }
+                        // Nouveau segment : l'ancien est gardé jusqu'à ce que ses changements soient en base
+                        shard.closedSegments.add(shard.segment.close());
+                        shard.segment = shard.openSegment();
+                        closedSegments.put(shard, List.copyOf(shard.closedSegments));
+
+                        List<Change> changes = new ArrayList<>();
+                        shard.pending.forEach((userId, quantities) -> {
+                            quantities.forEach((cartItemId, quantity) -> changes.add(new Change(userId, cartItemId, quantity)));
+                            shard.inFlight.computeIfAbsent(userId, id -> new HashMap<>()).putAll(quantities);
+                        });
+                        shard.pending = new HashMap<>();
+                        write(changes);
+                        count += changes.size();
+                    } finally {
+                        shard.lock.unlock();
+                    }
+                }
+                return count;
+            });
+        } catch (RuntimeException e) {
+            flushFailures.incrementAndGet();
+            log.error("Cart write-behind flush failed, changes kept for the next attempt", e);
+            for (Shard shard : closedSegments.keySet()) {
+                shard.lock.lock();
+                try {
+                    shard.inFlight.forEach((userId, quantities) -> {
+                        Map<Long, Integer> pendingForUser = shard.pending.computeIfAbsent(userId, id -> new HashMap<>());
+                        quantities.forEach(pendingForUser::putIfAbsent);
+                    });
+                    shard.inFlight = new HashMap<>();
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+            return;
+        }
+
+        closedSegments.forEach((shard, segments) -> {
+            shard.lock.lock();
+            try {
+                shard.inFlight = new HashMap<>();
+                shard.closedSegments.removeAll(segments);
+            } finally {
+                shard.lock.unlock();
+            }
+            segments.forEach(WriteBehindCartStore::deleteSegment);
+        });
+        flushedChanges.addAndGet(written);
+        lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (written > 0) {
+            log.debug("Cart write-behind flush wrote {} changes in {} ms", written, lastFlushMillis);
+        }
+    }
+
+    /**
+     * Nombre de changements en attente d'écriture
+     */
+    public int pendingChanges() {
+        if (!enabled) {
+            return 0;
+        }
+        int count = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                for (Map<Long, Integer> quantities : shard.pending.values()) {
+                    count += quantities.size();
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    public long getStagedChanges() {
+        return stagedChanges.get();
+    }
+
+    public long getFlushedChanges() {
+        return flushedChanges.get();
+    }
+
+    public long getFlushFailures() {
+        return flushFailures.get();
+    }
+
+    public long getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    private void restage(Long userId, Map<Long, Integer> quantities) {
+        Shard shard = shardOf(userId);
+        shard.lock.lock();
+        try {
+            Map<Long, Integer> pendingForUser = shard.pending.computeIfAbsent(userId, id -> new HashMap<>());
+            quantities.forEach((cartItemId, quantity) -> {
+                if (pendingForUser.putIfAbsent(cartItemId, quantity) == null) {
+                    shard.segment.append(new Change(userId, cartItemId, quantity));
+                }
+            });
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private void write(List<Change> changes) {
+        List<Change> updates = changes.stream().filter(change -> change.quantity() > 0).toList();
+        List<Change> deletes = changes.stream().filter(change -> change.quantity() == 0).toList();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_LINE_SQL, updates, updates.size(), (ps, change) -> {
+                ps.setInt(1, change.quantity());
+                ps.setInt(2, change.quantity());
+                ps.setTimestamp(3, now);
+                ps.setLong(4, change.cartItemId());
+            });
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_LINE_SQL, deletes, deletes.size(),
+                    (ps, change) -> ps.setLong(1, change.cartItemId()));
+        }
+    }
+
+    /**
+     * Rejoue les journaux d'une exécution précédente, dans l'ordre des segments, puis les supprime
+     */
+    private void recover(List<Path> segments) {
+        if (segments.isEmpty()) {
+            return;
+        }
+        Map<Long, Change> latest = new LinkedHashMap<>();
+        for (Path segment : segments) {
+            try (Stream<String> lines = Files.lines(segment, StandardCharsets.UTF_8)) {
+                lines.map(WriteBehindCartStore::parse)
+                        .filter(change -> change != null)
+                        .forEach(change -> latest.put(change.cartItemId(), change));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read cart journal " + segment, e);
+            }
+        }
+        flushTransaction.executeWithoutResult(status -> write(new ArrayList<>(latest.values())));
+        segments.forEach(WriteBehindCartStore::deleteSegment);
+        log.info("Recovered {} cart changes from {} journal segments", latest.size(), segments.size());
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(WriteBehindCartStore::sequenceOf))
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(2)) : 0;
+    }
+
+    /**
+     * Ligne de journal : userId;cartItemId;quantity. Une dernière ligne tronquée par un arrêt brutal est ignorée.
+     */
+    private static Change parse(String line) {
+        String[] parts = line.split(";");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new Change(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void deleteSegment(Path segment) {
+        try {
+            Files.deleteIfExists(segment);
+        } catch (IOException e) {
+            log.warn("Cannot delete cart journal segment {}", segment, e);
+        }
+    }
+
+    private Shard shardOf(Long userId) {
+        return shards[Math.floorMod(Long.hashCode(userId), shards.length)];
+    }
+
+    /**
+     * Partition du panier : changements en attente, changements en cours d'écriture et journal,
+     * protégés par un même verrou
+     */
+    private final class Shard {
+
+        private final int index;
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<Long, Map<Long, Integer>> pending = new HashMap<>();
+        private Map<Long, Map<Long, Integer>> inFlight = new HashMap<>();
+        private final List<Path> closedSegments = new ArrayList<>();
+        private Segment segment;
+
+        private Shard(int index) {
+            this.index = index;
+            this.segment = openSegment();
+        }
+
+        private Segment openSegment() {
+            Path path = directory.resolve("shard-" + index + "-" + segmentSequence.incrementAndGet() + ".log");
+            return new Segment(path);
+        }
+    }
+
+    /**
+     * Segment de journal en ajout seul ; chaque ligne est transmise au système à l'écriture
+     * et survit donc à un arrêt du processus
+     */
+    private static final class Segment {
+
+        private final Path path;
+        private final BufferedWriter writer;
+
+        private Segment(Path path) {
+            this.path = path;
+            try {
+                this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open cart journal " + path, e);
+            }
+        }
+
+        private void append(Change change) {
+            try {
+                writer.write(change.userId() + ";" + change.cartItemId() + ";" + change.quantity());
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write cart journal " + path, e);
+            }
+        }
+
+        private Path close() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Cannot close cart journal segment {}", path, e);
+            }
+            return path;
+        }
+    }
+}
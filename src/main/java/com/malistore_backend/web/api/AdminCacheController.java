@@ -0,0 +1,65 @@
+package com.malistore_backend.web.api;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.service.ProductSearchCache;
+import com.malistore_backend.service.SingleFlightRegistry;
+import com.malistore_backend.web.dto.cache.CacheLoaderStatus;
+import com.malistore_backend.web.dto.cache.SearchCacheStatus;
+import com.malistore_backend.web.exception.ResourceNotFoundException;
+import com.malistore_backend.web.payload.ApiResponse;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+@RequiredArgsConstructor
+public class AdminCacheController {
+    
+    private final SingleFlightRegistry singleFlightRegistry;
+    private final ProductSearchCache productSearchCache;
+    private final UserRepository userRepository;
+    
+    /**
+     * Métriques des chargeurs du catalogue de cette instance : appels regroupés, valeurs périmées servies (admin)
+     */
+    @GetMapping("/loaders")
+    public ResponseEntity<ApiResponse<List<CacheLoaderStatus>>> getLoaders(Authentication authentication) {
+        // Vérifier que l'utilisateur est admin
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        
+        if (!user.getRole().name().equals("ADMIN")) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Access denied. Admin role required."));
+        }
+        
+        return ResponseEntity.ok(ApiResponse.success(singleFlightRegistry.getStatuses()));
+    }
+    
+    /**
+     * Métriques du cache des recherches produits de cette instance, taux de succès par forme de recherche (admin)
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<SearchCacheStatus>> getSearchCache(Authentication authentication) {
+        // Vérifier que l'utilisateur est admin
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        
+        if (!user.getRole().name().equals("ADMIN")) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Access denied. Admin role required."));
+        }
+        
+        return ResponseEntity.ok(ApiResponse.success(productSearchCache.getStatus()));
+    }
+}
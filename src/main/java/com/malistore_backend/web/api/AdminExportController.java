@@ -0,0 +1,102 @@
+package com.malistore_backend.web.api;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.service.ExportFormat;
+import com.malistore_backend.service.ExportService;
+import com.malistore_backend.service.ExportService.ExportFilter;
+import com.malistore_backend.web.exception.BadRequestException;
+import com.malistore_backend.web.exception.ResourceNotFoundException;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Exports back-office en flux (NDJSON ou CSV, gzip optionnel).
+ * Les lignes sont triées par ID : pour reprendre un export interrompu,
+ * relancer la requête avec afterId égal au dernier ID reçu.
+ */
+@RestController
+@RequestMapping("/api/admin/exports")
+@RequiredArgsConstructor
+public class AdminExportController {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final ExportService exportService;
+    private final UserRepository userRepository;
+
+    /**
+     * Exporte les commandes, produits ou paiements
+     */
+    @GetMapping("/{dataset}")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable String dataset,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
+
+        // Vérifier que l'utilisateur est admin
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        if (!user.getRole().name().equals("ADMIN")) {
+            return ResponseEntity.status(403).build();
+        }
+
+        if (limit != null && limit < 1) {
+            throw new BadRequestException("limit must be positive");
+        }
+        ExportFilter filter = new ExportFilter(from, to, afterId, limit);
+        Exporter exporter = switch (dataset) {
+            case "orders" -> out -> exportService.exportOrders(filter, format, out);
+            case "products" -> out -> exportService.exportProducts(filter, format, out);
+            case "payments" -> out -> exportService.exportPayments(filter, format, out);
+            default -> throw new ResourceNotFoundException("Unknown export: " + dataset);
+        };
+
+        String filename = dataset + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) + "." + format.getExtension();
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024)) {
+                    exporter.write(compressed);
+                }
+            } else {
+                exporter.write(out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + filename + (gzip ? ".gz" : "") + "\"")
+                .body(body);
+    }
+
+    @FunctionalInterface
+    private interface Exporter {
+        void write(OutputStream out);
+    }
+}
@@ -1,7 +1,9 @@
 package com.malistore_backend.web.api;
 
-import java.util.List;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,15 +12,20 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.malistore_backend.data.entity.OrderStatus;
 import com.malistore_backend.data.entity.User;
 import com.malistore_backend.data.repository.UserRepository;
 import com.malistore_backend.service.OrderService;
 import com.malistore_backend.web.dto.order.OrderResponse;
+import com.malistore_backend.web.dto.order.OrderSearchDto;
 import com.malistore_backend.web.dto.order.OrderStatusUpdateDto;
+import com.malistore_backend.web.dto.order.OrderSummary;
 import com.malistore_backend.web.exception.ResourceNotFoundException;
 import com.malistore_backend.web.payload.ApiResponse;
+import com.malistore_backend.web.payload.CursorPage;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -32,10 +39,21 @@ public class AdminOrderController {
     private final UserRepository userRepository;
     
     /**
-     * Récupère toutes les commandes (admin)
+     * Recherche les commandes (admin), paginée par curseur.
+     * Renvoie des résumés sans articles ; le détail s'obtient via GET /{id}.
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<OrderResponse>>> getAllOrders(Authentication authentication) {
+    public ResponseEntity<ApiResponse<CursorPage<OrderSummary>>> searchOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) String customerEmail,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String orderNumberPrefix,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
         // Vérifier que l'utilisateur est admin
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         User user = userRepository.findByEmail(userDetails.getUsername())
@@ -45,7 +63,18 @@ public class AdminOrderController {
             return ResponseEntity.status(403).body(ApiResponse.error("Access denied. Admin role required."));
         }
         
-        List<OrderResponse> orders = orderService.getAllOrders();
+        OrderSearchDto searchDto = new OrderSearchDto();
+        searchDto.setStatus(status);
+        searchDto.setCreatedFrom(createdFrom);
+        searchDto.setCreatedTo(createdTo);
+        searchDto.setCustomerEmail(customerEmail);
+        searchDto.setMinAmount(minAmount);
+        searchDto.setMaxAmount(maxAmount);
+        searchDto.setOrderNumberPrefix(orderNumberPrefix);
+        searchDto.setCursor(cursor);
+        searchDto.setSize(size);
+        
+        CursorPage<OrderSummary> orders = orderService.searchOrders(searchDto);
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
     
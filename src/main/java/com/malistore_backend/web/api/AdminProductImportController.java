@@ -0,0 +1,79 @@
+package com.malistore_backend.web.api;
+
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.service.ProductImportService;
+import com.malistore_backend.web.dto.product.ProductImportStatus;
+import com.malistore_backend.web.exception.ResourceNotFoundException;
+import com.malistore_backend.web.payload.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+/**
+ * Import en masse du catalogue produits (CSV ou NDJSON).
+ *
+ * Colonnes attendues : sku, name, description, price, stock, category (nom), image_url, active.
+ * L'import s'exécute en tâche de fond ; son avancement et les lignes rejetées
+ * sont consultables via GET /api/admin/products/import/{jobId}.
+ */
+@RestController
+@RequestMapping("/api/admin/products/import")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminProductImportController {
+
+    private final ProductImportService productImportService;
+    private final UserRepository userRepository;
+
+    private User getCurrentAuthenticatedUser(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new SecurityException("User not authenticated");
+        }
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        return userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new ResourceNotFoundException("Authenticated user not found"));
+    }
+
+    /**
+     * Lance un import (admin)
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse<ProductImportStatus>> importProducts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "format", required = false) ProductImportService.Format format,
+            Authentication authentication) {
+        User user = getCurrentAuthenticatedUser(authentication);
+        log.info("Admin {} importing products from {}", user.getEmail(), file.getOriginalFilename());
+
+        ProductImportStatus status = productImportService.submit(file, format);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success(status));
+    }
+
+    /**
+     * Avancement et erreurs d'un import (admin)
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ApiResponse<ProductImportStatus>> getImportStatus(
+            @PathVariable String jobId,
+            Authentication authentication) {
+        getCurrentAuthenticatedUser(authentication);
+        return ResponseEntity.ok(ApiResponse.success(productImportService.getStatus(jobId)));
+    }
+
+    /**
+     * Imports récents, sans le détail des erreurs (admin)
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<ProductImportStatus>>> getImports(Authentication authentication) {
+        getCurrentAuthenticatedUser(authentication);
+        return ResponseEntity.ok(ApiResponse.success(productImportService.getJobs()));
+    }
+}
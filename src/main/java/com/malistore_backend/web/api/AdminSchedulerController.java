@@ -0,0 +1,45 @@
+package com.malistore_backend.web.api;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.service.ScheduledJobRunner;
+import com.malistore_backend.web.dto.scheduler.ScheduledJobStatus;
+import com.malistore_backend.web.exception.ResourceNotFoundException;
+import com.malistore_backend.web.payload.ApiResponse;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/admin/scheduler")
+@RequiredArgsConstructor
+public class AdminSchedulerController {
+    
+    private final ScheduledJobRunner scheduledJobRunner;
+    private final UserRepository userRepository;
+    
+    /**
+     * Métriques des tâches planifiées de cette instance (admin)
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<ApiResponse<List<ScheduledJobStatus>>> getJobs(Authentication authentication) {
+        // Vérifier que l'utilisateur est admin
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        
+        if (!user.getRole().name().equals("ADMIN")) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Access denied. Admin role required."));
+        }
+        
+        return ResponseEntity.ok(ApiResponse.success(scheduledJobRunner.getStatuses()));
+    }
+}
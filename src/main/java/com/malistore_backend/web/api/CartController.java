@@ -19,8 +19,10 @@ import com.malistore_backend.data.repository.UserRepository;
 import com.malistore_backend.service.CartService;
 import com.malistore_backend.web.exception.ResourceNotFoundException;
 import com.malistore_backend.web.dto.cart.AddToCartDto;
+import com.malistore_backend.web.dto.cart.CartBatchRequest;
 import com.malistore_backend.web.dto.cart.CartItemResponse;
 import com.malistore_backend.web.dto.cart.CartResponse;
+import com.malistore_backend.web.dto.cart.CartSummary;
 import com.malistore_backend.web.dto.cart.UpdateCartItemDto;
 import com.malistore_backend.web.payload.ApiResponse;
 
@@ -51,6 +53,38 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success(cartItem));
     }
     
+    /**
+     * Applique plusieurs opérations (ajout, quantité, suppression) au panier en une seule transaction
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<CartResponse>> applyBatch(
+            @Valid @RequestBody CartBatchRequest batchRequest,
+            Authentication authentication) {
+        
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        CartResponse cart = cartService.applyBatch(user, batchRequest.getOperations());
+        
+        return ResponseEntity.ok(ApiResponse.success(cart));
+    }
+    
+    /**
+     * Ajoute au panier les articles d'une commande passée
+     */
+    @PostMapping("/reorder/{orderId}")
+    public ResponseEntity<ApiResponse<CartResponse>> reorder(
+            @PathVariable Long orderId,
+            Authentication authentication) {
+        
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        CartResponse cart = cartService.reorder(user, orderId);
+        
+        return ResponseEntity.ok(ApiResponse.success(cart));
+    }
+    
     /**
      * Récupère le contenu du panier
      */
@@ -136,6 +170,19 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success(total));
     }
     
+    /**
+     * Récupère le résumé du panier (nombre d'articles, quantité, sous-total) en un seul appel
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<CartSummary>> getCartSummary(Authentication authentication) {
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        CartSummary summary = cartService.getCartSummary(user);
+        
+        return ResponseEntity.ok(ApiResponse.success(summary));
+    }
+    
     /**
      * Vérifie si un produit est dans le panier
      */
@@ -1,7 +1,5 @@
 package com.malistore_backend.web.api;
 
-import java.util.List;
-
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,6 +8,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.malistore_backend.data.entity.User;
@@ -19,6 +18,7 @@ import com.malistore_backend.web.dto.order.OrderCreateDto;
 import com.malistore_backend.web.dto.order.OrderResponse;
 import com.malistore_backend.web.exception.ResourceNotFoundException;
 import com.malistore_backend.web.payload.ApiResponse;
+import com.malistore_backend.web.payload.CursorPage;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -48,15 +48,18 @@ public class OrderController {
     }
     
     /**
-     * Récupère les commandes de l'utilisateur connecté
+     * Récupère les commandes de l'utilisateur connecté, paginées par curseur
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<OrderResponse>>> getUserOrders(Authentication authentication) {
+    public ResponseEntity<ApiResponse<CursorPage<OrderResponse>>> getUserOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         User user = userRepository.findByEmail(userDetails.getUsername())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
         
-        List<OrderResponse> orders = orderService.getUserOrders(user);
+        CursorPage<OrderResponse> orders = orderService.getUserOrders(user, cursor, size);
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
     
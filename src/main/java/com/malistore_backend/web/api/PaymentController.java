@@ -1,7 +1,7 @@
 package com.malistore_backend.web.api;
 
 import com.malistore_backend.data.entity.PaymentStatus;
-import com.malistore_backend.service.MockPaymentService;
+import com.malistore_backend.service.PaymentService;
 import com.malistore_backend.service.StripeWebhookService;
 import com.malistore_backend.web.dto.payment.PaymentResponse;
 import com.malistore_backend.web.dto.payment.PaymentSessionRequest;
@@ -28,7 +28,7 @@ import java.util.List;
 @Slf4j
 public class PaymentController {
 
-    private final MockPaymentService mockPaymentService;
+    private final PaymentService paymentService;
     private final StripeWebhookService stripeWebhookService;
     private final UserRepository userRepository;
 
@@ -41,7 +41,7 @@ public class PaymentController {
             Authentication authentication) {
         
         // User authentication handled by Spring Security
-        PaymentSessionResponse response = mockPaymentService.createPaymentSession(request);
+        PaymentSessionResponse response = paymentService.createPaymentSession(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(ApiResponse.success(response));
     }
 
@@ -54,7 +54,7 @@ public class PaymentController {
         User user = userRepository.findByEmail(userDetails.getUsername())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
         
-        List<PaymentResponse> payments = mockPaymentService.getUserPayments(user.getId());
+        List<PaymentResponse> payments = paymentService.getUserPayments(user.getId());
         return ResponseEntity.ok(ApiResponse.success(payments));
     }
 
@@ -63,7 +63,7 @@ public class PaymentController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<PaymentResponse>> getPaymentById(@PathVariable Long id) {
-        PaymentResponse payment = mockPaymentService.getPaymentById(id);
+        PaymentResponse payment = paymentService.getPaymentById(id);
         return ResponseEntity.ok(ApiResponse.success(payment));
     }
 
@@ -72,7 +72,7 @@ public class PaymentController {
      */
     @GetMapping("/order/{orderId}")
     public ResponseEntity<ApiResponse<List<PaymentResponse>>> getOrderPayments(@PathVariable Long orderId) {
-        List<PaymentResponse> payments = mockPaymentService.getOrderPayments(orderId);
+        List<PaymentResponse> payments = paymentService.getOrderPayments(orderId);
         return ResponseEntity.ok(ApiResponse.success(payments));
     }
 
@@ -81,7 +81,7 @@ public class PaymentController {
      */
     @GetMapping("/status/{status}")
     public ResponseEntity<ApiResponse<List<PaymentResponse>>> getPaymentsByStatus(@PathVariable PaymentStatus status) {
-        List<PaymentResponse> payments = mockPaymentService.getPaymentsByStatus(status);
+        List<PaymentResponse> payments = paymentService.getPaymentsByStatus(status);
         return ResponseEntity.ok(ApiResponse.success(payments));
     }
 
@@ -90,7 +90,7 @@ public class PaymentController {
      */
     @PostMapping("/simulate-success/{sessionId}")
     public ResponseEntity<ApiResponse<PaymentResponse>> simulateSuccessfulPayment(@PathVariable String sessionId) {
-        PaymentResponse payment = mockPaymentService.simulateSuccessfulPayment(sessionId);
+        PaymentResponse payment = paymentService.updatePaymentStatus(sessionId, PaymentStatus.SUCCEEDED, null);
         return ResponseEntity.ok(ApiResponse.success(payment));
     }
 
@@ -99,7 +99,7 @@ public class PaymentController {
      */
     @PostMapping("/simulate-failure/{sessionId}")
     public ResponseEntity<ApiResponse<PaymentResponse>> simulateFailedPayment(@PathVariable String sessionId) {
-        PaymentResponse payment = mockPaymentService.simulateFailedPayment(sessionId);
+        PaymentResponse payment = paymentService.failPayment(sessionId, "Mock payment failure for testing");
         return ResponseEntity.ok(ApiResponse.success(payment));
     }
 
@@ -112,8 +112,9 @@ public class PaymentController {
             @RequestHeader("Stripe-Signature") String signature) {
         
         try {
-            stripeWebhookService.handleWebhook(payload, signature);
-            return ResponseEntity.ok("Webhook processed successfully");
+            // L'événement est enregistré puis traité en arrière-plan : Stripe reçoit son 200 immédiatement
+            boolean accepted = stripeWebhookService.handleWebhook(payload, signature);
+            return ResponseEntity.ok(accepted ? "Webhook accepted" : "Webhook already received");
         } catch (Exception e) {
             log.error("Webhook processing failed: {}", e.getMessage(), e);
             return ResponseEntity.badRequest().body("Webhook processing failed: " + e.getMessage());
@@ -18,6 +18,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.malistore_backend.service.ProductService;
+import com.malistore_backend.web.dto.product.ProductBatchResponse;
 import com.malistore_backend.web.dto.product.ProductCreateDto;
 import com.malistore_backend.web.dto.product.ProductResponse;
 import com.malistore_backend.web.dto.product.ProductSearchDto;
@@ -64,6 +65,16 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
     
+    /**
+     * Récupère plusieurs produits par ID (GET /api/products?ids=1,2,3), dans l'ordre demandé.
+     * Les IDs introuvables sont listés dans missingIds.
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<ApiResponse<ProductBatchResponse>> getProductsByIds(@RequestParam List<Long> ids) {
+        ProductBatchResponse products = productService.getProductsByIds(ids);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+    
     /**
      * Récupère tous les produits actifs (sans pagination)
      */
@@ -0,0 +1,21 @@
+package com.malistore_backend.web.dto.cache;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Métriques d'un chargeur à appels regroupés (single-flight) sur cette instance
+ */
+@Getter
+@Builder
+public class CacheLoaderStatus {
+    private String name;
+    private long loads; // chargements exécutés
+    private long coalesced; // appels servis par le chargement d'un autre appelant
+    private long failures;
+    private long waitTimeouts; // appelants lassés d'attendre, qui ont chargé eux-mêmes
+    private long staleServed; // valeurs périmées servies pendant leur rechargement
+    private long backgroundRefreshes;
+    private long refreshesRejected; // file de rafraîchissement pleine
+    private int inFlight;
+}
@@ -0,0 +1,20 @@
+package com.malistore_backend.web.dto.cache;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Métriques du cache des résultats de recherche produits sur cette instance
+ */
+@Getter
+@Builder
+public class SearchCacheStatus {
+    private boolean enabled;
+    private int entries;
+    private long catalogGeneration;
+    private long hits;
+    private long misses;
+    private List<SearchShapeStatus> shapes;
+}
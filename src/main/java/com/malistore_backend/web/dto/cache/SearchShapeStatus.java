@@ -0,0 +1,18 @@
+package com.malistore_backend.web.dto.cache;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Métriques du cache de recherche pour une forme de recherche (filtres renseignés et tri)
+ */
+@Getter
+@Builder
+public class SearchShapeStatus {
+    private String shape; // ex. "term+category|price,desc"
+    private long hits;
+    private long misses;
+    private long notAdmitted; // recherches chargées mais pas assez fréquentes pour être gardées
+    private long stale; // entrées trouvées avec une génération dépassée ou expirées
+    private double hitRate;
+}
@@ -0,0 +1,20 @@
+package com.malistore_backend.web.dto.cart;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Opérations appliquées au panier en une seule transaction, dans l'ordre de la liste
+ */
+@Getter
+@Setter
+public class CartBatchRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Valid
+    private List<CartOperationDto> operations;
+}
@@ -0,0 +1,34 @@
+package com.malistore_backend.web.dto.cart;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Opération sur une ligne du panier :
+ * - ADD ajoute la quantité à la ligne (créée si besoin)
+ * - SET fixe la quantité de la ligne (0 la supprime)
+ * - REMOVE supprime la ligne
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperationDto {
+
+    public enum Type {
+        ADD, SET, REMOVE
+    }
+
+    @NotNull(message = "Operation type is required")
+    private Type type;
+
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+
+    @Min(value = 0, message = "Quantity must be positive")
+    private Integer quantity;
+}
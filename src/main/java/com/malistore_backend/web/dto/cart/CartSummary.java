@@ -0,0 +1,47 @@
+package com.malistore_backend.web.dto.cart;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Résumé du panier d'un client : nombre d'articles (lignes), quantité totale et sous-total en centimes.
+ * Valeur immuable, partagée par le cache des résumés de panier.
+ */
+@Getter
+public class CartSummary {
+
+    public static final CartSummary EMPTY = new CartSummary(0, 0, 0);
+
+    private final long itemCount;
+    private final long quantity;
+    private final long subtotalMinor;
+
+    public CartSummary(long itemCount, long quantity, long subtotalMinor) {
+        this.itemCount = itemCount;
+        this.quantity = quantity;
+        this.subtotalMinor = subtotalMinor;
+    }
+
+    /**
+     * Constructeur de la requête d'agrégat : les sommes sont nulles pour un panier vide
+     */
+    public CartSummary(Long itemCount, Long quantity, BigDecimal subtotal) {
+        this(itemCount != null ? itemCount : 0,
+                quantity != null ? quantity : 0,
+                subtotal != null ? toMinorUnits(subtotal) : 0);
+    }
+
+    public BigDecimal getSubtotal() {
+        return BigDecimal.valueOf(subtotalMinor, 2);
+    }
+
+    public CartSummary plus(long itemDelta, long quantityDelta, long subtotalMinorDelta) {
+        return new CartSummary(itemCount + itemDelta, quantity + quantityDelta, subtotalMinor + subtotalMinorDelta);
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
@@ -0,0 +1,24 @@
+package com.malistore_backend.web.dto.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.malistore_backend.data.entity.OrderStatus;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class OrderSearchDto {
+
+    private OrderStatus status;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+    private String customerEmail;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private String orderNumberPrefix;
+    private String cursor; // curseur opaque renvoyé par la page précédente
+    private Integer size = 20;
+}
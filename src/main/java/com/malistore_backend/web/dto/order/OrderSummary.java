@@ -0,0 +1,25 @@
+package com.malistore_backend.web.dto.order;
+
+import com.malistore_backend.data.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Vue allégée d'une commande pour les listes (sans articles ni adresses).
+ * Le détail s'obtient par l'ID de la commande.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderSummary {
+    private Long id;
+    private String orderNumber;
+    private OrderStatus status;
+    private BigDecimal totalAmount;
+    private Long userId;
+    private String customerName;
+    private String customerEmail;
+    private LocalDateTime createdAt;
+}
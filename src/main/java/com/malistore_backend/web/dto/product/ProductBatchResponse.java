@@ -0,0 +1,17 @@
+package com.malistore_backend.web.dto.product;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Résultat d'une lecture groupée de produits : produits trouvés dans l'ordre demandé,
+ * et IDs introuvables
+ */
+@Getter
+@AllArgsConstructor
+public class ProductBatchResponse {
+    private List<ProductResponse> products;
+    private List<Long> missingIds;
+}
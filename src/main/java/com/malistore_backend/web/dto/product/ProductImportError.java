@@ -0,0 +1,15 @@
+package com.malistore_backend.web.dto.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Ligne rejetée par l'import en masse
+ */
+@Getter
+@AllArgsConstructor
+public class ProductImportError {
+    private long line;
+    private String sku;
+    private String message;
+}
@@ -0,0 +1,29 @@
+package com.malistore_backend.web.dto.product;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Avancement d'un import en masse de produits
+ */
+@Getter
+@Builder
+public class ProductImportStatus {
+    private String jobId;
+    private String filename;
+    private String format;
+    private String state; // QUEUED, RUNNING, COMPLETED, FAILED
+    private long rowsRead;
+    private long rowsInserted;
+    private long rowsUpdated;
+    private long rowsRejected;
+    private double rowsPerSecond;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String failureMessage;
+    private List<ProductImportError> errors; // tronquée à app.import.max-reported-errors
+}
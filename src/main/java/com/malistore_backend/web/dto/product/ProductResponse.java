@@ -20,6 +20,7 @@ import lombok.Setter;
 public class ProductResponse {
     
     private Long id;
+    private String sku;
     private String name;
     private String description;
     private BigDecimal price;
@@ -0,0 +1,28 @@
+package com.malistore_backend.web.dto.scheduler;
+
+import java.time.LocalDateTime;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Métriques d'une tâche planifiée sur cette instance
+ */
+@Getter
+@Builder
+public class ScheduledJobStatus {
+    private String name;
+    private boolean singleNode;
+    private boolean running;
+    private long runs;
+    private long failures;
+    private long overruns; // déclenchements ignorés, exécution précédente encore en cours
+    private long skippedNotAssigned; // tâche attribuée à un autre nœud
+    private long skippedLocked; // verrou détenu par un autre nœud
+    private long lastDurationMs;
+    private long maxDurationMs;
+    private long lastLagMs; // délai entre le déclenchement et le démarrage
+    private long maxLagMs;
+    private LocalDateTime lastStartedAt;
+    private LocalDateTime lastFinishedAt;
+}
@@ -0,0 +1,7 @@
+package com.malistore_backend.web.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
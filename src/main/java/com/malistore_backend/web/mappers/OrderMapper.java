@@ -26,6 +26,12 @@ public interface OrderMapper {
     
     OrderResponse toResponse(Order order);
     
+    /**
+     * Convertit Order vers OrderResponse sans parcourir la collection d'articles
+     */
+    @Mapping(target = "orderItems", ignore = true)
+    OrderResponse toResponseWithoutItems(Order order);
+    
     List<OrderResponse> toResponseList(List<Order> orders);
     
     void updateOrderFromDto(OrderCreateDto orderCreateDto, @MappingTarget Order order);
@@ -17,6 +17,7 @@ public interface ProductMapper {
      * Convertit ProductCreateDto vers Product
      */
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "sku", ignore = true)
     @Mapping(target = "active", constant = "true")
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
@@ -29,10 +30,18 @@ public interface ProductMapper {
      */
     ProductResponse toResponse(Product product);
     
+    /**
+     * Convertit Product vers ProductResponse sans charger les images
+     * (elles sont ajoutées par l'appelant)
+     */
+    @Mapping(target = "images", ignore = true)
+    ProductResponse toResponseWithoutImages(Product product);
+    
     /**
      * Met à jour Product avec ProductUpdateDto
      */
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "sku", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "category", ignore = true)
@@ -0,0 +1,19 @@
+package com.malistore_backend.web.payload;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Page de résultats paginée par curseur (keyset).
+ * nextCursor est null sur la dernière page.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean hasNext;
+}
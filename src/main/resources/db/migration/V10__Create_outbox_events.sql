@@ -0,0 +1,27 @@
+-- Migration V10: Boîte d'envoi des événements métier (outbox transactionnelle)
+-- Les événements sont écrits dans la transaction qui modifie l'agrégat, puis distribués
+-- aux abonnés par l'OutboxDispatcher : au moins une fois, dans l'ordre de chaque agrégat.
+
+CREATE TABLE outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(100) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) DEFAULT 'PENDING' NOT NULL,
+    attempts INTEGER DEFAULT 0 NOT NULL,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    available_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    last_attempt_at TIMESTAMP WITHOUT TIME ZONE,
+    processed_at TIMESTAMP WITHOUT TIME ZONE
+);
+
+-- Index partiels : événements à distribuer, et prédécesseurs non traités d'un même agrégat
+CREATE INDEX idx_outbox_events_pending ON outbox_events(id)
+    WHERE status IN ('PENDING', 'PROCESSING', 'FAILED');
+CREATE INDEX idx_outbox_events_aggregate ON outbox_events(aggregate_type, aggregate_id, id)
+    WHERE status IN ('PENDING', 'PROCESSING', 'FAILED');
+-- Purge des événements traités
+CREATE INDEX idx_outbox_events_processed ON outbox_events(processed_at)
+    WHERE status = 'PROCESSED';
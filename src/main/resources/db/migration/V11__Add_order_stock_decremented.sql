@@ -0,0 +1,14 @@
+-- Migration V11: Décrément de stock unique par commande
+-- Le décrément est asynchrone (abonné à OrderPaid) : la commande peut avoir été expédiée
+-- entre-temps. L'indicateur remplace le contrôle du statut PAID pour l'idempotence.
+
+ALTER TABLE orders ADD COLUMN stock_decremented BOOLEAN DEFAULT FALSE NOT NULL;
+
+-- Commandes payées dont l'événement OrderPaid a déjà été traité : stock déjà décrémenté
+UPDATE orders o SET stock_decremented = TRUE
+WHERE o.status IN ('PAID', 'SHIPPED', 'DELIVERED')
+  AND NOT EXISTS (
+      SELECT 1 FROM outbox_events e
+      WHERE e.aggregate_type = 'order' AND e.aggregate_id = o.id
+        AND e.event_type = 'OrderPaid' AND e.status IN ('PENDING', 'PROCESSING', 'FAILED')
+  );
@@ -0,0 +1,13 @@
+-- Migration V12: Délai de reprise des événements Stripe
+-- available_at : date à partir de laquelle le balayage peut remettre l'événement en file.
+-- Repoussée à chaque réservation par le balayage (une seule instance le reprend)
+-- et après chaque échec, d'un délai croissant avec le nombre de tentatives.
+
+ALTER TABLE stripe_webhook_events
+    ADD COLUMN available_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL;
+
+UPDATE stripe_webhook_events SET available_at = COALESCE(last_attempt_at, received_at);
+
+DROP INDEX IF EXISTS idx_stripe_webhook_events_pending;
+CREATE INDEX idx_stripe_webhook_events_pending ON stripe_webhook_events(status, available_at)
+    WHERE status <> 'PROCESSED';
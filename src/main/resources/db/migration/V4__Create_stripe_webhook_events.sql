@@ -0,0 +1,22 @@
+-- Migration V4: Boîte de réception des webhooks Stripe
+-- Chaque événement est enregistré une seule fois (clé = ID d'événement Stripe)
+-- avant d'être traité de manière asynchrone.
+
+CREATE TABLE stripe_webhook_events (
+    id BIGSERIAL PRIMARY KEY,
+    event_id VARCHAR(255) NOT NULL,
+    event_type VARCHAR(100) NOT NULL,
+    ordering_key VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) DEFAULT 'RECEIVED' NOT NULL,
+    attempts INTEGER DEFAULT 0 NOT NULL,
+    last_error VARCHAR(1000),
+    received_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    last_attempt_at TIMESTAMP WITHOUT TIME ZONE,
+    processed_at TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT uk_stripe_webhook_events_event_id UNIQUE (event_id)
+);
+
+-- Index partiel pour le balayage des événements à (re)traiter
+CREATE INDEX idx_stripe_webhook_events_pending ON stripe_webhook_events(status, received_at)
+    WHERE status <> 'PROCESSED';
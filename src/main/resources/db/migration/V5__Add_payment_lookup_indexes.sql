@@ -0,0 +1,17 @@
+-- Migration V5: Index de recherche des paiements
+-- Les webhooks Stripe retrouvent le paiement par ID de session, de payment intent
+-- ou de transaction : sans index, chaque événement parcourt toute la table.
+-- Index partiels : les lignes sans identifiant Stripe ne sont pas indexées.
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_payments_stripe_session_id ON payments(stripe_session_id)
+    WHERE stripe_session_id IS NOT NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_payments_stripe_payment_intent_id ON payments(stripe_payment_intent_id)
+    WHERE stripe_payment_intent_id IS NOT NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_payments_transaction_id ON payments(transaction_id)
+    WHERE transaction_id IS NOT NULL;
+
+-- Vérification « commande déjà payée » lors de la création de session
+CREATE INDEX IF NOT EXISTS idx_payments_order_succeeded ON payments(order_id)
+    WHERE status = 'SUCCEEDED';
@@ -0,0 +1,12 @@
+-- Migration V6: Baux d'identifiant de nœud
+-- Chaque instance de l'application réserve un identifiant de nœud (0..1023) pour une
+-- durée limitée et le renouvelle périodiquement. L'identifiant entre dans la
+-- composition des numéros de commande : deux instances actives n'ont jamais le même.
+
+CREATE TABLE node_leases (
+    node_id INTEGER PRIMARY KEY,
+    instance_id VARCHAR(100) NOT NULL,
+    leased_until TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    acquired_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT ck_node_leases_node_id CHECK (node_id BETWEEN 0 AND 1023)
+);
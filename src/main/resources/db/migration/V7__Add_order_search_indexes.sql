@@ -0,0 +1,15 @@
+-- Migration V7: Index de la recherche de commandes (admin)
+-- Pagination par curseur sur (created_at, id), du plus récent au plus ancien.
+-- Les index composites remplacent les index simples sur status et user_id,
+-- dont ils couvrent les recherches par préfixe.
+
+CREATE INDEX IF NOT EXISTS idx_orders_created_id ON orders(created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_orders_status_created_id ON orders(status, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_orders_status;
+
+CREATE INDEX IF NOT EXISTS idx_orders_user_created_id ON orders(user_id, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_orders_user;
+
+-- Recherche par préfixe de numéro de commande (LIKE 'ORD-01J%') quelle que soit la collation
+CREATE INDEX IF NOT EXISTS idx_orders_order_number_prefix ON orders(order_number varchar_pattern_ops);
@@ -0,0 +1,7 @@
+-- Migration V8: Référence fournisseur (SKU) des produits
+-- Clé naturelle utilisée par l'import en masse (INSERT ... ON CONFLICT (sku)).
+-- Les produits créés à l'unité n'ont pas de SKU : plusieurs NULL sont autorisés.
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS sku VARCHAR(100);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_products_sku ON products(sku);
@@ -0,0 +1,29 @@
+-- Migration V9: Purge des paniers abandonnés
+-- Verrous des tâches planifiées : une tâche n'est exécutée que par l'instance qui détient
+-- le verrou, pour une durée limitée (échéance calculée avec l'horloge de la base).
+
+CREATE TABLE scheduled_job_locks (
+    job_name VARCHAR(100) PRIMARY KEY,
+    locked_by VARCHAR(100) NOT NULL,
+    locked_until TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    locked_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+-- Archive optionnelle des lignes purgées (analyses) : pas de clés étrangères,
+-- les utilisateurs et produits pouvant être supprimés depuis
+CREATE TABLE cart_items_archive (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL,
+    unit_price DECIMAL(10,2) NOT NULL,
+    total_price DECIMAL(10,2) NOT NULL,
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    archived_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_cart_items_archive_archived_at ON cart_items_archive(archived_at);
+
+-- Couvert par la contrainte unique (user_id, product_id), dont user_id est le préfixe
+DROP INDEX IF EXISTS idx_cart_items_user;
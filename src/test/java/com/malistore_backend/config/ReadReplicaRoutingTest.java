@@ -0,0 +1,147 @@
+package com.malistore_backend.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Routage primaire/réplica. Le « réplica » pointe ici sur la même base que le primaire,
+ * à travers un pool distinct : c'est le pool utilisé qui est vérifié.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.replica.enabled=true",
+        "app.datasource.replica.url=${spring.datasource.url}",
+        "app.datasource.replica.read-your-writes-window-ms=60000"
+})
+class ReadReplicaRoutingTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate writeTransaction;
+
+    @BeforeEach
+    void setUp() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        lagMonitor.check();
+        assertThat(lagMonitor.isReplicaUsable()).isTrue();
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplica() {
+        int replicaConnections = readOnlyTransaction.execute(status -> {
+            productRepository.count();
+            return activeConnections(replicaDataSource);
+        });
+        assertThat(replicaConnections).isEqualTo(1);
+    }
+
+    @Test
+    void writeTransactionsUsePrimary() {
+        int replicaConnections = writeTransaction.execute(status -> {
+            productRepository.count();
+            return activeConnections(replicaDataSource);
+        });
+        assertThat(replicaConnections).isZero();
+    }
+
+    @Test
+    void readsFollowingOwnWriteStayOnPrimary() {
+        authenticateAs("writer@test.local");
+        writeTransaction.executeWithoutResult(status -> productRepository.count());
+
+        int writerReplicaConnections = readOnlyTransaction.execute(status -> {
+            productRepository.count();
+            return activeConnections(replicaDataSource);
+        });
+        assertThat(writerReplicaConnections).isZero();
+
+        // Un autre utilisateur continue de lire sur le réplica
+        authenticateAs("reader@test.local");
+        int readerReplicaConnections = readOnlyTransaction.execute(status -> {
+            productRepository.count();
+            return activeConnections(replicaDataSource);
+        });
+        assertThat(readerReplicaConnections).isEqualTo(1);
+    }
+
+    @Test
+    void cacheReloadsUsePrimary() {
+        TransactionTemplate reload = PrimaryReads.readOnlyTransaction(transactionManager, "test-cache");
+        int replicaConnections = reload.execute(status -> {
+            productRepository.count();
+            return activeConnections(replicaDataSource);
+        });
+        assertThat(replicaConnections).isZero();
+    }
+
+    @Test
+    void readOnlySessionSkipsDirtyChecking() {
+        Long productId = productRepository.findByActiveTrue().get(0).getId();
+
+        // Réglage appliqué par HibernateJpaDialect à toute transaction readOnly
+        readOnlyTransaction.executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            assertThat(session.isDefaultReadOnly()).isTrue();
+            assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.MANUAL);
+
+            Product product = productRepository.findById(productId).orElseThrow();
+            assertThat(session.isReadOnly(product)).isTrue();
+            product.setName(product.getName() + " (modifié)");
+        });
+
+        Product reloaded = productRepository.findById(productId).orElseThrow();
+        assertThat(reloaded.getName()).doesNotEndWith(" (modifié)");
+    }
+
+    private static void authenticateAs(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+
+    private static int activeConnections(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool != null ? pool.getActiveConnections() : 0;
+    }
+}
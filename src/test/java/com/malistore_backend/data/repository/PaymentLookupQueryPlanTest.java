@@ -0,0 +1,53 @@
+package com.malistore_backend.data.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Vérifie que les recherches de paiement faites à chaque webhook passent par un index.
+ *
+ * Sur une table presque vide, le planificateur préfère légitimement un parcours séquentiel :
+ * on le pénalise donc (enable_seqscan = off) le temps de la transaction. S'il le choisit
+ * malgré tout, c'est qu'aucun index n'est utilisable pour la requête.
+ */
+@SpringBootTest
+class PaymentLookupQueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // PaymentRepository.findByStripeSessionId
+            "SELECT * FROM payments WHERE stripe_session_id = 'cs_test_plan'",
+            // PaymentRepository.findByStripePaymentIntentId
+            "SELECT * FROM payments WHERE stripe_payment_intent_id = 'pi_test_plan'",
+            // PaymentRepository.findByTransactionId
+            "SELECT * FROM payments WHERE transaction_id = 'cs_test_plan'",
+            // Paiement réussi d'une commande (OrderRepository.findPayableWithItems)
+            "SELECT 1 FROM payments WHERE order_id = 1 AND status = 'SUCCEEDED'",
+            // StripeWebhookEventRepository.findByEventId
+            "SELECT * FROM stripe_webhook_events WHERE event_id = 'evt_test_plan'"
+    })
+    void webhookLookupsUseAnIndex(String query) {
+        List<String> plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return jdbcTemplate.queryForList("EXPLAIN " + query, String.class);
+        });
+
+        assertThat(plan)
+                .as("Plan for: %s", query)
+                .noneMatch(line -> line.contains("Seq Scan"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.malistore_backend.web.dto.product.ProductResponse;
+
+/**
+ * Une notification émise par une autre instance évince l'entrée locale ;
+ * les clés trop nombreuses sont découpées en plusieurs notifications.
+ */
+@SpringBootTest
+class CacheInvalidationBusTest {
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void remoteNotificationEvictsLocalEntry() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!cacheInvalidationBus.isConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(cacheInvalidationBus.isConnected()).isTrue();
+
+        Long productId = -4242L;
+        productCache.putLoaded(productCache.stamp(List.of(productId)), ProductResponse.builder().id(productId).name("Cached elsewhere").build());
+        assertThat(productCache.get(productId)).isNotNull();
+
+        // Notification d'une autre instance
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CacheInvalidationBus.CHANNEL,
+                "other-instance|" + ProductCache.CACHE_NAME + "|" + productId);
+
+        while (productCache.get(productId) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(productCache.get(productId)).isNull();
+    }
+
+    @Test
+    void keysAreSplitAcrossPayloads() {
+        List<String> keys = new ArrayList<>();
+        for (long id = 1_000_000_000L; keys.size() < 900; id++) {
+            keys.add(Long.toString(id));
+        }
+
+        List<String> payloads = CacheInvalidationBus.payloads("node", "product", keys);
+
+        assertThat(payloads).hasSizeGreaterThan(1);
+        assertThat(payloads).allSatisfy(payload -> assertThat(payload.length()).isLessThanOrEqualTo(7000));
+        assertThat(payloads.stream().mapToInt(payload -> payload.substring("node|product|".length()).split(",").length).sum())
+                .isEqualTo(keys.size());
+        assertThat(CacheInvalidationBus.payloads("node", "product", List.of("1", CacheInvalidationBus.ALL)))
+                .containsExactly("node|product|*");
+    }
+}
@@ -0,0 +1,171 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.malistore_backend.data.entity.Order;
+import com.malistore_backend.data.entity.OrderItem;
+import com.malistore_backend.data.entity.OrderStatus;
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.CartItemRepository;
+import com.malistore_backend.data.repository.OrderItemRepository;
+import com.malistore_backend.data.repository.OrderRepository;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.web.dto.cart.AddToCartDto;
+import com.malistore_backend.web.dto.cart.CartItemResponse;
+import com.malistore_backend.web.dto.cart.CartOperationDto;
+import com.malistore_backend.web.dto.cart.CartOperationDto.Type;
+import com.malistore_backend.web.dto.cart.CartResponse;
+import com.malistore_backend.web.dto.cart.CartSummary;
+import com.malistore_backend.web.exception.BadRequestException;
+
+/**
+ * Les opérations en lot sur le panier s'appliquent en tout ou rien, dans l'ordre,
+ * et la réponse reflète le panier recalculé.
+ */
+@SpringBootTest
+class CartBatchTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private List<Product> products;
+
+    @BeforeEach
+    void createCustomer() {
+        User customer = new User();
+        customer.setName("Cart Batch Test");
+        customer.setEmail("cart-batch-" + System.nanoTime() + "@test.local");
+        customer.setPassword("not-a-real-password");
+        user = userRepository.save(customer);
+
+        products = productRepository.findByActiveTrue().stream()
+                .filter(product -> product.getStock() >= 5)
+                .limit(3)
+                .toList();
+        assertThat(products).hasSize(3);
+    }
+
+    @AfterEach
+    void deleteCustomer() {
+        // Panier et commandes supprimés en cascade par la base
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void operationsApplyInOrder() {
+        Product first = products.get(0);
+        Product second = products.get(1);
+        Product third = products.get(2);
+        cartService.addToCart(user, addToCart(first, 1));
+
+        CartResponse cart = cartService.applyBatch(user, List.of(
+                new CartOperationDto(Type.ADD, second.getId(), 2),
+                new CartOperationDto(Type.SET, first.getId(), 3),
+                new CartOperationDto(Type.ADD, third.getId(), 1),
+                new CartOperationDto(Type.REMOVE, third.getId(), null),
+                new CartOperationDto(Type.ADD, second.getId(), 1)));
+
+        assertThat(quantitiesByProduct(cart)).isEqualTo(Map.of(first.getId(), 3, second.getId(), 3));
+        assertThat(cart.getTotalItems()).isEqualTo(6);
+        assertThat(cart.getSubtotal()).isEqualByComparingTo(
+                first.getPrice().multiply(BigDecimal.valueOf(3)).add(second.getPrice().multiply(BigDecimal.valueOf(3))));
+
+        // Le résumé en cache suit le lot
+        CartSummary summary = cartService.getCartSummary(user);
+        CartSummary database = cartItemRepository.summarizeByUser(user);
+        assertThat(summary.getItemCount()).isEqualTo(database.getItemCount()).isEqualTo(2);
+        assertThat(summary.getSubtotalMinor()).isEqualTo(database.getSubtotalMinor());
+    }
+
+    @Test
+    void insufficientStockRejectsWholeBatch() {
+        Product first = products.get(0);
+        Product second = products.get(1);
+        cartService.addToCart(user, addToCart(first, 1));
+
+        assertThatThrownBy(() -> cartService.applyBatch(user, List.of(
+                new CartOperationDto(Type.ADD, first.getId(), 1),
+                new CartOperationDto(Type.SET, second.getId(), second.getStock() + 1))))
+                .isInstanceOf(BadRequestException.class);
+
+        assertThat(quantitiesByProduct(cartService.getCart(user))).isEqualTo(Map.of(first.getId(), 1));
+    }
+
+    @Test
+    void reorderAddsOrderItemsToCart() {
+        Product first = products.get(0);
+        Product second = products.get(1);
+        Long orderId = transactionTemplate.execute(status -> {
+            Order order = orderRepository.save(Order.builder()
+                    .user(user)
+                    .orderNumber("REORDER-" + user.getId())
+                    .status(OrderStatus.DELIVERED)
+                    .totalAmount(BigDecimal.TEN)
+                    .build());
+            for (Product product : List.of(first, second)) {
+                orderItemRepository.save(OrderItem.builder()
+                        .order(order)
+                        .product(productRepository.getReferenceById(product.getId()))
+                        .quantity(2)
+                        .unitPrice(product.getPrice())
+                        .build());
+            }
+            return order.getId();
+        });
+        cartService.addToCart(user, addToCart(first, 1));
+
+        CartResponse cart = cartService.reorder(user, orderId);
+
+        assertThat(quantitiesByProduct(cart)).isEqualTo(Map.of(first.getId(), 3, second.getId(), 2));
+    }
+
+    private static Map<Long, Integer> quantitiesByProduct(CartResponse cart) {
+        return cart.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItemResponse::getQuantity));
+    }
+
+    private static AddToCartDto addToCart(Product product, int quantity) {
+        AddToCartDto dto = new AddToCartDto();
+        dto.setProductId(product.getId());
+        dto.setQuantity(quantity);
+        return dto;
+    }
+}
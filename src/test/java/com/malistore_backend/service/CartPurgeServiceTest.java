@@ -0,0 +1,104 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.CartItemRepository;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.web.dto.cart.AddToCartDto;
+import com.malistore_backend.web.dto.cart.CartItemResponse;
+
+/**
+ * La purge supprime les lignes de panier anciennes, les archive si demandé,
+ * et laisse les lignes récentes.
+ */
+@SpringBootTest(properties = {
+        "app.cart.purge.archive=true",
+        "app.cart.purge.chunk-size=2",
+        "app.cart.purge.chunk-delay-ms=0",
+        // Exécution déclenchée par le test
+        "app.cart.purge.cron=-"
+})
+class CartPurgeServiceTest {
+
+    @Autowired
+    private CartPurgeService cartPurgeService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private List<Product> products;
+
+    @BeforeEach
+    void createCustomer() {
+        User customer = new User();
+        customer.setName("Cart Purge Test");
+        customer.setEmail("cart-purge-" + System.nanoTime() + "@test.local");
+        customer.setPassword("not-a-real-password");
+        user = userRepository.save(customer);
+
+        products = productRepository.findByActiveTrue().stream()
+                .filter(product -> product.getStock() >= 1)
+                .limit(2)
+                .toList();
+        assertThat(products).hasSize(2);
+    }
+
+    @AfterEach
+    void deleteCustomer() {
+        jdbcTemplate.update("DELETE FROM cart_items_archive WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void staleLinesArePurgedAndArchived() {
+        CartItemResponse stale = cartService.addToCart(user, addToCart(products.get(0)));
+        CartItemResponse fresh = cartService.addToCart(user, addToCart(products.get(1)));
+        jdbcTemplate.update("UPDATE cart_items SET updated_at = CURRENT_TIMESTAMP - INTERVAL '40 days' WHERE id = ?",
+                stale.getId());
+
+        cartPurgeService.run();
+
+        assertThat(cartItemRepository.existsById(stale.getId())).isFalse();
+        assertThat(cartItemRepository.existsById(fresh.getId())).isTrue();
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM cart_items_archive WHERE user_id = ?", Long.class,
+                user.getId())).containsExactly(stale.getId());
+        assertThat(cartService.getCartSummary(user).getItemCount()).isEqualTo(1);
+
+        CartPurgeService.Run run = cartPurgeService.getRecentRuns().get(0);
+        assertThat(run.failed()).isFalse();
+        assertThat(run.linesPurged()).isGreaterThanOrEqualTo(1);
+        assertThat(run.chunks()).isGreaterThanOrEqualTo(1);
+    }
+
+    private static AddToCartDto addToCart(Product product) {
+        AddToCartDto dto = new AddToCartDto();
+        dto.setProductId(product.getId());
+        dto.setQuantity(1);
+        return dto;
+    }
+}
@@ -0,0 +1,115 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.CartItemRepository;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.web.dto.cart.AddToCartDto;
+import com.malistore_backend.web.dto.cart.CartSummary;
+import com.malistore_backend.web.dto.product.ProductUpdateDto;
+
+/**
+ * Un changement de prix produit remet les lignes de panier concernées au nouveau prix,
+ * par blocs, et invalide les résumés de panier en cache.
+ */
+@SpringBootTest(properties = {
+        "app.cart.repricing.chunk-size=1",
+        // Exécution déclenchée par le test
+        "app.cart.repricing.interval-ms=3600000"
+})
+class CartRepricingServiceTest {
+
+    @Autowired
+    private CartRepricingService cartRepricingService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<User> users = new ArrayList<>();
+    private Product product;
+
+    @BeforeEach
+    void createCarts() {
+        product = productRepository.findByActiveTrue().stream()
+                .filter(candidate -> candidate.getStock() >= 5)
+                .findFirst()
+                .orElseThrow();
+        for (int i = 0; i < 2; i++) {
+            User customer = new User();
+            customer.setName("Cart Repricing Test");
+            customer.setEmail("cart-repricing-" + i + "-" + System.nanoTime() + "@test.local");
+            customer.setPassword("not-a-real-password");
+            User user = userRepository.save(customer);
+            users.add(user);
+
+            AddToCartDto dto = new AddToCartDto();
+            dto.setProductId(product.getId());
+            dto.setQuantity(2);
+            cartService.addToCart(user, dto);
+        }
+    }
+
+    @AfterEach
+    void restorePrice() {
+        // Paniers supprimés en cascade par la base
+        users.forEach(user -> jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId()));
+        ProductUpdateDto restore = new ProductUpdateDto();
+        restore.setPrice(product.getPrice());
+        productService.updateProduct(product.getId(), restore);
+        cartRepricingService.runPending();
+    }
+
+    @Test
+    void priceChangeRepricesCartsInChunks() {
+        users.forEach(cartService::getCartSummary);
+        BigDecimal newPrice = product.getPrice().add(BigDecimal.ONE);
+        ProductUpdateDto update = new ProductUpdateDto();
+        update.setPrice(newPrice);
+
+        productService.updateProduct(product.getId(), update);
+        assertThat(cartRepricingService.getPendingProducts()).isEqualTo(1);
+        cartRepricingService.runPending();
+
+        CartRepricingService.Run run = cartRepricingService.getRecentRuns().get(0);
+        assertThat(run.failed()).isFalse();
+        assertThat(run.linesRepriced()).isGreaterThanOrEqualTo(2);
+        // Blocs d'une ligne : le dernier ne trouve plus de ligne à mettre à jour
+        assertThat(run.chunks()).isEqualTo((int) run.linesRepriced() + 1);
+
+        BigDecimal expectedTotal = newPrice.multiply(BigDecimal.valueOf(2));
+        for (User user : users) {
+            CartSummary summary = cartService.getCartSummary(user);
+            assertThat(summary.getSubtotal()).isEqualByComparingTo(expectedTotal);
+            assertThat(cartItemRepository.summarizeByUser(user).getSubtotal()).isEqualByComparingTo(expectedTotal);
+        }
+    }
+}
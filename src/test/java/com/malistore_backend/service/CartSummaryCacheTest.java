@@ -0,0 +1,164 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.CartItemRepository;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.support.SqlStatementCounter;
+import com.malistore_backend.support.StatementCountTest;
+import com.malistore_backend.web.dto.cart.AddToCartDto;
+import com.malistore_backend.web.dto.cart.CartItemResponse;
+import com.malistore_backend.web.dto.cart.CartSummary;
+import com.malistore_backend.web.dto.cart.UpdateCartItemDto;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Le résumé du panier est tenu à jour par les écritures du panier : après chaque opération,
+ * il est servi sans requête et reste égal à l'agrégat calculé en base.
+ */
+@StatementCountTest
+class CartSummaryCacheTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartSummaryCache cartSummaryCache;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SqlStatementCounter counter;
+    private User user;
+    private List<Product> products;
+
+    @BeforeEach
+    void createCustomer() {
+        counter = new SqlStatementCounter(entityManagerFactory);
+
+        User customer = new User();
+        customer.setName("Cart Summary Test");
+        customer.setEmail("cart-summary-" + System.nanoTime() + "@test.local");
+        customer.setPassword("not-a-real-password");
+        user = userRepository.save(customer);
+
+        products = productRepository.findByActiveTrue().stream()
+                .filter(product -> product.getStock() >= 5)
+                .limit(2)
+                .toList();
+        assertThat(products).hasSize(2);
+    }
+
+    @AfterEach
+    void deleteCustomer() {
+        // Articles du panier supprimés en cascade par la base
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void summaryFollowsCartWrites() {
+        assertSummaryMatchesDatabase(0);
+
+        CartItemResponse first = cartService.addToCart(user, addToCart(products.get(0), 2));
+        assertCachedSummaryMatchesDatabase(1);
+
+        cartService.addToCart(user, addToCart(products.get(1), 1));
+        cartService.addToCart(user, addToCart(products.get(0), 1));
+        assertCachedSummaryMatchesDatabase(2);
+
+        UpdateCartItemDto update = new UpdateCartItemDto();
+        update.setQuantity(4);
+        cartService.updateCartItem(user, first.getId(), update);
+        assertCachedSummaryMatchesDatabase(2);
+
+        cartService.removeFromCart(user, first.getId());
+        assertCachedSummaryMatchesDatabase(1);
+
+        cartService.clearCart(user);
+        assertCachedSummaryMatchesDatabase(0);
+    }
+
+    @Test
+    void fullCartReadPrimesSummary() {
+        cartService.addToCart(user, addToCart(products.get(0), 3));
+
+        assertThat(cartService.getCart(user).getTotalItems()).isEqualTo(3);
+        assertCachedSummaryMatchesDatabase(1);
+    }
+
+    @Test
+    void writeOnAnotherInstanceEvictsSummary() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!cacheInvalidationBus.isConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(cacheInvalidationBus.isConnected()).isTrue();
+        CartItemResponse line = cartService.addToCart(user, addToCart(products.get(0), 1));
+        assertCachedSummaryMatchesDatabase(1);
+
+        // Écriture du panier par une autre instance, puis sa notification
+        jdbcTemplate.update("UPDATE cart_items SET quantity = 3 WHERE id = ?", line.getId());
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CacheInvalidationBus.CHANNEL,
+                "other-instance|" + CartSummaryCache.CACHE_NAME + "|" + user.getId());
+
+        while (cartSummaryCache.get(user.getId()) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(cartService.getCartSummary(user).getQuantity()).isEqualTo(3);
+        assertSummaryMatchesDatabase(1);
+    }
+
+    private void assertSummaryMatchesDatabase(long expectedItems) {
+        CartSummary summary = cartService.getCartSummary(user);
+        assertEqualsDatabase(summary, expectedItems);
+    }
+
+    private void assertCachedSummaryMatchesDatabase(long expectedItems) {
+        CartSummary[] summary = new CartSummary[1];
+        long statements = counter.count(() -> summary[0] = cartService.getCartSummary(user));
+
+        assertThat(statements).isZero();
+        assertEqualsDatabase(summary[0], expectedItems);
+    }
+
+    private void assertEqualsDatabase(CartSummary summary, long expectedItems) {
+        CartSummary database = cartItemRepository.summarizeByUser(user);
+        assertThat(summary.getItemCount()).isEqualTo(expectedItems).isEqualTo(database.getItemCount());
+        assertThat(summary.getQuantity()).isEqualTo(database.getQuantity());
+        assertThat(summary.getSubtotalMinor()).isEqualTo(database.getSubtotalMinor());
+    }
+
+    private static AddToCartDto addToCart(Product product, int quantity) {
+        AddToCartDto dto = new AddToCartDto();
+        dto.setProductId(product.getId());
+        dto.setQuantity(quantity);
+        return dto;
+    }
+}
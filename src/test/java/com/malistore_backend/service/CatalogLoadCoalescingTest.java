@@ -0,0 +1,131 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.support.SqlStatementCounter;
+import com.malistore_backend.support.StatementCountTest;
+import com.malistore_backend.web.dto.category.CategoryResponse;
+import com.malistore_backend.web.dto.product.ProductResponse;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Une rafale de lectures concurrentes d'une même clé, caches vidés, coûte les requêtes
+ * d'une seule lecture : les appelants arrivés pendant le chargement l'attendent,
+ * ceux arrivés après sont servis par le cache.
+ */
+@StatementCountTest
+class CatalogLoadCoalescingTest {
+
+    private static final int BURST = 32;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private CategorySnapshot categorySnapshot;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SqlStatementCounter counter;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        counter = new SqlStatementCounter(entityManagerFactory);
+        callers = Executors.newFixedThreadPool(BURST);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void productDetailBurstLoadsOnce() {
+        Long productId = productRepository.findByActiveTrue().stream()
+                .filter(product -> product.getCategory() != null)
+                .map(Product::getId)
+                .findFirst()
+                .orElseThrow();
+        productCache.invalidateAll();
+        evictSecondLevelCache();
+
+        List<ProductResponse> responses = new ArrayList<>();
+        // Produit, catégorie et images : trois requêtes pour toute la rafale
+        long statements = counter.count(() -> responses.addAll(burst(() -> productService.getProductById(productId))));
+
+        assertThat(statements).isEqualTo(3);
+        assertThat(responses).hasSize(BURST).allSatisfy(response -> assertThat(response.getId()).isEqualTo(productId));
+    }
+
+    @Test
+    void categoryMenuBurstRebuildsOnce() {
+        categorySnapshot.invalidate();
+        evictSecondLevelCache();
+
+        List<List<CategoryResponse>> responses = new ArrayList<>();
+        // Comptage par catégorie et liste des catégories actives
+        long statements = counter.count(() -> responses.addAll(burst(() -> categoryService.getActiveCategories())));
+
+        assertThat(statements).isEqualTo(2);
+        assertThat(responses).hasSize(BURST);
+        assertThat(responses).allSatisfy(categories -> assertThat(categories).isSameAs(responses.get(0)));
+    }
+
+    /**
+     * Lance l'appel depuis BURST threads libérés en même temps
+     */
+    private <T> List<T> burst(Callable<T> call) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < BURST; i++) {
+            futures.add(callers.submit(() -> {
+                start.await();
+                return call.call();
+            }));
+        }
+        start.countDown();
+
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Burst call failed", e);
+        }
+        return results;
+    }
+
+    private void evictSecondLevelCache() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+}
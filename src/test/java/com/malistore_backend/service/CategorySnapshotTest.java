@@ -0,0 +1,109 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.malistore_backend.web.dto.category.CategoryCreateDto;
+import com.malistore_backend.web.dto.category.CategoryResponse;
+import com.malistore_backend.web.dto.product.ProductCreateDto;
+import com.malistore_backend.web.dto.product.ProductResponse;
+
+/**
+ * Le menu des catégories est servi par un instantané partagé, avec les nombres de produits
+ * de la base, et reconstruit après les modifications des catégories et des produits.
+ */
+@SpringBootTest(properties = {
+        // Reconstructions déclenchées par le test uniquement
+        "app.cache.category.refresh-interval-ms=3600000",
+        "app.cache.category.stale-while-revalidate=false"
+})
+class CategorySnapshotTest {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategorySnapshot categorySnapshot;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long categoryId;
+
+    @AfterEach
+    void deleteCategory() {
+        if (categoryId != null) {
+            List<Long> productIds = jdbcTemplate.queryForList("SELECT id FROM products WHERE category_id = ?",
+                    Long.class, categoryId);
+            jdbcTemplate.update("DELETE FROM products WHERE category_id = ?", categoryId);
+            jdbcTemplate.update("DELETE FROM categories WHERE id = ?", categoryId);
+            productIds.forEach(productCache::invalidate);
+        }
+        categorySnapshot.invalidate();
+    }
+
+    @Test
+    void menuCountsMatchDatabase() {
+        categorySnapshot.invalidate();
+        Map<Long, Long> expected = new HashMap<>();
+        jdbcTemplate.query("SELECT category_id, COUNT(*) FROM products WHERE category_id IS NOT NULL GROUP BY category_id",
+                rs -> {
+                    expected.put(rs.getLong(1), rs.getLong(2));
+                });
+
+        List<CategoryResponse> menu = categoryService.getActiveCategories();
+
+        assertThat(menu).isNotEmpty().allSatisfy(category -> assertThat(category.getProductCount())
+                .as(category.getName())
+                .isEqualTo(expected.getOrDefault(category.getId(), 0L)));
+        // Même instantané tant qu'aucune modification n'a eu lieu
+        assertThat(categoryService.getActiveCategories()).isSameAs(menu);
+    }
+
+    @Test
+    void menuFollowsCategoryAndProductChanges() {
+        CategoryCreateDto category = new CategoryCreateDto();
+        category.setName("Snapshot Test " + System.nanoTime());
+        category.setSortOrder(999);
+        categoryId = categoryService.createCategory(category).getId();
+
+        assertThat(menuEntry()).isNotNull().satisfies(entry -> assertThat(entry.getProductCount()).isZero());
+
+        ProductCreateDto product = new ProductCreateDto();
+        product.setName("Snapshot Test Product");
+        product.setPrice(BigDecimal.TEN);
+        product.setStock(1);
+        product.setCategoryId(categoryId);
+        ProductResponse created = productService.createProduct(product);
+
+        assertThat(created.getId()).isNotNull();
+        assertThat(menuEntry().getProductCount()).isEqualTo(1);
+
+        categoryService.toggleCategoryStatus(categoryId);
+
+        assertThat(menuEntry()).isNull();
+    }
+
+    private CategoryResponse menuEntry() {
+        return categoryService.getActiveCategories().stream()
+                .filter(category -> category.getId().equals(categoryId))
+                .findFirst()
+                .orElse(null);
+    }
+}
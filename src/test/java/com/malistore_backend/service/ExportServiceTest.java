@@ -0,0 +1,132 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.malistore_backend.data.entity.Order;
+import com.malistore_backend.data.entity.OrderStatus;
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.OrderRepository;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.service.ExportService.ExportFilter;
+
+/**
+ * Exports en flux : lignes triées par ID, reprise après le dernier ID reçu,
+ * filtre sur la date de création et champs CSV échappés.
+ */
+@SpringBootTest
+class ExportServiceTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2001, 1, 15, 0, 0);
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private List<Long> orderIds;
+
+    @BeforeEach
+    void createOrders() {
+        User customer = new User();
+        customer.setName("Export Test");
+        customer.setEmail("export-" + System.nanoTime() + "@test.local");
+        customer.setPassword("not-a-real-password");
+        user = userRepository.save(customer);
+
+        orderIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = orderRepository.save(Order.builder()
+                    .user(user)
+                    .orderNumber("EXP-" + user.getId() + "-" + i)
+                    .status(OrderStatus.PENDING)
+                    .totalAmount(new BigDecimal("10.50"))
+                    .shippingAddress("12 rue de la Paix, \"Bât. B\"")
+                    .build());
+            orderIds.add(order.getId());
+            // Jours consécutifs, loin des commandes des autres tests
+            jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", DAY.plusDays(i), order.getId());
+        }
+    }
+
+    @AfterEach
+    void deleteCustomer() {
+        // Commandes supprimées en cascade par la base
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void ndjsonExportResumesAfterLastId() throws IOException {
+        Long beforeFirst = orderIds.get(0) - 1;
+
+        List<JsonNode> firstPart = ndjson(new ExportFilter(null, null, beforeFirst, 2));
+        Long lastReceived = firstPart.get(firstPart.size() - 1).get("id").asLong();
+        List<JsonNode> rest = ndjson(new ExportFilter(null, null, lastReceived, null));
+
+        assertThat(firstPart).extracting(row -> row.get("id").asLong()).containsExactly(orderIds.get(0), orderIds.get(1));
+        assertThat(rest).extracting(row -> row.get("id").asLong()).startsWith(orderIds.get(2));
+        assertThat(firstPart.get(0).get("customer_email").asText()).isEqualTo(user.getEmail());
+        assertThat(firstPart.get(0).get("total_amount").decimalValue()).isEqualByComparingTo("10.50");
+    }
+
+    @Test
+    void dateRangeFiltersOnCreation() throws IOException {
+        List<JsonNode> rows = ndjson(new ExportFilter(DAY.plusDays(1), DAY.plusDays(2), null, null));
+
+        assertThat(rows).extracting(row -> row.get("id").asLong()).containsExactly(orderIds.get(1));
+    }
+
+    @Test
+    void csvExportHasHeaderAndQuotedFields() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportOrders(new ExportFilter(DAY, DAY.plusDays(1), null, null), ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(rows).isEqualTo(1);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("id,order_number,status,total_amount,");
+        assertThat(lines[1]).startsWith(orderIds.get(0) + ",EXP-" + user.getId() + "-0,PENDING,10.50,")
+                .contains(",\"12 rue de la Paix, \"\"Bât. B\"\"\",");
+    }
+
+    private List<JsonNode> ndjson(ExportFilter filter) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportOrders(filter, ExportFormat.NDJSON, out);
+
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isBlank()) {
+                rows.add(objectMapper.readTree(line));
+            }
+        }
+        return rows;
+    }
+}
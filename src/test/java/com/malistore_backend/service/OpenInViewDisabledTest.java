@@ -0,0 +1,221 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.malistore_backend.data.entity.CartItem;
+import com.malistore_backend.data.entity.Order;
+import com.malistore_backend.data.entity.OrderItem;
+import com.malistore_backend.data.entity.OrderStatus;
+import com.malistore_backend.data.entity.Payment;
+import com.malistore_backend.data.entity.PaymentMethod;
+import com.malistore_backend.data.entity.PaymentStatus;
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.entity.ShippingAddress;
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.CartItemRepository;
+import com.malistore_backend.data.repository.OrderItemRepository;
+import com.malistore_backend.data.repository.OrderRepository;
+import com.malistore_backend.data.repository.PaymentRepository;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.data.repository.ShippingAddressRepository;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.web.dto.product.ProductSearchDto;
+
+/**
+ * Sans open-in-view, aucune session n'est ouverte pendant la sérialisation :
+ * chaque chemin de lecture doit renvoyer un DTO complet, sans chargement paresseux
+ * après la fin de la transaction du service. Les services sont appelés ici hors
+ * transaction, comme depuis un contrôleur, puis leur résultat est sérialisé.
+ */
+@SpringBootTest
+class OpenInViewDisabledTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private ShippingAddressService shippingAddressService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ShippingAddressRepository shippingAddressRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Long productId;
+    private Long addressId;
+    private Long orderId;
+    private Long paymentId;
+
+    @BeforeEach
+    void createCustomerData() {
+        transactionTemplate.executeWithoutResult(status -> {
+            User customer = new User();
+            customer.setName("Lazy Test");
+            customer.setEmail("lazy-" + System.nanoTime() + "@test.local");
+            customer.setPassword("not-a-real-password");
+            user = userRepository.save(customer);
+
+            Product product = productRepository.findByActiveTrue().get(0);
+            productId = product.getId();
+
+            ShippingAddress address = shippingAddressRepository.save(ShippingAddress.builder()
+                    .user(user)
+                    .addressName("Maison")
+                    .streetAddress("1 rue du Test")
+                    .city("Bamako")
+                    .stateProvince("Bamako")
+                    .postalCode("00000")
+                    .country("ML")
+                    .isDefault(true)
+                    .build());
+            addressId = address.getId();
+
+            cartItemRepository.save(CartItem.builder()
+                    .user(user)
+                    .product(product)
+                    .quantity(1)
+                    .unitPrice(product.getPrice())
+                    .build());
+
+            Order order = orderRepository.save(Order.builder()
+                    .user(user)
+                    .orderNumber("LAZY-" + user.getId())
+                    .status(OrderStatus.PENDING)
+                    .totalAmount(product.getPrice())
+                    .shippingAddressEntity(address)
+                    .build());
+            orderId = order.getId();
+            orderItemRepository.save(OrderItem.builder()
+                    .order(order)
+                    .product(product)
+                    .quantity(1)
+                    .unitPrice(product.getPrice())
+                    .build());
+
+            paymentId = paymentRepository.save(Payment.builder()
+                    .order(order)
+                    .status(PaymentStatus.PENDING)
+                    .amount(product.getPrice())
+                    .paymentMethod(PaymentMethod.CARD)
+                    .currency("EUR")
+                    .build()).getId();
+        });
+    }
+
+    @AfterEach
+    void deleteCustomerData() {
+        // Adresses, panier, commandes, articles et paiements supprimés en cascade par la base
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void openInViewIsDisabled() {
+        assertThat(applicationContext.getBeansOfType(OpenEntityManagerInViewInterceptor.class)).isEmpty();
+    }
+
+    @Test
+    void productReadPathsReturnCompleteDtos() {
+        ProductSearchDto search = new ProductSearchDto();
+        search.setPage(0);
+        search.setSize(20);
+
+        assertSerializable(() -> productService.getAllProducts(PageRequest.of(0, 20)));
+        assertSerializable(() -> productService.getAllActiveProducts());
+        assertSerializable(() -> productService.getProductById(productId));
+        assertSerializable(() -> productService.getProductsByIds(List.of(productId, -1L)));
+        assertSerializable(() -> productService.searchProducts(search));
+        assertSerializable(() -> productService.getProductsByPriceRange(BigDecimal.ZERO, BigDecimal.valueOf(1_000_000),
+                PageRequest.of(0, 20)));
+    }
+
+    @Test
+    void orderReadPathsReturnCompleteDtos() {
+        assertSerializable(() -> orderService.getUserOrders(user, null, 20));
+        assertSerializable(() -> orderService.getUserOrderById(user, orderId));
+        assertSerializable(() -> orderService.getOrderById(orderId));
+    }
+
+    @Test
+    void cartReadPathsReturnCompleteDtos() {
+        assertSerializable(() -> cartService.getCart(user));
+    }
+
+    @Test
+    void paymentReadPathsReturnCompleteDtos() {
+        assertSerializable(() -> paymentService.getPaymentById(paymentId));
+        assertSerializable(() -> paymentService.getUserPayments(user.getId()));
+        assertSerializable(() -> paymentService.getOrderPayments(orderId));
+    }
+
+    @Test
+    void shippingAddressReadPathsReturnCompleteDtos() {
+        assertSerializable(() -> shippingAddressService.getUserShippingAddresses(user));
+        assertSerializable(() -> shippingAddressService.getUserShippingAddressById(user, addressId));
+        assertSerializable(() -> shippingAddressService.getDefaultShippingAddress(user));
+    }
+
+    /**
+     * Appelle le service hors transaction puis sérialise le résultat comme le ferait Jackson
+     * dans la réponse HTTP : tout proxy non initialisé lève LazyInitializationException
+     */
+    private void assertSerializable(Supplier<?> serviceCall) {
+        assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+        assertThatCode(() -> objectMapper.writeValueAsString(serviceCall.get())).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,150 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.malistore_backend.data.entity.Order;
+import com.malistore_backend.data.entity.OrderItem;
+import com.malistore_backend.data.entity.OrderStatus;
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.OrderItemRepository;
+import com.malistore_backend.data.repository.OrderRepository;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.support.StatementCountTest;
+import com.malistore_backend.web.dto.order.OrderResponse;
+import com.malistore_backend.web.payload.CursorPage;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * L'historique des commandes d'un client se charge en un nombre constant de requêtes,
+ * quel que soit le nombre de commandes et d'articles de la page.
+ */
+@StatementCountTest
+class OrderHistoryQueryCountTest {
+
+    private static final int ORDERS = 200;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+
+    @BeforeEach
+    void createOrderHistory() {
+        user = transactionTemplate.execute(status -> {
+            User customer = new User();
+            customer.setName("History Test");
+            customer.setEmail("history-" + System.nanoTime() + "@test.local");
+            customer.setPassword("not-a-real-password");
+            customer = userRepository.save(customer);
+
+            List<Product> products = productRepository.findByActiveTrue();
+            for (int i = 0; i < ORDERS; i++) {
+                Order order = orderRepository.save(Order.builder()
+                        .user(customer)
+                        .orderNumber("HIST-" + customer.getId() + "-" + i)
+                        .status(OrderStatus.PAID)
+                        .totalAmount(BigDecimal.TEN)
+                        .build());
+                for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                    Product product = products.get((i + j) % products.size());
+                    orderItemRepository.save(OrderItem.builder()
+                            .order(order)
+                            .product(product)
+                            .quantity(1)
+                            .unitPrice(product.getPrice())
+                            .build());
+                }
+            }
+            return customer;
+        });
+    }
+
+    @AfterEach
+    void deleteOrderHistory() {
+        // Commandes et articles supprimés en cascade par la base
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void fullHistoryLoadsInTwoQueriesPerPage() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<OrderResponse> history = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+
+        // Pages plafonnées à 100 commandes : l'historique complet se parcourt par curseur
+        do {
+            statistics.clear();
+            CursorPage<OrderResponse> page = orderService.getUserOrders(user, cursor, ORDERS);
+            // Les commandes, puis tous les articles avec leurs produits
+            assertThat(statistics.getPrepareStatementCount()).as("statements for page %d", pages).isEqualTo(2);
+            history.addAll(page.getContent());
+            cursor = page.isHasNext() ? page.getNextCursor() : null;
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(2);
+        assertThat(history).hasSize(ORDERS);
+        assertThat(history).extracting(OrderResponse::getId).doesNotHaveDuplicates();
+        assertThat(history).allSatisfy(order -> {
+            assertThat(order.getOrderItems()).hasSize(ITEMS_PER_ORDER);
+            assertThat(order.getOrderItems()).allSatisfy(item -> assertThat(item.getProduct().getName()).isNotNull());
+        });
+    }
+
+    @Test
+    void pageSizeDoesNotChangeQueryCount() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        CursorPage<OrderResponse> first = orderService.getUserOrders(user, null, 10);
+        long smallPageQueries = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        CursorPage<OrderResponse> next = orderService.getUserOrders(user, first.getNextCursor(), 100);
+        long largePageQueries = statistics.getPrepareStatementCount();
+
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(next.getContent()).hasSize(100);
+        assertThat(next.getContent().get(0).getId()).isLessThan(first.getContent().get(9).getId());
+        assertThat(largePageQueries).isEqualTo(smallPageQueries);
+    }
+}
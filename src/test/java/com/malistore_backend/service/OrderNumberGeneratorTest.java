@@ -0,0 +1,104 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unicité et monotonie des numéros de commande
+ */
+class OrderNumberGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 250_000;
+
+    @Test
+    void concurrentGenerationNeverCollides() throws Exception {
+        OrderNumberGenerator generator = new OrderNumberGenerator(() -> 7, System::currentTimeMillis);
+        Set<String> seen = ConcurrentHashMap.newKeySet(THREADS * PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                String previous = "";
+                for (int i = 0; i < PER_THREAD; i++) {
+                    String orderNumber = generator.next();
+                    // Chaque thread voit des numéros strictement croissants
+                    if (orderNumber.compareTo(previous) <= 0 || !seen.add(orderNumber)) {
+                        return false;
+                    }
+                    previous = orderNumber;
+                }
+                return true;
+            }));
+        }
+        start.countDown();
+
+        for (Future<Boolean> result : results) {
+            assertThat(result.get(60, TimeUnit.SECONDS)).isTrue();
+        }
+        executor.shutdown();
+        assertThat(seen).hasSize(THREADS * PER_THREAD);
+    }
+
+    @Test
+    void clockGoingBackwardsKeepsNumbersIncreasing() {
+        AtomicLong clock = new AtomicLong(OrderNumberGenerator.EPOCH_MS + 10_000);
+        OrderNumberGenerator generator = new OrderNumberGenerator(() -> 1, clock::get);
+
+        String beforeStep = generator.next();
+        clock.addAndGet(-5_000);
+        String afterStep = generator.next();
+
+        assertThat(afterStep).isGreaterThan(beforeStep);
+    }
+
+    @Test
+    void exhaustedSequenceWaitsForNextMillisecond() {
+        AtomicLong clock = new AtomicLong(OrderNumberGenerator.EPOCH_MS + 10_000);
+        OrderNumberGenerator generator = new OrderNumberGenerator(() -> 1, clock::get);
+
+        long first = generator.nextId();
+        for (int i = 1; i < 1 << OrderNumberGenerator.SEQUENCE_BITS; i++) {
+            generator.nextId();
+        }
+        // Séquence épuisée : l'identifiant suivant porte sur la milliseconde suivante
+        clock.incrementAndGet();
+        long next = generator.nextId();
+
+        assertThat(next >>> (OrderNumberGenerator.NODE_BITS + OrderNumberGenerator.SEQUENCE_BITS))
+                .isEqualTo((first >>> (OrderNumberGenerator.NODE_BITS + OrderNumberGenerator.SEQUENCE_BITS)) + 1);
+    }
+
+    @Test
+    void distinctNodesNeverCollideOnSameMillisecond() {
+        long now = OrderNumberGenerator.EPOCH_MS + 42;
+        OrderNumberGenerator nodeA = new OrderNumberGenerator(() -> 1, () -> now);
+        OrderNumberGenerator nodeB = new OrderNumberGenerator(() -> 2, () -> now);
+
+        assertThat(nodeA.next()).isNotEqualTo(nodeB.next());
+    }
+
+    @Test
+    void encodingIsFixedWidthAndOrderPreserving() {
+        String small = OrderNumberGenerator.encode(1);
+        String large = OrderNumberGenerator.encode(Long.MAX_VALUE);
+
+        assertThat(small).isEqualTo("ORD-0000000000001");
+        assertThat(large).hasSize(small.length()).isGreaterThan(small);
+    }
+}
@@ -0,0 +1,124 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Les événements publiés sont distribués après le commit, dans l'ordre de leur agrégat,
+ * et retentés après un échec de l'abonné.
+ */
+@SpringBootTest(properties = {
+        "app.outbox.retry-delay-ms=0",
+        // Distribution déclenchée par le commit ou par le test
+        "app.outbox.poll-interval-ms=3600000"
+})
+class OutboxDispatcherTest {
+
+    private static final String AGGREGATE_TYPE = "outbox-test";
+
+    record TestEvent(Long aggregateId, int sequence) implements DomainEvent {
+
+        @Override
+        public String aggregateType() {
+            return AGGREGATE_TYPE;
+        }
+    }
+
+    static class RecordingSubscriber implements DomainEventSubscriber<TestEvent> {
+
+        private final List<Integer> delivered = new CopyOnWriteArrayList<>();
+        private final Map<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+        @Override
+        public Class<TestEvent> eventType() {
+            return TestEvent.class;
+        }
+
+        @Override
+        public void handle(TestEvent event) {
+            int attempt = attempts.computeIfAbsent(event.sequence(), key -> new AtomicInteger()).incrementAndGet();
+            if (event.sequence() == 1 && attempt == 1) {
+                throw new IllegalStateException("Simulated subscriber failure");
+            }
+            delivered.add(event.sequence());
+        }
+    }
+
+    @TestConfiguration
+    static class SubscriberConfig {
+
+        @Bean
+        RecordingSubscriber recordingSubscriber() {
+            return new RecordingSubscriber();
+        }
+    }
+
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private RecordingSubscriber subscriber;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void deleteTestEvents() {
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE aggregate_type = ?", AGGREGATE_TYPE);
+        subscriber.delivered.clear();
+        subscriber.attempts.clear();
+    }
+
+    @Test
+    void eventsAreDeliveredInAggregateOrderDespiteFailure() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int sequence = 1; sequence <= 3; sequence++) {
+                outboxPublisher.publish(new TestEvent(42L, sequence));
+            }
+        });
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (subscriber.delivered.size() < 3 && System.currentTimeMillis() < deadline) {
+            outboxDispatcher.poll();
+            Thread.sleep(50);
+        }
+
+        assertThat(subscriber.delivered).containsExactly(1, 2, 3);
+        assertThat(subscriber.attempts.get(1).get()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT status FROM outbox_events WHERE aggregate_type = ?",
+                String.class, AGGREGATE_TYPE)).containsOnly("PROCESSED");
+    }
+
+    @Test
+    void rolledBackTransactionPublishesNothing() {
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxPublisher.publish(new TestEvent(43L, 1));
+            status.setRollbackOnly();
+        });
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE aggregate_type = ?",
+                Integer.class, AGGREGATE_TYPE)).isZero();
+    }
+}
@@ -0,0 +1,163 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.malistore_backend.data.entity.Order;
+import com.malistore_backend.data.entity.OrderItem;
+import com.malistore_backend.data.entity.OrderStatus;
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.OrderItemRepository;
+import com.malistore_backend.data.repository.OrderRepository;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.support.StripeStandInServer;
+import com.malistore_backend.web.dto.payment.PaymentSessionRequest;
+import com.malistore_backend.web.dto.payment.PaymentSessionResponse;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Vérifie qu'aucune connexion JDBC n'est retenue pendant l'appel à Stripe :
+ * avec un pool de 10 connexions, 15 créations de session doivent pouvoir
+ * attendre Stripe simultanément sans que le pool ne soit occupé.
+ */
+@SpringBootTest(properties = {
+        "app.payment.provider=stripe",
+        "stripe.secret-key=sk_test_standin",
+        "stripe.read-timeout-ms=10000",
+        "stripe.bulkhead.max-concurrent-calls=50",
+        "spring.datasource.hikari.maximum-pool-size=10"
+})
+class PaymentServiceConnectionReleaseTest {
+
+    private static final long STRIPE_LATENCY_MS = 2000;
+    private static final int CONCURRENT_CHECKOUTS = 15;
+
+    private static StripeStandInServer stripe;
+
+    @DynamicPropertySource
+    static void stripeProperties(DynamicPropertyRegistry registry) throws IOException {
+        stripe = new StripeStandInServer(STRIPE_LATENCY_MS);
+        registry.add("stripe.api-base", stripe::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStripe() {
+        stripe.close();
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Long orderId;
+
+    @BeforeEach
+    void createPendingOrder() {
+        orderId = transactionTemplate.execute(status -> {
+            User user = userRepository.findByEmail("admin@malistore.com").orElseThrow();
+            Product product = productRepository.findByActiveTrue().get(0);
+
+            Order order = orderRepository.save(Order.builder()
+                    .user(user)
+                    .orderNumber("ORD-TEST-" + System.nanoTime())
+                    .status(OrderStatus.PENDING)
+                    .totalAmount(product.getPrice())
+                    .build());
+            orderItemRepository.save(OrderItem.builder()
+                    .order(order)
+                    .product(product)
+                    .quantity(1)
+                    .unitPrice(product.getPrice())
+                    .build());
+            return order.getId();
+        });
+    }
+
+    @AfterEach
+    void deleteOrder() {
+        // Les paiements et articles sont supprimés en cascade par la base
+        transactionTemplate.executeWithoutResult(status -> orderRepository.deleteById(orderId));
+    }
+
+    @Test
+    void poolStaysIdleWhileStripeIsSlow() throws Exception {
+        HikariPoolMXBean pool = hikariPool();
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_CHECKOUTS);
+
+        List<Future<PaymentSessionResponse>> results = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_CHECKOUTS; i++) {
+            results.add(clients.submit(() -> {
+                PaymentSessionRequest request = new PaymentSessionRequest();
+                request.setOrderId(orderId);
+                return paymentService.createPaymentSession(request);
+            }));
+        }
+
+        // Échantillonner le pool pendant que toutes les requêtes attendent Stripe
+        int maxParkedOnStripe = 0;
+        int maxActiveWhileParked = 0;
+        long deadline = System.currentTimeMillis() + STRIPE_LATENCY_MS * 3;
+        while (results.stream().anyMatch(result -> !result.isDone()) && System.currentTimeMillis() < deadline) {
+            int parked = stripe.inFlight();
+            maxParkedOnStripe = Math.max(maxParkedOnStripe, parked);
+            if (parked == CONCURRENT_CHECKOUTS) {
+                maxActiveWhileParked = Math.max(maxActiveWhileParked, pool.getActiveConnections());
+            }
+            Thread.sleep(10);
+        }
+
+        for (Future<PaymentSessionResponse> result : results) {
+            assertThat(result.get(30, TimeUnit.SECONDS).getSessionId()).startsWith("cs_test_standin_");
+        }
+        clients.shutdown();
+
+        // Plus de requêtes en attente sur Stripe que de connexions dans le pool
+        assertThat(maxParkedOnStripe).isEqualTo(CONCURRENT_CHECKOUTS);
+        // Et le pool reste inoccupé pendant ce temps (tolérance d'une connexion pour les tâches planifiées)
+        assertThat(maxActiveWhileParked).isLessThanOrEqualTo(1);
+    }
+
+    private HikariPoolMXBean hikariPool() throws SQLException {
+        return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+    }
+}
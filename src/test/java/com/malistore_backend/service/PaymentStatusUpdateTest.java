@@ -0,0 +1,114 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.malistore_backend.data.entity.Order;
+import com.malistore_backend.data.entity.OrderStatus;
+import com.malistore_backend.data.entity.Payment;
+import com.malistore_backend.data.entity.PaymentStatus;
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.OrderRepository;
+import com.malistore_backend.data.repository.PaymentRepository;
+import com.malistore_backend.data.repository.UserRepository;
+
+/**
+ * Un paiement réussi fait passer la commande en PAID une seule fois, quel que soit
+ * l'événement Stripe arrivé en premier et même si l'événement est redistribué.
+ */
+@SpringBootTest(properties = {
+        // Distribution de OrderPaid hors du test
+        "app.outbox.poll-interval-ms=3600000"
+})
+class PaymentStatusUpdateTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Long orderId;
+    private String sessionId;
+
+    @BeforeEach
+    void createPendingOrder() {
+        sessionId = "cs_test_status_" + System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            User customer = new User();
+            customer.setName("Payment Status Test");
+            customer.setEmail("payment-status-" + System.nanoTime() + "@test.local");
+            customer.setPassword("not-a-real-password");
+            user = userRepository.save(customer);
+
+            Order order = orderRepository.save(Order.builder()
+                    .user(user)
+                    .orderNumber("PAY-" + user.getId())
+                    .status(OrderStatus.PENDING)
+                    .totalAmount(BigDecimal.TEN)
+                    .build());
+            paymentRepository.save(Payment.builder()
+                    .order(order)
+                    .amount(BigDecimal.TEN)
+                    .stripeSessionId(sessionId)
+                    .build());
+            orderId = order.getId();
+        });
+    }
+
+    @AfterEach
+    void deleteTestData() {
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE aggregate_type = ? AND aggregate_id = ?",
+                OrderEvents.AGGREGATE_TYPE, orderId);
+        // Commande et paiement supprimés en cascade par la base
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void paymentAlreadySucceededStillPaysPendingOrder() {
+        // payment_intent.succeeded traité en premier par une version précédente : paiement réussi, commande en attente
+        jdbcTemplate.update("UPDATE payments SET status = 'SUCCEEDED' WHERE stripe_session_id = ?", sessionId);
+
+        paymentService.updatePaymentStatus(sessionId, PaymentStatus.SUCCEEDED, "pi_test_status");
+
+        assertThat(orderRepository.findById(orderId).orElseThrow().getStatus()).isEqualTo(OrderStatus.PAID);
+        assertThat(orderPaidEvents()).isEqualTo(1);
+    }
+
+    @Test
+    void redeliveredSuccessPaysOrderOnce() {
+        paymentService.updatePaymentStatus(sessionId, PaymentStatus.SUCCEEDED, "pi_test_status");
+        paymentService.updatePaymentStatus(sessionId, PaymentStatus.SUCCEEDED, "pi_test_status");
+
+        assertThat(orderRepository.findById(orderId).orElseThrow().getStatus()).isEqualTo(OrderStatus.PAID);
+        assertThat(orderPaidEvents()).isEqualTo(1);
+    }
+
+    private int orderPaidEvents() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events " +
+                        "WHERE aggregate_type = ? AND aggregate_id = ? AND event_type = 'OrderPaid'",
+                Integer.class, OrderEvents.AGGREGATE_TYPE, orderId);
+    }
+}
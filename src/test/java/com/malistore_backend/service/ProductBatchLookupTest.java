@@ -0,0 +1,102 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.support.SqlStatementCounter;
+import com.malistore_backend.support.StatementCountTest;
+import com.malistore_backend.web.dto.product.ProductBatchResponse;
+import com.malistore_backend.web.dto.product.ProductResponse;
+import com.malistore_backend.web.exception.BadRequestException;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Lecture groupée de produits : ordre de la demande conservé, doublons ignorés,
+ * IDs introuvables signalés à part et produits en cache servis sans requête,
+ * sauf ceux invalidés pendant leur chargement.
+ */
+@StatementCountTest
+class ProductBatchLookupTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SqlStatementCounter counter;
+    private List<Long> productIds;
+
+    @BeforeEach
+    void setUp() {
+        counter = new SqlStatementCounter(entityManagerFactory);
+        productCache.invalidateAll();
+        productIds = productRepository.findByActiveTrue().stream()
+                .map(Product::getId)
+                .limit(3)
+                .toList();
+        assertThat(productIds).hasSize(3);
+    }
+
+    @Test
+    void keepsRequestedOrderAndReportsMissingIds() {
+        Long first = productIds.get(0);
+        Long second = productIds.get(1);
+        Long third = productIds.get(2);
+
+        ProductBatchResponse response = productService.getProductsByIds(List.of(third, -1L, first, third, second));
+
+        assertThat(response.getProducts()).extracting(ProductResponse::getId).containsExactly(third, first, second);
+        assertThat(response.getMissingIds()).containsExactly(-1L);
+    }
+
+    @Test
+    void cachedProductsAreServedWithoutQueries() {
+        productService.getProductsByIds(productIds);
+
+        long statements = counter.count(() -> productService.getProductsByIds(productIds));
+
+        assertThat(statements).isZero();
+        assertThat(productCache.get(productIds.get(0))).isNotNull();
+    }
+
+    @Test
+    void productInvalidatedDuringLoadIsNotCached() {
+        Long productId = productIds.get(0);
+        ProductResponse loaded = productService.getProductsByIds(List.of(productId)).getProducts().get(0);
+        productCache.invalidate(productId);
+
+        // Chargement commencé avant une modification du produit, terminé après son éviction
+        ProductCache.LoadStamp stamp = productCache.stamp(List.of(productId));
+        productCache.invalidate(productId);
+        productCache.putLoaded(stamp, loaded);
+
+        assertThat(productCache.get(productId)).isNull();
+        productCache.putLoaded(productCache.stamp(List.of(productId)), loaded);
+        assertThat(productCache.get(productId)).isSameAs(loaded);
+    }
+
+    @Test
+    void tooManyIdsAreRejected() {
+        List<Long> ids = LongStream.rangeClosed(1, ProductService.MAX_BATCH_SIZE + 1).boxed().toList();
+
+        assertThatThrownBy(() -> productService.getProductsByIds(ids))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
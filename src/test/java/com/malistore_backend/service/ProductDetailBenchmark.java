@@ -0,0 +1,127 @@
+package com.malistore_backend.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.malistore_backend.MalistoreBackendApplication;
+import com.malistore_backend.support.StatementCountTest;
+import com.malistore_backend.web.dto.product.ProductResponse;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Fiche produit (ProductService.getProductById) hors cache produits : cache de second niveau
+ * vide (trois requêtes) ou chaud (aucune requête), et servie par le cache produits pour référence.
+ * Nécessite la base de développement avec au moins un produit actif ayant des images.
+ *
+ * Lancement : mvn test-compile puis exécuter {@link #main(String[])} avec le classpath de test,
+ * ex. mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.malistore_backend.service.ProductDetailBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class ProductDetailBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductCache productCache;
+    private Cache secondLevelCache;
+    private Long productId;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(MalistoreBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                // Tâches planifiées espacées : elles ne doivent pas se mêler à la mesure
+                .profiles(StatementCountTest.PROFILE)
+                .properties(
+                        "app.cache.invalidation.enabled=false",
+                        "logging.level.com.malistore_backend=WARN")
+                .run();
+        productService = context.getBean(ProductService.class);
+        productCache = context.getBean(ProductCache.class);
+        secondLevelCache = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getCache();
+        productId = context.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT p.id FROM products p WHERE p.active AND p.category_id IS NOT NULL " +
+                "AND EXISTS (SELECT 1 FROM product_images i WHERE i.product_id = p.id) ORDER BY p.id LIMIT 1",
+                Long.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    /**
+     * Cache produits et cache de second niveau vides
+     */
+    @State(Scope.Thread)
+    public static class Cold {
+
+        @Setup(Level.Invocation)
+        public void evict(ProductDetailBenchmark benchmark) {
+            benchmark.productCache.invalidateAll();
+            benchmark.secondLevelCache.evictAllRegions();
+        }
+    }
+
+    /**
+     * Cache produits vide, cache de second niveau rempli par les appels précédents
+     */
+    @State(Scope.Thread)
+    public static class SecondLevelWarm {
+
+        @Setup(Level.Invocation)
+        public void evict(ProductDetailBenchmark benchmark) {
+            benchmark.productCache.invalidateAll();
+        }
+    }
+
+    @Benchmark
+    public ProductResponse cold(Cold cold) {
+        return productService.getProductById(productId);
+    }
+
+    @Benchmark
+    public ProductResponse secondLevelCacheWarm(SecondLevelWarm warm) {
+        return productService.getProductById(productId);
+    }
+
+    @Benchmark
+    public ProductResponse productCacheHit() {
+        return productService.getProductById(productId);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductDetailBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
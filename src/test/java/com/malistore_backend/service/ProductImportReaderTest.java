@@ -0,0 +1,83 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Lecture des fichiers d'import : champs CSV entre guillemets, lignes vides,
+ * valeurs null et lignes illisibles en NDJSON
+ */
+class ProductImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void csvHandlesQuotedFieldsAndBlankLines() throws IOException {
+        String csv = "SKU, Name ,price\r\n"
+                + "A-1,\"Lampe, \"\"design\"\"\",10.50\r\n"
+                + "\r\n"
+                + "A-2,\"Deux\nlignes\",7\n"
+                + "A-3,Court\n";
+
+        List<ProductImportReader.Row> rows = readAll(ProductImportService.Format.CSV, csv);
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0).line()).isEqualTo(2);
+        assertThat(rows.get(0).fields())
+                .containsEntry("sku", "A-1")
+                .containsEntry("name", "Lampe, \"design\"")
+                .containsEntry("price", "10.50");
+        assertThat(rows.get(1).fields()).containsEntry("name", "Deux\nlignes");
+        // Colonnes manquantes en fin de ligne : absentes
+        assertThat(rows.get(2).fields()).containsEntry("sku", "A-3").doesNotContainKey("price");
+    }
+
+    @Test
+    void csvWithoutHeaderIsRejected() {
+        assertThatThrownBy(() -> readAll(ProductImportService.Format.CSV, ""))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("header");
+    }
+
+    @Test
+    void ndjsonKeepsNullsAndFlagsUnreadableLines() throws IOException {
+        String ndjson = "{\"SKU\":\"B-1\",\"price\":12.5,\"stock\":null}\n"
+                + "\n"
+                + "{not json\n"
+                + "{\"sku\":\"B-2\",\"active\":false}\n";
+
+        List<ProductImportReader.Row> rows = readAll(ProductImportService.Format.NDJSON, ndjson);
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0).fields())
+                .containsEntry("sku", "B-1")
+                .containsEntry("price", "12.5")
+                .containsEntry("stock", null);
+        assertThat(rows.get(1).line()).isEqualTo(3);
+        assertThat(rows.get(1).fields()).containsKey(ProductImportService.PARSE_ERROR_FIELD);
+        assertThat(rows.get(2).fields()).containsEntry("active", "false");
+    }
+
+    private List<ProductImportReader.Row> readAll(ProductImportService.Format format, String content)
+            throws IOException {
+        List<ProductImportReader.Row> rows = new ArrayList<>();
+        try (ProductImportReader reader = ProductImportReader.of(format,
+                new BufferedReader(new StringReader(content)), objectMapper)) {
+            ProductImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
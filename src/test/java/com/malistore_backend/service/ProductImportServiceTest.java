@@ -0,0 +1,173 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.web.dto.cart.AddToCartDto;
+import com.malistore_backend.web.dto.product.ProductImportError;
+import com.malistore_backend.web.dto.product.ProductImportStatus;
+
+/**
+ * Import en masse : lignes invalides rejetées une à une, insertions et mises à jour
+ * comptées par la fusion sur le SKU, sur plusieurs blocs.
+ */
+@SpringBootTest(properties = {
+        "app.import.chunk-size=2",
+        // Repositionnement des paniers déclenché par le test
+        "app.cart.repricing.interval-ms=3600000"
+})
+class ProductImportServiceTest {
+
+    private static final String CATEGORY = "Livres et Médias";
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private CartRepricingService cartRepricingService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String prefix;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        prefix = "IMP-" + System.nanoTime() + "-";
+    }
+
+    @AfterEach
+    void deleteImportedProducts() {
+        if (user != null) {
+            // Panier supprimé en cascade par la base
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+        }
+        jdbcTemplate.update("DELETE FROM products WHERE sku LIKE ?", prefix + "%");
+    }
+
+    @Test
+    void csvImportInsertsValidRowsAndRejectsInvalidOnes() throws InterruptedException {
+        String csv = "sku,name,description,price,stock,category\n"
+                + prefix + "1,Roman policier,\"Un roman, en poche\",12.90,5," + CATEGORY + "\n"
+                + prefix + "2,Bande dessinée,,abc,3," + CATEGORY + "\n"
+                + prefix + "3,Essai,,20,4,Catégorie inconnue\n"
+                + prefix + "4,Dictionnaire,,35.00,2," + CATEGORY.toLowerCase(Locale.ROOT) + "\n"
+                + prefix + "5,Atlas,,40,," + CATEGORY + "\n";
+
+        ProductImportStatus status = runImport("products.csv", csv);
+
+        assertThat(status.getState()).isEqualTo("COMPLETED");
+        assertThat(status.getRowsRead()).isEqualTo(5);
+        assertThat(status.getRowsInserted()).isEqualTo(2);
+        assertThat(status.getRowsUpdated()).isZero();
+        assertThat(status.getRowsRejected()).isEqualTo(3);
+        assertThat(status.getErrors())
+                .extracting(ProductImportError::getSku, ProductImportError::getMessage)
+                .containsExactlyInAnyOrder(
+                        tuple(prefix + "2", "price is not a number"),
+                        tuple(prefix + "3", "unknown category: Catégorie inconnue"),
+                        tuple(prefix + "5", "stock is required"));
+        assertThat(jdbcTemplate.queryForObject("SELECT description FROM products WHERE sku = ?",
+                String.class, prefix + "1")).isEqualTo("Un roman, en poche");
+    }
+
+    @Test
+    void ndjsonImportUpdatesExistingSkusAndRejectsNulls() throws InterruptedException {
+        runImport("first.ndjson", line(prefix + "1", "10.00") + line(prefix + "2", "11.00"));
+
+        String ndjson = line(prefix + "1", "15.00")
+                + "{\"sku\":\"" + prefix + "3\",\"name\":\"Sans prix\",\"price\":null,\"stock\":1,\"category\":\"" + CATEGORY + "\"}\n"
+                + line(prefix + "2", "12.00")
+                + line(prefix + "4", "9.99")
+                + "{broken\n";
+
+        ProductImportStatus status = runImport("second.ndjson", ndjson);
+
+        assertThat(status.getState()).isEqualTo("COMPLETED");
+        assertThat(status.getRowsInserted()).isEqualTo(1);
+        assertThat(status.getRowsUpdated()).isEqualTo(2);
+        assertThat(status.getRowsRejected()).isEqualTo(2);
+        assertThat(status.getErrors())
+                .extracting(ProductImportError::getMessage)
+                .anySatisfy(message -> assertThat(message).isEqualTo("price is required"))
+                .anySatisfy(message -> assertThat(message).startsWith("Malformed row"));
+        assertThat(jdbcTemplate.queryForObject("SELECT price FROM products WHERE sku = ?",
+                BigDecimal.class, prefix + "1")).isEqualByComparingTo("15.00");
+    }
+
+    @Test
+    void importedPriceChangeRepricesCarts() throws InterruptedException {
+        runImport("first.ndjson", line(prefix + "1", "10.00") + line(prefix + "2", "20.00"));
+        Long changedId = productId(prefix + "1");
+        Long unchangedId = productId(prefix + "2");
+
+        User customer = new User();
+        customer.setName("Import Repricing Test");
+        customer.setEmail("import-repricing-" + System.nanoTime() + "@test.local");
+        customer.setPassword("not-a-real-password");
+        user = userRepository.save(customer);
+        for (Long productId : List.of(changedId, unchangedId)) {
+            AddToCartDto dto = new AddToCartDto();
+            dto.setProductId(productId);
+            dto.setQuantity(2);
+            cartService.addToCart(user, dto);
+        }
+
+        runImport("second.ndjson", line(prefix + "1", "14.00") + line(prefix + "2", "20.00"));
+        cartRepricingService.runPending();
+
+        assertThat(cartUnitPrice(changedId)).isEqualByComparingTo("14.00");
+        assertThat(cartUnitPrice(unchangedId)).isEqualByComparingTo("20.00");
+    }
+
+    private Long productId(String sku) {
+        return jdbcTemplate.queryForObject("SELECT id FROM products WHERE sku = ?", Long.class, sku);
+    }
+
+    private BigDecimal cartUnitPrice(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT unit_price FROM cart_items WHERE user_id = ? AND product_id = ?",
+                BigDecimal.class, user.getId(), productId);
+    }
+
+    private String line(String sku, String price) {
+        return "{\"sku\":\"" + sku + "\",\"name\":\"Produit " + sku + "\",\"price\":" + price
+                + ",\"stock\":3,\"category\":\"" + CATEGORY + "\"}\n";
+    }
+
+    private ProductImportStatus runImport(String filename, String content) throws InterruptedException {
+        MockMultipartFile file = new MockMultipartFile("file", filename, "text/plain",
+                content.getBytes(StandardCharsets.UTF_8));
+        String jobId = productImportService.submit(file, null).getJobId();
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        ProductImportStatus status = productImportService.getStatus(jobId);
+        while (!status.getState().equals("COMPLETED") && !status.getState().equals("FAILED")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            status = productImportService.getStatus(jobId);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,134 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.support.SqlStatementCounter;
+import com.malistore_backend.support.StatementCountTest;
+import com.malistore_backend.web.dto.cache.SearchShapeStatus;
+import com.malistore_backend.web.dto.product.ProductResponse;
+import com.malistore_backend.web.dto.product.ProductSearchDto;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Une recherche fréquente est servie sans requête SQL une fois admise dans le cache,
+ * jusqu'à la modification d'un produit de sa catégorie.
+ * Chaque test utilise ses propres recherches : les fréquences d'admission ne sont pas remises à zéro.
+ */
+@StatementCountTest
+class ProductSearchCacheTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchCache productSearchCache;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SqlStatementCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new SqlStatementCounter(entityManagerFactory);
+        productSearchCache.invalidateAll();
+    }
+
+    @Test
+    void frequentSearchIsServedFromCache() {
+        Product product = productRepository.findByActiveTrue().get(0);
+        String term = product.getName().substring(0, Math.min(3, product.getName().length()));
+
+        // Deux premières recherches non admises, la troisième est mise en cache
+        for (int i = 0; i < 3; i++) {
+            assertThat(counter.count(() -> productService.searchProducts(search(term.toLowerCase(Locale.ROOT), null, 11))))
+                    .isPositive();
+        }
+
+        Page<ProductResponse> cached = productService.searchProducts(search(term.toUpperCase(Locale.ROOT), null, 11));
+        // Terme en majuscules : même recherche normalisée, servie par le cache
+        long statements = counter.count(() -> productService.searchProducts(search(term.toUpperCase(Locale.ROOT), null, 11)));
+
+        assertThat(statements).isZero();
+        assertThat(cached.getContent()).extracting(ProductResponse::getId).contains(product.getId());
+        assertThat(productSearchCache.getStatus().getShapes())
+                .filteredOn(shape -> shape.getShape().equals("term|name,asc"))
+                .singleElement()
+                .satisfies(shape -> {
+                    assertThat(shape.getHits()).isEqualTo(2);
+                    assertThat(shape.getNotAdmitted()).isEqualTo(2);
+                });
+    }
+
+    @Test
+    void productChangeInvalidatesOnlyItsCategory() {
+        List<Long> categoryIds = productRepository.findByActiveTrue().stream()
+                .filter(product -> product.getCategory() != null)
+                .map(product -> product.getCategory().getId())
+                .distinct()
+                .limit(2)
+                .toList();
+        assertThat(categoryIds).as("seed data with two categories").hasSize(2);
+        Long changed = categoryIds.get(0);
+        Long untouched = categoryIds.get(1);
+
+        for (int i = 0; i < 3; i++) {
+            productService.searchProducts(search(null, changed, 12));
+            productService.searchProducts(search(null, untouched, 12));
+        }
+        assertThat(counter.count(() -> productService.searchProducts(search(null, changed, 12)))).isZero();
+
+        productSearchCache.invalidateCategory(changed);
+
+        assertThat(counter.count(() -> productService.searchProducts(search(null, changed, 12)))).isPositive();
+        assertThat(counter.count(() -> productService.searchProducts(search(null, untouched, 12)))).isZero();
+        assertThat(productSearchCache.getStatus().getShapes())
+                .filteredOn(shape -> shape.getShape().equals("category|name,asc"))
+                .extracting(SearchShapeStatus::getStale)
+                .containsExactly(1L);
+    }
+
+    @Test
+    void stockSortIsNotCached() {
+        for (int i = 0; i < 4; i++) {
+            ProductSearchDto search = search(null, null, 13);
+            search.setSortBy("stock");
+            search.setSortDirection("asc");
+            assertThat(counter.count(() -> productService.searchProducts(search))).isPositive();
+        }
+    }
+
+    @Test
+    void shapeListsFiltersAndSort() {
+        ProductSearchDto search = search("Phone", 1L, 10);
+        search.setMinPrice(new BigDecimal("10.00"));
+        search.setSortBy("price");
+        search.setSortDirection("DESC");
+
+        assertThat(ProductSearchCache.shapeOf(ProductSearchKey.of(search))).isEqualTo("term+category+price|price,desc");
+        assertThat(ProductSearchCache.shapeOf(ProductSearchKey.of(new ProductSearchDto()))).isEqualTo("all|name,asc");
+    }
+
+    private static ProductSearchDto search(String term, Long categoryId, int size) {
+        ProductSearchDto search = new ProductSearchDto();
+        search.setSearchTerm(term);
+        search.setCategoryId(categoryId);
+        search.setSize(size);
+        return search;
+    }
+}
@@ -0,0 +1,48 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Attribution des tâches aux nœuds par hachage de rendez-vous
+ */
+class ScheduledJobRunnerTest {
+
+    private static final List<String> JOBS = List.of(
+            ScheduledJobs.STOCK_ALERT, ScheduledJobs.PASSWORD_RESET_CLEANUP, ScheduledJobs.CART_PURGE,
+            "job-a", "job-b", "job-c", "job-d", "job-e", "job-f", "job-g");
+
+    @Test
+    void noActiveNodeMeansNoAssignment() {
+        assertThat(ScheduledJobRunner.assignedNode(ScheduledJobs.CART_PURGE, List.of())).isEqualTo(-1);
+    }
+
+    @Test
+    void assignmentDoesNotDependOnNodeOrder() {
+        for (String job : JOBS) {
+            assertThat(ScheduledJobRunner.assignedNode(job, List.of(3, 1, 2)))
+                    .isEqualTo(ScheduledJobRunner.assignedNode(job, List.of(1, 2, 3)));
+        }
+    }
+
+    @Test
+    void leavingNodeOnlyMovesItsOwnJobs() {
+        List<Integer> nodes = List.of(0, 1, 2, 3, 4);
+        List<Integer> remaining = new ArrayList<>(nodes);
+        remaining.remove(Integer.valueOf(2));
+
+        for (String job : JOBS) {
+            int before = ScheduledJobRunner.assignedNode(job, nodes);
+            int after = ScheduledJobRunner.assignedNode(job, remaining);
+            if (before != 2) {
+                assertThat(after).isEqualTo(before);
+            } else {
+                assertThat(remaining).contains(after);
+            }
+        }
+    }
+}
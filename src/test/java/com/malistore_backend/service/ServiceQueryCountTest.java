@@ -0,0 +1,275 @@
+package com.malistore_backend.service;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.assertj.core.api.SoftAssertions;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.malistore_backend.data.entity.CartItem;
+import com.malistore_backend.data.entity.Order;
+import com.malistore_backend.data.entity.OrderItem;
+import com.malistore_backend.data.entity.OrderStatus;
+import com.malistore_backend.data.entity.Payment;
+import com.malistore_backend.data.entity.PaymentMethod;
+import com.malistore_backend.data.entity.PaymentStatus;
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.entity.ShippingAddress;
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.CartItemRepository;
+import com.malistore_backend.data.repository.OrderItemRepository;
+import com.malistore_backend.data.repository.OrderRepository;
+import com.malistore_backend.data.repository.PaymentRepository;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.data.repository.ShippingAddressRepository;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.support.SqlStatementCounter;
+import com.malistore_backend.support.StatementCountTest;
+import com.malistore_backend.web.dto.product.ProductSearchDto;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Nombre de requêtes SQL de chaque méthode de lecture publique des services, caches vidés
+ * (y compris le cache de second niveau Hibernate au début de chaque test et de chaque mesure à froid).
+ * Les associations étant paresseuses, chaque chemin charge exactement ce que son graphe
+ * d'entités déclare : toute requête supplémentaire (N+1, chargement paresseux oublié)
+ * fait échouer le test. Les valeurs attendues sont à mettre à jour sciemment.
+ */
+@StatementCountTest
+class ServiceQueryCountTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private ShippingAddressService shippingAddressService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private CategorySnapshot categorySnapshot;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ShippingAddressRepository shippingAddressRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SqlStatementCounter counter;
+    private SoftAssertions softly;
+
+    private User user;
+    private Long productId;
+    private Long categoryId;
+    private Long addressId;
+    private Long orderId;
+    private Long paymentId;
+
+    @BeforeEach
+    void createCustomerData() {
+        counter = new SqlStatementCounter(entityManagerFactory);
+        softly = new SoftAssertions();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User customer = new User();
+            customer.setName("Query Count Test");
+            customer.setEmail("query-count-" + System.nanoTime() + "@test.local");
+            customer.setPassword("not-a-real-password");
+            user = userRepository.save(customer);
+
+            Product product = productRepository.findByActiveTrue().stream()
+                    .filter(candidate -> candidate.getCategory() != null)
+                    .findFirst()
+                    .orElseThrow();
+            productId = product.getId();
+            categoryId = product.getCategory().getId();
+
+            ShippingAddress address = shippingAddressRepository.save(ShippingAddress.builder()
+                    .user(user)
+                    .addressName("Maison")
+                    .streetAddress("1 rue du Test")
+                    .city("Bamako")
+                    .stateProvince("Bamako")
+                    .postalCode("00000")
+                    .country("ML")
+                    .isDefault(true)
+                    .build());
+            addressId = address.getId();
+
+            cartItemRepository.save(CartItem.builder()
+                    .user(user)
+                    .product(product)
+                    .quantity(1)
+                    .unitPrice(product.getPrice())
+                    .build());
+
+            Order order = orderRepository.save(Order.builder()
+                    .user(user)
+                    .orderNumber("QC-" + user.getId())
+                    .status(OrderStatus.PENDING)
+                    .totalAmount(product.getPrice())
+                    .shippingAddressEntity(address)
+                    .build());
+            orderId = order.getId();
+            orderItemRepository.save(OrderItem.builder()
+                    .order(order)
+                    .product(product)
+                    .quantity(1)
+                    .unitPrice(product.getPrice())
+                    .build());
+
+            paymentId = paymentRepository.save(Payment.builder()
+                    .order(order)
+                    .status(PaymentStatus.PENDING)
+                    .amount(product.getPrice())
+                    .paymentMethod(PaymentMethod.CARD)
+                    .currency("EUR")
+                    .build()).getId();
+        });
+        evictSecondLevelCache();
+    }
+
+    @AfterEach
+    void deleteCustomerData() {
+        // Adresses, panier, commandes, articles et paiements supprimés en cascade par la base
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void productReadPaths() {
+        ProductSearchDto search = new ProductSearchDto();
+        search.setPage(0);
+        search.setSize(1000);
+
+        // Pages plus grandes que le catalogue : Spring Data n'exécute pas de requête de comptage
+        expectCold("ProductService.getAllProducts", 2, () -> productService.getAllProducts(PageRequest.of(0, 1000)));
+        expectCold("ProductService.getAllActiveProducts", 2, () -> productService.getAllActiveProducts());
+        // Produit, catégorie et collection d'images chargés séparément pour passer par le cache de second niveau
+        expectCold("ProductService.getProductById", 3, () -> productService.getProductById(productId));
+        expect("ProductService.getProductById (cached)", 0, () -> productService.getProductById(productId));
+        productCache.invalidateAll();
+        expect("ProductService.getProductById (second-level cache)", 0, () -> productService.getProductById(productId));
+        expectCold("ProductService.getProductsByIds", 2, () -> productService.getProductsByIds(List.of(productId, -1L)));
+        expectCold("ProductService.searchProducts", 2, () -> productService.searchProducts(search));
+        expectCold("ProductService.getProductsByCategory", 2,
+                () -> productService.getProductsByCategory(categoryId, PageRequest.of(0, 1000)));
+        softly.assertAll();
+    }
+
+    @Test
+    void categoryReadPaths() {
+        categorySnapshot.invalidate();
+        expect("CategoryService.getActiveCategories (rebuild)", 2, () -> categoryService.getActiveCategories());
+        expect("CategoryService.getActiveCategories (snapshot)", 0, () -> categoryService.getActiveCategories());
+        expect("CategoryService.getAllCategories", 1, () -> categoryService.getAllCategories());
+        // Catégorie chargée par getAllCategories, servie par le cache de second niveau
+        expect("CategoryService.getCategoryById", 0, () -> categoryService.getCategoryById(categoryId));
+        softly.assertAll();
+    }
+
+    @Test
+    void cartReadPaths() {
+        expect("CartService.getCartSummary", 1, () -> cartService.getCartSummary(user));
+        expect("CartService.getCartItemCount (cached)", 0, () -> cartService.getCartItemCount(user));
+        expect("CartService.getCartTotal (cached)", 0, () -> cartService.getCartTotal(user));
+        expect("CartService.getCart", 1, () -> cartService.getCart(user));
+        softly.assertAll();
+    }
+
+    @Test
+    void orderReadPaths() {
+        expect("OrderService.getUserOrders", 2, () -> orderService.getUserOrders(user, null, 20));
+        expect("OrderService.getUserOrderById", 2, () -> orderService.getUserOrderById(user, orderId));
+        expect("OrderService.getOrderById", 2, () -> orderService.getOrderById(orderId));
+        expect("InventoryService.checkStockAvailability", 1, () -> inventoryService.checkStockAvailability(orderId));
+        softly.assertAll();
+    }
+
+    @Test
+    void paymentReadPaths() {
+        expect("PaymentService.getUserPayments", 1, () -> paymentService.getUserPayments(user.getId()));
+        expect("PaymentService.getPaymentById", 1, () -> paymentService.getPaymentById(paymentId));
+        expect("PaymentService.getOrderPayments", 2, () -> paymentService.getOrderPayments(orderId));
+        softly.assertAll();
+    }
+
+    @Test
+    void shippingAddressReadPaths() {
+        expect("ShippingAddressService.getUserShippingAddresses", 1,
+                () -> shippingAddressService.getUserShippingAddresses(user));
+        expect("ShippingAddressService.getUserShippingAddressById", 1,
+                () -> shippingAddressService.getUserShippingAddressById(user, addressId));
+        expect("ShippingAddressService.getDefaultShippingAddress", 1,
+                () -> shippingAddressService.getDefaultShippingAddress(user));
+        softly.assertAll();
+    }
+
+    /**
+     * Mesure l'appel après avoir vidé le cache produits et forcé la reconstruction
+     * du menu des catégories hors de la mesure, puis vidé le cache de second niveau
+     */
+    private void expectCold(String name, long expected, Supplier<?> call) {
+        productCache.invalidateAll();
+        categorySnapshot.getActiveCategories();
+        evictSecondLevelCache();
+        expect(name, expected, call);
+    }
+
+    private void evictSecondLevelCache() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    private void expect(String name, long expected, Supplier<?> call) {
+        long statements = counter.record(name, call);
+        // En cas d'échec, le message reprend les nombres de tous les appels déjà mesurés
+        softly.assertThat(statements).as(() -> name + "\n" + counter.report()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,143 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Une rafale d'appels concurrents sur une même clé ne déclenche qu'un chargement
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS_PER_KEY = 20;
+    private static final List<Long> KEYS = List.of(1L, 2L, 3L);
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS_PER_KEY * KEYS.size());
+    private final SingleFlight<Long, String> flight = new SingleFlight<>("test", 10_000, Runnable::run);
+
+    @AfterEach
+    void stopCallers() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void burstLoadsEachKeyOnce() throws Exception {
+        Map<Long, AtomicInteger> loadsPerKey = new ConcurrentHashMap<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (Long key : KEYS) {
+            for (int i = 0; i < CALLERS_PER_KEY; i++) {
+                results.add(callers.submit(() -> flight.load(key, () -> {
+                    loadsPerKey.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+                    await(release);
+                    return "product-" + key;
+                })));
+            }
+        }
+        // Le chargement n'aboutit qu'une fois tous les autres appelants en attente
+        waitUntil(() -> flight.toStatus().getCoalesced() == (long) (CALLERS_PER_KEY - 1) * KEYS.size());
+        release.countDown();
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS)).isEqualTo("product-" + KEYS.get(i / CALLERS_PER_KEY));
+        }
+        assertThat(loadsPerKey).hasSize(KEYS.size());
+        loadsPerKey.values().forEach(loads -> assertThat(loads.get()).isEqualTo(1));
+        assertThat(flight.toStatus().getLoads()).isEqualTo(KEYS.size());
+        assertThat(flight.toStatus().getInFlight()).isZero();
+    }
+
+    @Test
+    void failureIsSharedByCoalescedCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS_PER_KEY; i++) {
+            results.add(callers.submit(() -> flight.load(1L, () -> {
+                await(release);
+                throw new IllegalArgumentException("not found");
+            })));
+        }
+        waitUntil(() -> flight.toStatus().getCoalesced() == CALLERS_PER_KEY - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(flight.toStatus().getLoads()).isEqualTo(1);
+        assertThat(flight.toStatus().getFailures()).isEqualTo(1);
+
+        // Une erreur n'est pas retenue : l'appel suivant recharge
+        assertThat(flight.load(1L, () -> "product-1")).isEqualTo("product-1");
+    }
+
+    @Test
+    void forgottenLoadIsNotStored() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> stored = new AtomicReference<>();
+        Future<String> stale = callers.submit(() -> flight.load(1L, () -> {
+            await(release);
+            return "before-update";
+        }, stored::set));
+        waitUntil(() -> flight.toStatus().getInFlight() == 1);
+
+        // Invalidation pendant le chargement : l'appel suivant ne rejoint pas l'ancien chargement
+        flight.forget(1L);
+        assertThat(flight.load(1L, () -> "after-update", stored::set)).isEqualTo("after-update");
+        release.countDown();
+
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo("before-update");
+        assertThat(stored.get()).isEqualTo("after-update");
+    }
+
+    @Test
+    void staleValueIsServedWhileOneRefreshRuns() {
+        List<Runnable> queued = new ArrayList<>();
+        SingleFlight<Long, String> refreshing = new SingleFlight<>("test", 10_000, queued::add);
+        AtomicReference<String> stored = new AtomicReference<>();
+
+        assertThat(refreshing.refreshInBackground(1L, "stale", () -> "fresh", stored::set)).isEqualTo("stale");
+        assertThat(refreshing.refreshInBackground(1L, "stale", () -> "fresh", stored::set)).isEqualTo("stale");
+        assertThat(queued).hasSize(1);
+
+        queued.get(0).run();
+        assertThat(stored.get()).isEqualTo("fresh");
+        assertThat(refreshing.toStatus().getStaleServed()).isEqualTo(2);
+        assertThat(refreshing.toStatus().getLoads()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Load never released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition reached in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.malistore_backend.data.entity.Order;
+import com.malistore_backend.data.entity.OrderItem;
+import com.malistore_backend.data.entity.OrderStatus;
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.OrderItemRepository;
+import com.malistore_backend.data.repository.OrderRepository;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.data.repository.UserRepository;
+
+/**
+ * Le stock d'une commande payée est décrémenté une seule fois, même si la commande
+ * a changé de statut avant la distribution de OrderPaid ou si l'événement est redistribué.
+ */
+@SpringBootTest(properties = {
+        // Distribution déclenchée par le commit ou par le test
+        "app.outbox.poll-interval-ms=3600000"
+})
+class StockDecrementSubscriberTest {
+
+    private static final int STOCK = 10;
+    private static final int QUANTITY = 3;
+
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private StockDecrementSubscriber stockDecrementSubscriber;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Product product;
+    private Long orderId;
+
+    @BeforeEach
+    void createPaidOrder() {
+        transactionTemplate.executeWithoutResult(status -> {
+            User customer = new User();
+            customer.setName("Stock Decrement Test");
+            customer.setEmail("stock-decrement-" + System.nanoTime() + "@test.local");
+            customer.setPassword("not-a-real-password");
+            user = userRepository.save(customer);
+
+            product = productRepository.save(Product.builder()
+                    .name("Stock Decrement Test Product")
+                    .price(BigDecimal.TEN)
+                    .stock(STOCK)
+                    .build());
+
+            Order order = orderRepository.save(Order.builder()
+                    .user(user)
+                    .orderNumber("STOCK-" + user.getId())
+                    .status(OrderStatus.PAID)
+                    .totalAmount(BigDecimal.TEN.multiply(BigDecimal.valueOf(QUANTITY)))
+                    .build());
+            orderItemRepository.save(OrderItem.builder()
+                    .order(order)
+                    .product(product)
+                    .quantity(QUANTITY)
+                    .unitPrice(product.getPrice())
+                    .build());
+            orderId = order.getId();
+        });
+    }
+
+    @AfterEach
+    void deleteTestData() {
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE aggregate_type = ? AND aggregate_id = ?",
+                OrderEvents.AGGREGATE_TYPE, orderId);
+        // Commande et articles supprimés en cascade par la base
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", product.getId());
+    }
+
+    @Test
+    void orderShippedBeforeDispatchStillDecrementsStock() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxPublisher.publish(new OrderEvents.OrderPaid(orderId, null));
+            // Expédiée par un administrateur avant la distribution de l'événement
+            Order order = orderRepository.findById(orderId).orElseThrow();
+            order.setStatus(OrderStatus.SHIPPED);
+        });
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (pendingEvents() > 0 && System.currentTimeMillis() < deadline) {
+            outboxDispatcher.poll();
+            Thread.sleep(50);
+        }
+
+        assertThat(pendingEvents()).isZero();
+        assertThat(currentStock()).isEqualTo(STOCK - QUANTITY);
+        assertThat(orderRepository.findById(orderId).orElseThrow().getStockDecremented()).isTrue();
+    }
+
+    @Test
+    void redeliveryDecrementsOnce() {
+        stockDecrementSubscriber.handle(new OrderEvents.OrderPaid(orderId, null));
+        stockDecrementSubscriber.handle(new OrderEvents.OrderPaid(orderId, null));
+
+        assertThat(currentStock()).isEqualTo(STOCK - QUANTITY);
+    }
+
+    @Test
+    void cancelledOrderKeepsStock() {
+        jdbcTemplate.update("UPDATE orders SET status = 'CANCELLED' WHERE id = ?", orderId);
+
+        stockDecrementSubscriber.handle(new OrderEvents.OrderPaid(orderId, null));
+
+        assertThat(currentStock()).isEqualTo(STOCK);
+    }
+
+    private int pendingEvents() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events " +
+                        "WHERE aggregate_type = ? AND aggregate_id = ? AND status <> 'PROCESSED'",
+                Integer.class, OrderEvents.AGGREGATE_TYPE, orderId);
+    }
+
+    private int currentStock() {
+        return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, product.getId());
+    }
+}
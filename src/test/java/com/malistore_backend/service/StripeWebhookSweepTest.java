@@ -0,0 +1,87 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Le balayage ne reprend un événement Stripe en échec qu'après son délai de reprise,
+ * qui grandit avec le nombre de tentatives.
+ */
+@SpringBootTest(properties = {
+        // Balayage déclenché par le test
+        "app.webhook.sweep-interval-ms=3600000",
+        "app.webhook.retry-delay-ms=30000"
+})
+class StripeWebhookSweepTest {
+
+    @Autowired
+    private StripeWebhookEventProcessor stripeWebhookEventProcessor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String eventId;
+
+    @BeforeEach
+    void createFailedEvent() {
+        eventId = "evt_test_sweep_" + System.nanoTime();
+        // Charge utile illisible : chaque tentative échoue
+        jdbcTemplate.update("INSERT INTO stripe_webhook_events (event_id, event_type, ordering_key, payload, status, " +
+                        "attempts, received_at, last_attempt_at, available_at) " +
+                        "VALUES (?, 'payment_intent.succeeded', ?, '{not json', 'FAILED', 1, " +
+                        "CURRENT_TIMESTAMP - INTERVAL '1 hour', CURRENT_TIMESTAMP - INTERVAL '1 minute', " +
+                        "CURRENT_TIMESTAMP + INTERVAL '1 minute')",
+                eventId, eventId);
+    }
+
+    @AfterEach
+    void deleteEvent() {
+        jdbcTemplate.update("DELETE FROM stripe_webhook_events WHERE event_id = ?", eventId);
+    }
+
+    @Test
+    void failedEventWaitsForItsRetryDelay() throws InterruptedException {
+        stripeWebhookEventProcessor.sweep();
+        Thread.sleep(200);
+
+        assertThat(attempts()).isEqualTo(1);
+    }
+
+    @Test
+    void dueEventIsRetriedOnceThenBackedOff() throws InterruptedException {
+        jdbcTemplate.update("UPDATE stripe_webhook_events SET available_at = CURRENT_TIMESTAMP - INTERVAL '1 second' " +
+                "WHERE event_id = ?", eventId);
+
+        stripeWebhookEventProcessor.sweep();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!(attempts() == 2 && "FAILED".equals(status())) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(attempts()).isEqualTo(2);
+        assertThat(status()).isEqualTo("FAILED");
+        // Deuxième échec : reprise après deux délais
+        assertThat(jdbcTemplate.queryForObject("SELECT available_at > CURRENT_TIMESTAMP + INTERVAL '50 seconds' " +
+                "FROM stripe_webhook_events WHERE event_id = ?", Boolean.class, eventId)).isTrue();
+
+        stripeWebhookEventProcessor.sweep();
+        Thread.sleep(200);
+        assertThat(attempts()).isEqualTo(2);
+    }
+
+    private int attempts() {
+        return jdbcTemplate.queryForObject("SELECT attempts FROM stripe_webhook_events WHERE event_id = ?",
+                Integer.class, eventId);
+    }
+
+    private String status() {
+        return jdbcTemplate.queryForObject("SELECT status FROM stripe_webhook_events WHERE event_id = ?",
+                String.class, eventId);
+    }
+}
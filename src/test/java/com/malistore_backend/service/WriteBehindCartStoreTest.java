@@ -0,0 +1,166 @@
+package com.malistore_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.malistore_backend.data.entity.Product;
+import com.malistore_backend.data.entity.User;
+import com.malistore_backend.data.repository.CartItemRepository;
+import com.malistore_backend.data.repository.ProductRepository;
+import com.malistore_backend.data.repository.UserRepository;
+import com.malistore_backend.web.dto.cart.AddToCartDto;
+import com.malistore_backend.web.dto.cart.CartItemResponse;
+import com.malistore_backend.web.dto.cart.CartResponse;
+import com.malistore_backend.web.dto.cart.CartSummary;
+import com.malistore_backend.web.dto.cart.UpdateCartItemDto;
+import com.malistore_backend.web.dto.order.OrderCreateDto;
+import com.malistore_backend.web.dto.order.OrderResponse;
+
+/**
+ * En écriture différée, les changements du panier sont visibles immédiatement,
+ * fusionnés en mémoire, puis écrits en base au cycle suivant.
+ */
+@SpringBootTest(properties = {
+        "app.cart.store=write-behind",
+        "app.cart.write-behind.journal-dir=target/cart-journal-test",
+        // Écriture déclenchée par le test
+        "app.cart.write-behind.max-staleness-ms=3600000"
+})
+class WriteBehindCartStoreTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private WriteBehindCartStore writeBehindCartStore;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private List<Product> products;
+
+    @BeforeEach
+    void createCustomer() {
+        User customer = new User();
+        customer.setName("Write Behind Test");
+        customer.setEmail("write-behind-" + System.nanoTime() + "@test.local");
+        customer.setPassword("not-a-real-password");
+        user = userRepository.save(customer);
+
+        products = productRepository.findByActiveTrue().stream()
+                .filter(product -> product.getStock() >= 5)
+                .limit(2)
+                .toList();
+        assertThat(products).hasSize(2);
+    }
+
+    @AfterEach
+    void deleteCustomer() {
+        writeBehindCartStore.discard(user.getId());
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE aggregate_type = ? AND aggregate_id IN "
+                + "(SELECT id FROM orders WHERE user_id = ?)", OrderEvents.AGGREGATE_TYPE, user.getId());
+        // Articles du panier et commandes supprimés en cascade par la base
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void quantityChangesAreCoalescedUntilFlush() {
+        CartItemResponse line = cartService.addToCart(user, addToCart(products.get(0), 1));
+        long flushedBefore = writeBehindCartStore.getFlushedChanges();
+
+        cartService.updateCartItem(user, line.getId(), update(2));
+        cartService.updateCartItem(user, line.getId(), update(4));
+        cartService.addToCart(user, addToCart(products.get(0), 1));
+
+        // Base inchangée, panier et résumé à jour
+        assertThat(databaseQuantity(line.getId())).isEqualTo(1);
+        CartResponse cart = cartService.getCart(user);
+        assertThat(cart.getItems()).singleElement()
+                .satisfies(item -> assertThat(item.getQuantity()).isEqualTo(5));
+        assertThat(cartService.getCartSummary(user).getQuantity()).isEqualTo(5);
+
+        writeBehindCartStore.flush();
+
+        assertThat(databaseQuantity(line.getId())).isEqualTo(5);
+        assertThat(writeBehindCartStore.getFlushedChanges() - flushedBefore).isEqualTo(1);
+        CartSummary database = cartItemRepository.summarizeByUser(user);
+        assertThat(database.getSubtotal())
+                .isEqualByComparingTo(products.get(0).getPrice().multiply(BigDecimal.valueOf(5)));
+    }
+
+    @Test
+    void removalIsHiddenUntilFlushed() {
+        CartItemResponse first = cartService.addToCart(user, addToCart(products.get(0), 1));
+        cartService.addToCart(user, addToCart(products.get(1), 2));
+
+        cartService.removeFromCart(user, first.getId());
+
+        assertThat(cartItemRepository.existsById(first.getId())).isTrue();
+        assertThat(cartService.getCart(user).getItems()).extracting(CartItemResponse::getId)
+                .doesNotContain(first.getId());
+        assertThat(cartService.isProductInCart(user, products.get(0).getId())).isFalse();
+        assertThat(cartService.getCartSummary(user).getItemCount()).isEqualTo(1);
+
+        writeBehindCartStore.flush();
+
+        assertThat(cartItemRepository.existsById(first.getId())).isFalse();
+        assertThat(cartItemRepository.summarizeByUser(user).getItemCount()).isEqualTo(1);
+    }
+
+    @Test
+    void orderUsesPendingQuantitiesAndClearsThem() {
+        CartItemResponse line = cartService.addToCart(user, addToCart(products.get(0), 1));
+        cartService.updateCartItem(user, line.getId(), update(3));
+
+        OrderResponse order = orderService.createOrderFromCart(user, new OrderCreateDto());
+
+        assertThat(order.getOrderItems()).singleElement()
+                .satisfies(item -> assertThat(item.getQuantity()).isEqualTo(3));
+        assertThat(writeBehindCartStore.pendingQuantities(user.getId())).isEmpty();
+
+        // Un cycle d'écriture après la commande ne recrée pas le panier
+        writeBehindCartStore.flush();
+
+        assertThat(cartItemRepository.summarizeByUser(user).getItemCount()).isZero();
+        assertThat(cartService.getCart(user).getItems()).isEmpty();
+    }
+
+    private Integer databaseQuantity(Long cartItemId) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM cart_items WHERE id = ?", Integer.class, cartItemId);
+    }
+
+    private static UpdateCartItemDto update(int quantity) {
+        UpdateCartItemDto dto = new UpdateCartItemDto();
+        dto.setQuantity(quantity);
+        return dto;
+    }
+
+    private static AddToCartDto addToCart(Product product, int quantity) {
+        AddToCartDto dto = new AddToCartDto();
+        dto.setProductId(product.getId());
+        dto.setQuantity(quantity);
+        return dto;
+    }
+}
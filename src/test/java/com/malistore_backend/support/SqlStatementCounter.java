@@ -0,0 +1,63 @@
+package com.malistore_backend.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Compte les requêtes SQL préparées par Hibernate pendant un appel, à partir des statistiques
+ * de la SessionFactory (nécessite hibernate.generate_statistics=true).
+ *
+ * Les statistiques sont globales : une tâche planifiée qui s'exécute pendant l'appel est
+ * comptée aussi. Les tests qui l'utilisent sont annotés {@link StatementCountTest},
+ * dont le profil espace les tâches planifiées.
+ */
+public class SqlStatementCounter {
+
+    private final Statistics statistics;
+    private final Map<String, Long> recorded = new LinkedHashMap<>();
+
+    public SqlStatementCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Exécute l'appel et renvoie le nombre de requêtes préparées pendant son exécution
+     */
+    public long count(Runnable call) {
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Exécute l'appel et enregistre son nombre de requêtes sous le nom donné
+     */
+    public long record(String name, Supplier<?> call) {
+        long statements = count(call::get);
+        recorded.put(name, statements);
+        return statements;
+    }
+
+    /**
+     * Nombres de requêtes enregistrés, dans l'ordre des appels
+     */
+    public Map<String, Long> getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * Tableau lisible des nombres enregistrés, pour les journaux de test
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder("SQL statements per call:\n");
+        recorded.forEach((name, statements) ->
+                report.append(String.format("  %-55s %d%n", name, statements)));
+        return report.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.malistore_backend.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Test Spring Boot qui compte les requêtes SQL avec {@link SqlStatementCounter}.
+ * Le profil statement-count (application-statement-count.yml) active les statistiques Hibernate
+ * et espace les tâches planifiées ; tous ces tests partagent le même contexte.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@SpringBootTest
+@ActiveProfiles(StatementCountTest.PROFILE)
+public @interface StatementCountTest {
+
+    String PROFILE = "statement-count";
+}
@@ -0,0 +1,77 @@
+package com.malistore_backend.support;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in local de l'API Stripe avec latence injectable.
+ * Répond à POST /v1/checkout/sessions après le délai configuré.
+ */
+public class StripeStandInServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final AtomicInteger sessionCounter = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long latencyMs;
+
+    public StripeStandInServer(long latencyMs) throws IOException {
+        this.latencyMs = latencyMs;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.createContext("/v1/checkout/sessions", exchange -> {
+            inFlight.incrementAndGet();
+            try {
+                exchange.getRequestBody().readAllBytes();
+                sleep(this.latencyMs);
+
+                String id = "cs_test_standin_" + sessionCounter.incrementAndGet();
+                byte[] body = ("{\"id\":\"" + id + "\",\"object\":\"checkout.session\"," +
+                        "\"url\":\"http://localhost/checkout/" + id + "\",\"mode\":\"payment\"}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public int sessionsCreated() {
+        return sessionCounter.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}